@@ -0,0 +1,87 @@
+package com.evbox.everon.engine;
+
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.evbox.everon.service.ChargingSessionService;
+import com.evbox.everon.service.ChargingSessionStatisticsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating and stopping a session on the calling threads with publishing both
+ * commands to the single writer, under contention of 8 callers. Throughput is reported
+ * in operations per millisecond, sample time gives the latency percentiles, p99 included.
+ *
+ * Every iteration starts from an empty repository, so the results do not depend on how
+ * many sessions earlier iterations left behind.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=CommandExecutorBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class CommandExecutorBenchmark {
+
+    @Param({"direct", "single-writer"})
+    public String engineType;
+
+    @Param({"1000"})
+    public int stations;
+
+    private CommandExecutor executor;
+
+    private ChargingSessionService service;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+
+        executor = "single-writer".equals(engineType)
+                ? new SingleWriterCommandExecutor(1 << 16)
+                : new DirectCommandExecutor();
+
+        final InMemoryChargingSessionRepository repository = new InMemoryChargingSessionRepository();
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new ChargingSessionService(repository, new ChargingSessionStatisticsService(repository, meterRegistry),
+                executor, meterRegistry, new EpochClock(Clock.systemDefaultZone()),
+                new TimeOrderedSessionIdGenerator(Clock.systemUTC()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        if (executor instanceof SingleWriterCommandExecutor) {
+            ((SingleWriterCommandExecutor) executor).close();
+        }
+    }
+
+    @Benchmark
+    public ChargingSessionResponse createAndStop() {
+
+        final String stationId = "EV-" + ThreadLocalRandom.current().nextInt(stations);
+
+        // joined on the caller, as a stop composed onto the create would be published by the writer
+        final ChargingSessionResponse session = service.createAsync(stationId).join();
+
+        return service.stopAsync(session.getId().toString()).join();
+    }
+}
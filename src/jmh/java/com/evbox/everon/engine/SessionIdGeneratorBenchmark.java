@@ -0,0 +1,52 @@
+package com.evbox.everon.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating session ids with UUID.randomUUID, which shares one SecureRandom
+ * between all threads, against both session id generators, which use one per thread.
+ *
+ * Runs single threaded by default. Compare contention with
+ * {@code ./gradlew jmh -PjmhIncludes=SessionIdGeneratorBenchmark -PjmhThreads=8}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SessionIdGeneratorBenchmark {
+
+    private final SessionIdGenerator random = new RandomSessionIdGenerator();
+
+    private final SessionIdGenerator timeOrdered = new TimeOrderedSessionIdGenerator(Clock.systemUTC());
+
+    @Benchmark
+    public UUID randomUUID() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID random() {
+        return random.next();
+    }
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return timeOrdered.next();
+    }
+}
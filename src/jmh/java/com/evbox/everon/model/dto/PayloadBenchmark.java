@@ -0,0 +1,110 @@
+package com.evbox.everon.model.dto;
+
+import com.evbox.everon.model.StatusEnum;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a list of sessions, the body of GET /chargingSessions,
+ * as JSON with an object mapper configured like the one of Spring Boot and with
+ * BinaryCodec. The payload sizes of both are printed once per trial.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=PayloadBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PayloadBenchmark {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    @Param({"1", "100", "1000"})
+    public int sessions;
+
+    private List<ChargingSessionResponse> payload;
+
+    private ObjectWriter jsonWriter;
+
+    private ObjectReader jsonReader;
+
+    private byte[] json;
+
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        final TypeReference<List<ChargingSessionResponse>> type = new TypeReference<List<ChargingSessionResponse>>() {
+        };
+
+        jsonWriter = objectMapper.writerFor(type);
+        jsonReader = objectMapper.readerFor(type);
+
+        payload = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            payload.add(new ChargingSessionResponse(UUID.randomUUID(), "EV-" + i, UPDATED_AT.plusNanos(i * 1_234_000L),
+                    i % 2 == 0 ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED));
+        }
+
+        json = encodeJson();
+        binary = encodeBinary();
+
+        System.out.printf("%n%d sessions: %d bytes of JSON, %d bytes of binary (%.0f%%)%n", sessions, json.length,
+                binary.length, 100.0 * binary.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+
+        return jsonWriter.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() throws IOException {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        BinaryCodec.writeSessions(out, payload);
+
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public List<ChargingSessionResponse> decodeJson() throws IOException {
+
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public List<ChargingSessionResponse> decodeBinary() throws IOException {
+
+        return BinaryCodec.readSessions(new ByteArrayInputStream(binary));
+    }
+}
@@ -0,0 +1,107 @@
+package com.evbox.everon.repository;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.columnar.ColumnarChargingSessionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the retained heap per session of each repository, as the used heap after a
+ * full GC with the filled repository minus the used heap before filling it. The result
+ * is printed after each iteration, as JMH does not report secondary counters of single
+ * shot benchmarks. The score is the time to fill the repository.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=MemoryFootprintBenchmark}, adding
+ * {@code -prof gc} through the JMH options to compare GC activity.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class MemoryFootprintBenchmark {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    @Param({"memory", "columnar"})
+    public String repositoryType;
+
+    @Param({"1000000"})
+    public int sessions;
+
+    private ChargingSessionRepository repository;
+
+    private long bytesPerSession;
+
+    @Setup(Level.Iteration)
+    public void release() {
+        repository = null;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.println(repositoryType + " repository retains " + bytesPerSession + " bytes per session");
+    }
+
+    @Benchmark
+    public ChargingSessionRepository fill() {
+
+        final long before = usedHeapAfterGc();
+
+        repository = "columnar".equals(repositoryType)
+                ? new ColumnarChargingSessionRepository()
+                : new InMemoryChargingSessionRepository();
+
+        for (int i = 0; i < sessions; i++) {
+            repository.save(createChargingSession(i));
+        }
+
+        bytesPerSession = (usedHeapAfterGc() - before) / sessions;
+
+        return repository;
+    }
+
+    private static ChargingSession createChargingSession(final int i) {
+        final ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(UUID.randomUUID());
+        // a new String per session, like a deserialized request
+        chargingSession.setStationId(new StringBuilder("EV-").append(i % 10_000).toString());
+        chargingSession.setStartedAt(STARTED_AT.plusSeconds(i));
+        chargingSession.setUpdatedAt(chargingSession.getStartedAt());
+        if (i % 2 == 0) {
+            chargingSession.setStatus(StatusEnum.IN_PROGRESS);
+        } else {
+            chargingSession.setStatus(StatusEnum.FINISHED);
+            chargingSession.setStoppedAt(chargingSession.getStartedAt().plusHours(1));
+            chargingSession.setUpdatedAt(chargingSession.getStoppedAt());
+        }
+        return chargingSession;
+    }
+
+    private static long usedHeapAfterGc() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,123 @@
+package com.evbox.everon.repository;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.columnar.ColumnarChargingSessionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the average time of saving, looking up and listing sessions of a repository
+ * filled with 1k to 10M sessions, and of listing the sessions started in a time range. Saving updates the status of a random existing
+ * session, so the repository keeps its size across iterations; the time to insert new
+ * sessions is the score of MemoryFootprintBenchmark.
+ *
+ * The full listing copies every session and is only meaningful relative to the same
+ * size. Select sizes with the JMH options, e.g. {@code -p sessions=1000,100000}, as
+ * filling 10M sessions takes most of the 8g heap.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=RepositoryBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RepositoryBenchmark {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    private static final int STATIONS = 10_000;
+
+    @Param({"memory", "columnar"})
+    public String repositoryType;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int sessions;
+
+    private ChargingSessionRepository repository;
+
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void fill() {
+
+        repository = "columnar".equals(repositoryType)
+                ? new ColumnarChargingSessionRepository()
+                : new InMemoryChargingSessionRepository();
+
+        ids = new UUID[sessions];
+        for (int i = 0; i < sessions; i++) {
+            ids[i] = UUID.randomUUID();
+            repository.save(createChargingSession(ids[i], i, i % 2 == 0 ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED));
+        }
+    }
+
+    @Benchmark
+    public ChargingSession save() {
+
+        final int i = ThreadLocalRandom.current().nextInt(sessions);
+        final StatusEnum status = ThreadLocalRandom.current().nextBoolean() ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED;
+
+        return repository.save(createChargingSession(ids[i], i, status));
+    }
+
+    @Benchmark
+    public Optional<ChargingSession> findById() {
+
+        return repository.findById(ids[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+
+    @Benchmark
+    public List<ChargingSession> findAll() {
+
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<ChargingSession> findAllPage() {
+
+        return repository.findAll(ids[ThreadLocalRandom.current().nextInt(sessions)], 100);
+    }
+
+    @Benchmark
+    public List<ChargingSession> findStartedBetween() {
+
+        final long from = EpochNanos.of(STARTED_AT.plusSeconds(ThreadLocalRandom.current().nextInt(sessions)));
+
+        return repository.findStartedBetween(TimeKey.before(from), from + TimeUnit.SECONDS.toNanos(100), 100);
+    }
+
+    private static ChargingSession createChargingSession(final UUID id, final int i, final StatusEnum status) {
+        final ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(id);
+        chargingSession.setStationId("EV-" + i % STATIONS);
+        chargingSession.setStartedAt(STARTED_AT.plusSeconds(i));
+        chargingSession.setUpdatedAt(chargingSession.getStartedAt());
+        chargingSession.setStatus(status);
+        if (status == StatusEnum.FINISHED) {
+            chargingSession.setStoppedAt(chargingSession.getStartedAt().plusHours(1));
+            chargingSession.setUpdatedAt(chargingSession.getStoppedAt());
+        }
+        return chargingSession;
+    }
+}
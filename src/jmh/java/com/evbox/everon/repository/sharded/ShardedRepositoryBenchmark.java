@@ -0,0 +1,83 @@
+package com.evbox.everon.repository.sharded;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scan queries of the sharded repository, filled with 1M sessions, over 1
+ * to 16 shards with one fan-out thread per shard. The scans only scale up to the number
+ * of cores of the machine; compare the scores with the core count.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=ShardedRepositoryBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShardedRepositoryBenchmark {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    private static final int STATIONS = 10_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int shards;
+
+    @Param({"1000000"})
+    public int sessions;
+
+    private ShardedChargingSessionRepository repository;
+
+    @Setup(Level.Trial)
+    public void fill() {
+
+        repository = new ShardedChargingSessionRepository(shards, shards);
+
+        for (int i = 0; i < sessions; i++) {
+            final ChargingSession chargingSession = new ChargingSession();
+            chargingSession.setId(UUID.randomUUID());
+            chargingSession.setStationId("EV-" + i % STATIONS);
+            chargingSession.setStartedAt(STARTED_AT.plusSeconds(i));
+            chargingSession.setUpdatedAt(chargingSession.getStartedAt());
+            chargingSession.setStatus(i % 2 == 0 ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED);
+            repository.save(chargingSession);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        repository.close();
+    }
+
+    @Benchmark
+    public List<ChargingSession> findAll() {
+
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<ChargingSession> findAllFinished() {
+
+        return repository.findAllByStatus(StatusEnum.FINISHED);
+    }
+}
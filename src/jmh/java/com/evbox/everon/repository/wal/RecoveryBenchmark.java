@@ -0,0 +1,128 @@
+package com.evbox.everon.repository.wal;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures the startup of the durable repository: loading a snapshot of the given number
+ * of sessions and replaying the log written after it.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=RecoveryBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class RecoveryBenchmark {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    private static final int SEGMENT_SIZE = 64 << 20;
+
+    @Param({"1000000", "10000000"})
+    public int sessions;
+
+    @Param({"100000"})
+    public int logRecords;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void writeSnapshotAndLog() throws IOException {
+
+        directory = Files.createTempDirectory("recovery-benchmark");
+
+        new SnapshotStore(directory).write(0L, generate(sessions));
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, SEGMENT_SIZE, Duration.ofMillis(10), 1 << 20,
+                new IgnoringHandler())) {
+            for (int i = 0; i < logRecords; i++) {
+                final UUID id = UUID.randomUUID();
+                log.appendCreated(id, "EV-" + (i % 10_000), STARTED_AT);
+                log.appendStopped(id, STARTED_AT.plusHours(1));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long recover() {
+
+        final DurableChargingSessionRepository repository = new DurableChargingSessionRepository(
+                directory.toString(), SEGMENT_SIZE, 10L, 1 << 20, false, Long.MAX_VALUE, Long.MAX_VALUE);
+        try {
+            return repository.countActive();
+        } finally {
+            repository.close();
+        }
+    }
+
+    /**
+     * Generates sessions in id order, as the repository writes its snapshots.
+     */
+    private static Iterator<ChargingSession> generate(final int count) {
+        return Stream.iterate(0, i -> i + 1)
+                .limit(count)
+                .map(RecoveryBenchmark::createChargingSession)
+                .iterator();
+    }
+
+    private static ChargingSession createChargingSession(final int i) {
+        final ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(new UUID(i, 0L));
+        chargingSession.setStationId("EV-" + (i % 10_000));
+        chargingSession.setStartedAt(STARTED_AT);
+        chargingSession.setUpdatedAt(STARTED_AT);
+        chargingSession.setStatus(i % 2 == 0 ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED);
+        if (chargingSession.getStatus() == StatusEnum.FINISHED) {
+            chargingSession.setStoppedAt(STARTED_AT.plusHours(1));
+        }
+        return chargingSession;
+    }
+
+    private static final class IgnoringHandler implements WriteAheadLog.RecordHandler {
+
+        @Override
+        public void created(final UUID id, final String stationId, final LocalDateTime startedAt) {
+        }
+
+        @Override
+        public void stopped(final UUID id, final LocalDateTime stoppedAt) {
+        }
+    }
+}
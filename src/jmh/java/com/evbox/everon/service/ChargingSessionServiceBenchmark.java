@@ -0,0 +1,93 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.engine.DirectCommandExecutor;
+import com.evbox.everon.engine.EpochClock;
+import com.evbox.everon.engine.TimeOrderedSessionIdGenerator;
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.evbox.everon.repository.columnar.ColumnarChargingSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating a session, and creating and then stopping it, through the service
+ * with its repository and statistics, without the web layer. Every iteration starts from
+ * an empty repository, so the results do not depend on how many sessions earlier
+ * iterations left behind.
+ *
+ * Runs single threaded by default; set the threads with {@code -PjmhThreads}, e.g.
+ * {@code ./gradlew jmh -PjmhIncludes=ChargingSessionServiceBenchmark -PjmhThreads=8}.
+ * Add {@code -PjmhProfilers=gc} for the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChargingSessionServiceBenchmark {
+
+    @Param({"memory", "columnar"})
+    public String repositoryType;
+
+    @Param({"1000"})
+    public int stations;
+
+    private ChargingSessionService service;
+
+    private String[] stationIds;
+
+    @Setup(Level.Trial)
+    public void createStationIds() {
+
+        stationIds = new String[stations];
+        for (int i = 0; i < stations; i++) {
+            stationIds[i] = "EV-" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+
+        final ChargingSessionRepository repository = "columnar".equals(repositoryType)
+                ? new ColumnarChargingSessionRepository()
+                : new InMemoryChargingSessionRepository();
+
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new ChargingSessionService(repository, new ChargingSessionStatisticsService(repository, meterRegistry),
+                new DirectCommandExecutor(), meterRegistry, new EpochClock(Clock.systemDefaultZone()),
+                new TimeOrderedSessionIdGenerator(Clock.systemUTC()));
+    }
+
+    @Benchmark
+    public ChargingSessionResponse create() {
+
+        return service.create(stationIds[ThreadLocalRandom.current().nextInt(stations)]);
+    }
+
+    @Benchmark
+    public ChargingSessionResponse createAndStop() {
+
+        final ChargingSessionResponse session = service.create(stationIds[ThreadLocalRandom.current().nextInt(stations)]);
+
+        return service.stop(session.getId().toString());
+    }
+}
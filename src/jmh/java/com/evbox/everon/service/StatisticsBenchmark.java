@@ -0,0 +1,87 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of recording events and reading the summary of the statistics
+ * service, with every benchmark thread sharing one service. Events are spread over one
+ * station, so all threads contend for the same counters, or over 10k stations.
+ *
+ * The eviction sweep runs against the stations recorded so far, which are all recent,
+ * so it measures the cost of the scan rather than of removing stations.
+ *
+ * Runs single threaded by default. Compare contention with
+ * {@code ./gradlew jmh -PjmhIncludes=StatisticsBenchmark -PjmhThreads=64}, from 1 up to
+ * 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StatisticsBenchmark {
+
+    @Param({"1", "10000"})
+    public int stations;
+
+    private ChargingSessionStatisticsService statisticsService;
+
+    private String[] stationIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        statisticsService = new ChargingSessionStatisticsService(new InMemoryChargingSessionRepository(),
+                new SimpleMeterRegistry());
+
+        stationIds = new String[stations];
+        for (int i = 0; i < stations; i++) {
+            stationIds[i] = "EV-" + i;
+            statisticsService.started(stationIds[i]);
+        }
+    }
+
+    @Benchmark
+    public void started() {
+
+        statisticsService.started(stationIds[ThreadLocalRandom.current().nextInt(stations)]);
+    }
+
+    @Benchmark
+    public void stopped() {
+
+        statisticsService.stopped(stationIds[ThreadLocalRandom.current().nextInt(stations)]);
+    }
+
+    @Benchmark
+    public ChargingSessionsSummaryResponse getSummary() {
+
+        return statisticsService.getSummary();
+    }
+
+    @Benchmark
+    public void evictIdleStations() {
+
+        statisticsService.evictIdleStations();
+    }
+}
@@ -0,0 +1,72 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serving the summary of the last minute by computing and serializing it on
+ * every read with serving the bytes of the published snapshot, which are only computed
+ * again once per tick or change.
+ *
+ * Run with {@code ./gradlew jmh -PjmhIncludes=SummaryPublisherBenchmark -PjmhThreads=8}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SummaryPublisherBenchmark {
+
+    private ChargingSessionStatisticsService statisticsService;
+
+    private SummaryPublisher summaryPublisher;
+
+    private ObjectWriter summaryWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        final InMemoryChargingSessionRepository repository = new InMemoryChargingSessionRepository();
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        statisticsService = new ChargingSessionStatisticsService(repository, new SimpleMeterRegistry());
+        summaryPublisher = new SummaryPublisher(statisticsService, repository, objectMapper);
+        summaryWriter = objectMapper.writerFor(ChargingSessionsSummaryResponse.class);
+
+        for (int i = 0; i < 1000; i++) {
+            statisticsService.started("EV-" + i);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+
+        return summaryWriter.writeValueAsBytes(statisticsService.getSummary(SummaryPublisher.WINDOW));
+    }
+
+    @Benchmark
+    public byte[] snapshot() {
+
+        return summaryPublisher.getSnapshot().getJson();
+    }
+}
@@ -0,0 +1,78 @@
+package com.evbox.everon.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Blocking HTTP client of the REST API. Connections are kept alive and reused by the
+ * JDK as long as every response is read to the end, up to {@code http.maxConnections}
+ * idle connections.
+ */
+class ApiClient {
+
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    private final String url;
+
+    ApiClient(final String url) {
+        this.url = url;
+    }
+
+    Response send(final String method, final String path, final byte[] body) throws IOException {
+
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", "application/json");
+
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+
+        final int status = connection.getResponseCode();
+
+        return new Response(status, readFully(status >= 400 ? connection.getErrorStream() : connection.getInputStream()));
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+
+        if (in == null) {
+            return new byte[0];
+        }
+
+        try (InputStream input = in) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    static final class Response {
+
+        final int status;
+        final byte[] body;
+
+        private Response(final int status, final byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean isOk() {
+            return status >= 200 && status < 300;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.evbox.everon.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of a running application. Requests are scheduled at a constant
+ * rate, independent of how fast the application responds: request n is due at
+ * {@code start + n / rate}, and its latency is measured from that time rather than from
+ * when it was actually sent. A stalled application therefore shows up in the latencies
+ * of every request that had to wait for a free connection, instead of silently lowering
+ * the rate, which corrects for coordinated omission. The uncorrected service times are
+ * reported next to them.
+ *
+ * Stops are sent for sessions the load test started; while there are none, a create is
+ * sent instead. Requests due during the warmup are sent but not recorded.
+ *
+ * Run with {@code ./gradlew loadTest -Ploadtest.rate=2000} against an application
+ * started separately, see the README for all options.
+ */
+public class LoadTest {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private final LoadTestOptions options;
+    private final ApiClient client;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Operation, Recorder> latencies;
+    private final Map<Operation, Recorder> serviceTimes;
+    private final Map<Operation, LongAdder> errors;
+    private final Queue<String> activeIds;
+    private final AtomicLong sequence;
+    private final AtomicReference<Exception> firstFailure;
+
+    LoadTest(final LoadTestOptions options) {
+        this.options = options;
+        this.client = new ApiClient(options.url);
+        this.objectMapper = new ObjectMapper();
+        this.latencies = new EnumMap<>(Operation.class);
+        this.serviceTimes = new EnumMap<>(Operation.class);
+        this.errors = new EnumMap<>(Operation.class);
+        this.activeIds = new ConcurrentLinkedQueue<>();
+        this.sequence = new AtomicLong();
+        this.firstFailure = new AtomicReference<>();
+
+        for (final Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            serviceTimes.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+
+        final LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+
+        // keep one idle connection per worker alive, the JDK default is 5
+        System.setProperty("http.maxConnections", String.valueOf(options.connections));
+
+        System.out.println("Load test " + options);
+
+        new LoadTest(options).run();
+    }
+
+    void run() throws InterruptedException, IOException {
+
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) options.rate;
+        final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        final long warmupEnd = start + options.warmup.toNanos();
+        final long end = warmupEnd + options.duration.toNanos();
+
+        final List<Thread> workers = new ArrayList<>(options.connections);
+        for (int i = 0; i < options.connections; i++) {
+            final Thread worker = new Thread(() -> work(start, intervalNanos, warmupEnd, end), "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+
+        // requests still in flight at the end count towards the measured time
+        report(System.out, (System.nanoTime() - warmupEnd) / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void work(final long start, final double intervalNanos, final long warmupEnd, final long end) {
+
+        final Random random = ThreadLocalRandom.current();
+
+        while (true) {
+            final long due = start + (long) (sequence.getAndIncrement() * intervalNanos);
+            if (due >= end) {
+                return;
+            }
+
+            long delay;
+            while ((delay = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            Operation operation = options.mix.next(random);
+            String stopId = null;
+            if (operation == Operation.STOP && (stopId = activeIds.poll()) == null) {
+                operation = Operation.CREATE;
+            }
+
+            final long sent = System.nanoTime();
+            final boolean ok = execute(operation, stopId, random);
+            final long done = System.nanoTime();
+
+            if (due >= warmupEnd) {
+                latencies.get(operation).recordValue(done - due);
+                serviceTimes.get(operation).recordValue(done - sent);
+                if (!ok) {
+                    errors.get(operation).increment();
+                }
+            }
+        }
+    }
+
+    private boolean execute(final Operation operation, final String stopId, final Random random) {
+        try {
+            switch (operation) {
+                case CREATE:
+                    final byte[] body = ("{\"stationId\":\"EV-" + random.nextInt(options.stations) + "\"}")
+                            .getBytes(StandardCharsets.UTF_8);
+                    final ApiClient.Response created = client.send("POST", "/chargingSessions", body);
+                    if (created.isOk()) {
+                        activeIds.offer(objectMapper.readTree(created.body).get("id").asText());
+                    }
+                    return created.isOk();
+                case STOP:
+                    return client.send("PUT", "/chargingSessions/" + stopId, null).isOk();
+                case LIST:
+                    return client.send("GET", "/chargingSessions?limit=100", null).isOk();
+                case SUMMARY:
+                    return client.send("GET", "/chargingSessions/summary", null).isOk();
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (firstFailure.compareAndSet(null, e)) {
+                System.err.println("First failed request: " + e);
+            }
+            return false;
+        }
+    }
+
+    private void report(final PrintStream out, final double seconds) throws IOException {
+
+        final Map<Operation, Histogram> latencyHistograms = intervalHistograms(latencies);
+        final Map<Operation, Histogram> serviceTimeHistograms = intervalHistograms(serviceTimes);
+
+        final Histogram total = new Histogram(3);
+        latencyHistograms.values().forEach(total::add);
+
+        out.println();
+        out.printf("Requests: %d, errors: %d, throughput: %.1f/s of %d/s scheduled%n",
+                total.getTotalCount(), totalErrors(), total.getTotalCount() / seconds, options.rate);
+
+        out.println();
+        out.println("Latency in ms from the scheduled start, corrected for coordinated omission");
+        printTable(out, latencyHistograms, total);
+
+        out.println();
+        out.println("Service time in ms from the actual start, not corrected");
+        final Histogram totalServiceTime = new Histogram(3);
+        serviceTimeHistograms.values().forEach(totalServiceTime::add);
+        printTable(out, serviceTimeHistograms, totalServiceTime);
+
+        if (options.reportDirectory != null) {
+            writePercentileDistributions(latencyHistograms, total);
+            out.println();
+            out.println("Percentile distributions written to " + options.reportDirectory);
+        }
+    }
+
+    private void printTable(final PrintStream out, final Map<Operation, Histogram> histograms, final Histogram total) {
+
+        out.printf("%-10s %10s %8s", "operation", "count", "errors");
+        for (final double percentile : PERCENTILES) {
+            out.printf(" %9s", "p" + percentile);
+        }
+        out.printf(" %9s%n", "max");
+
+        for (final Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            printRow(out, entry.getKey().name().toLowerCase(), entry.getValue(), errors.get(entry.getKey()).sum());
+        }
+
+        printRow(out, "total", total, totalErrors());
+    }
+
+    private long totalErrors() {
+        long total = 0;
+        for (final LongAdder adder : errors.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    private static void printRow(final PrintStream out, final String name, final Histogram histogram, final long errorCount) {
+
+        out.printf("%-10s %10d %8d", name, histogram.getTotalCount(), errorCount);
+        for (final double percentile : PERCENTILES) {
+            out.printf(" %9.3f", histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+        }
+        out.printf(" %9.3f%n", histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    private void writePercentileDistributions(final Map<Operation, Histogram> histograms, final Histogram total) throws IOException {
+
+        if (!options.reportDirectory.isDirectory() && !options.reportDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + options.reportDirectory);
+        }
+
+        for (final Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            writePercentileDistribution(entry.getKey().name().toLowerCase(), entry.getValue());
+        }
+        writePercentileDistribution("total", total);
+    }
+
+    private void writePercentileDistribution(final String name, final Histogram histogram) throws IOException {
+
+        try (PrintStream out = new PrintStream(new File(options.reportDirectory, name + ".hgrm"), "UTF-8")) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+
+    private static Map<Operation, Histogram> intervalHistograms(final Map<Operation, Recorder> recorders) {
+
+        final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        for (final Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+            final Histogram histogram = entry.getValue().getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                histograms.put(entry.getKey(), histogram);
+            }
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,58 @@
+package com.evbox.everon.loadtest;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * Options of a load test run, read from {@code loadtest.*} system properties.
+ */
+public class LoadTestOptions {
+
+    final String url;
+    final int rate;
+    final Duration duration;
+    final Duration warmup;
+    final int connections;
+    final int stations;
+    final OperationMix mix;
+    final File reportDirectory;
+
+    private LoadTestOptions(final String url, final int rate, final Duration duration, final Duration warmup,
+                            final int connections, final int stations, final OperationMix mix,
+                            final File reportDirectory) {
+
+        if (rate <= 0 || connections <= 0 || stations <= 0) {
+            throw new IllegalArgumentException("Rate, connections and stations must be positive");
+        }
+
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.connections = connections;
+        this.stations = stations;
+        this.mix = mix;
+        this.reportDirectory = reportDirectory;
+    }
+
+    static LoadTestOptions fromSystemProperties() {
+
+        final String reportDirectory = System.getProperty("loadtest.report-dir");
+
+        return new LoadTestOptions(
+                System.getProperty("loadtest.url", "http://localhost:8080"),
+                Integer.parseInt(System.getProperty("loadtest.rate", "1000")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT60S")),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Integer.parseInt(System.getProperty("loadtest.connections", "64")),
+                Integer.parseInt(System.getProperty("loadtest.stations", "1000")),
+                OperationMix.parse(System.getProperty("loadtest.mix", "create:40,stop:40,list:5,summary:15")),
+                reportDirectory == null ? null : new File(reportDirectory));
+    }
+
+    @Override
+    public String toString() {
+        return "url=" + url + ", rate=" + rate + "/s, duration=" + duration + ", warmup=" + warmup
+                + ", connections=" + connections + ", stations=" + stations + ", mix=" + mix;
+    }
+}
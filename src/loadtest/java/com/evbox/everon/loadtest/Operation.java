@@ -0,0 +1,19 @@
+package com.evbox.everon.loadtest;
+
+/**
+ * Calls of the REST API the load test mixes.
+ */
+public enum Operation {
+
+    /** POST /chargingSessions */
+    CREATE,
+
+    /** PUT /chargingSessions/{id} of a session started by the load test */
+    STOP,
+
+    /** GET /chargingSessions, one page */
+    LIST,
+
+    /** GET /chargingSessions/summary */
+    SUMMARY
+}
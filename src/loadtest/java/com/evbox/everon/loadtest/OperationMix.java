@@ -0,0 +1,77 @@
+package com.evbox.everon.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of operations, parsed from e.g. {@code create:40,stop:40,list:5,summary:15}.
+ * Operations missing from the mix are never drawn.
+ */
+public class OperationMix {
+
+    private final Map<Operation, Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private OperationMix(final Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * @param mix Comma separated operation:weight pairs
+     * @return Operation mix
+     * @throws IllegalArgumentException If an operation is unknown or a weight is not positive
+     */
+    public static OperationMix parse(final String mix) {
+
+        final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (final String entry : mix.split(",")) {
+            final String[] pair = entry.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got " + entry);
+            }
+            final int weight = Integer.parseInt(pair[1].trim());
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight of " + pair[0] + " must be positive");
+            }
+            weights.merge(Operation.valueOf(pair[0].trim().toUpperCase()), weight, Integer::sum);
+        }
+
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix is empty");
+        }
+
+        return new OperationMix(weights);
+    }
+
+    /**
+     * Draws the next operation. Time complexity is O(o) for o operations in the mix.
+     *
+     * @param random Random of the calling thread
+     * @return Operation
+     */
+    public Operation next(final Random random) {
+
+        final int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+}
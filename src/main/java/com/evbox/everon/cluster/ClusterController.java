@@ -0,0 +1,46 @@
+package com.evbox.everon.cluster;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Gossip endpoint of the cluster mode, only answering the configured peers.
+ */
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ClusterController {
+
+    static final String GOSSIP_PATH = "/cluster/gossip";
+
+    private final ClusterGossip clusterGossip;
+
+    @PostMapping(value = GOSSIP_PATH,
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> gossip(HttpServletRequest request, @RequestBody final byte[] state)
+            throws UnknownHostException {
+
+        final InetAddress address = InetAddress.getByName(request.getRemoteAddr());
+        if (!clusterGossip.isPeer(address)) {
+            log.warn("Rejected gossip from {}, which is not a peer", address.getHostAddress());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(clusterGossip.receive(state));
+    }
+}
@@ -0,0 +1,353 @@
+package com.evbox.everon.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Started and stopped counts of every node of a cluster, as a state-based CRDT.
+ *
+ * Every node counts its own events in buckets of one epoch second. The counts of a node
+ * and second only grow, and only that node increments them, so two states merge by
+ * taking the maximum of every node and second: a grow-only counter per bucket. Merging
+ * is commutative, associative and idempotent, so nodes can exchange their states in any
+ * order, any number of times, and still converge. The number of active sessions of a
+ * node is a register versioned by its own clock, merged by the highest version.
+ *
+ * Buckets older than the retention are dropped by every node alike, so a merge never
+ * revives them. Likewise the active count of a node that has not published it for the
+ * node timeout, e.g. a node that stopped or restarted under a new id, is dropped, and a
+ * node left without buckets is forgotten. Merges and expiry are serialized, so a node is
+ * never forgotten while a merge fills it.
+ */
+public class ClusterCounters {
+
+    private static final int FORMAT = 1;
+    private static final int MAX_PREALLOCATED = 4096;
+    private static final Active NONE = new Active(0L, Long.MIN_VALUE);
+
+    private final String nodeId;
+    private final long retentionSeconds;
+    private final long nodeTimeoutSeconds;
+    private final ConcurrentMap<String, Node> nodes;
+    private final Node self;
+
+    /**
+     * @param nodeId             Id of this node, unique in the cluster
+     * @param retentionSeconds   Number of seconds kept, the longest window of a summary
+     * @param nodeTimeoutSeconds Age of the active count of another node after which it is dropped
+     */
+    public ClusterCounters(final String nodeId, final long retentionSeconds, final long nodeTimeoutSeconds) {
+        this.nodeId = Objects.requireNonNull(nodeId);
+        this.retentionSeconds = retentionSeconds;
+        this.nodeTimeoutSeconds = nodeTimeoutSeconds;
+        this.nodes = new ConcurrentHashMap<>();
+        this.self = node(nodeId);
+    }
+
+    /**
+     * Counts a started event of this node.
+     * Time complexity is O(log r) for r retained seconds.
+     *
+     * @param epochSecond Epoch second of the event
+     * @param count       Number of events
+     */
+    public void started(final long epochSecond, final long count) {
+        increment(self.started, epochSecond, count);
+    }
+
+    /**
+     * Counts a stopped event of this node.
+     * Time complexity is O(log r) for r retained seconds.
+     *
+     * @param epochSecond Epoch second of the event
+     * @param count       Number of events
+     */
+    public void stopped(final long epochSecond, final long count) {
+        increment(self.stopped, epochSecond, count);
+    }
+
+    /**
+     * Sets the number of active sessions of this node.
+     *
+     * @param active  Number of sessions in progress
+     * @param version Epoch millis of the count, higher than the previous one; the count
+     *                expires on other nodes once it is older than the node timeout
+     */
+    public void setActive(final long active, final long version) {
+        self.active.accumulateAndGet(new Active(active, version), ClusterCounters::newer);
+    }
+
+    /**
+     * Time complexity is O(m log r) for m nodes and r retained seconds.
+     *
+     * @param fromSecond Inclusive first epoch second
+     * @param toSecond   Inclusive last epoch second
+     * @return Started events of all nodes in the seconds
+     */
+    public long getStartedCount(final long fromSecond, final long toSecond) {
+        long sum = 0L;
+        for (final Node node : nodes.values()) {
+            sum += sum(node.started, fromSecond, toSecond);
+        }
+        return sum;
+    }
+
+    /**
+     * Time complexity is O(m log r) for m nodes and r retained seconds.
+     *
+     * @param fromSecond Inclusive first epoch second
+     * @param toSecond   Inclusive last epoch second
+     * @return Stopped events of all nodes in the seconds
+     */
+    public long getStoppedCount(final long fromSecond, final long toSecond) {
+        long sum = 0L;
+        for (final Node node : nodes.values()) {
+            sum += sum(node.stopped, fromSecond, toSecond);
+        }
+        return sum;
+    }
+
+    /**
+     * @return Sum of the last known active sessions of all nodes
+     */
+    public long getActiveCount() {
+        long sum = 0L;
+        for (final Node node : nodes.values()) {
+            sum += node.active.get().count;
+        }
+        return sum;
+    }
+
+    /**
+     * @return Number of nodes known to this node, including itself
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getRetentionSeconds() {
+        return retentionSeconds;
+    }
+
+    /**
+     * Drops the buckets that are older than the retention and the active counts of other
+     * nodes that are older than the node timeout at the given time, and forgets the other
+     * nodes left with neither.
+     * Time complexity is O(m + e) for m nodes and e expired buckets.
+     *
+     * @param nowSecond Current epoch second
+     */
+    public synchronized void expire(final long nowSecond) {
+
+        final long horizon = nowSecond - retentionSeconds;
+        final long activeHorizon = activeHorizon(nowSecond);
+
+        for (final Map.Entry<String, Node> entry : nodes.entrySet()) {
+            final Node node = entry.getValue();
+            node.started.headMap(horizon).clear();
+            node.stopped.headMap(horizon).clear();
+
+            if (node != self) {
+                final Active active = node.active.get();
+                if (active != NONE && active.version < activeHorizon) {
+                    node.active.set(NONE);
+                }
+                if (node.active.get() == NONE && node.started.isEmpty() && node.stopped.isEmpty()) {
+                    nodes.remove(entry.getKey(), node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the state of every known node, to be merged by another node.
+     * Time complexity is O(m r) for m nodes and r retained seconds.
+     *
+     * @return Encoded state
+     */
+    public byte[] encode() {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT);
+            out.writeInt(nodes.size());
+            for (final Map.Entry<String, Node> entry : nodes.entrySet()) {
+                final Node node = entry.getValue();
+                final Active active = node.active.get();
+                out.writeUTF(entry.getKey());
+                out.writeLong(active.count);
+                out.writeLong(active.version);
+                writeBuckets(out, node.started);
+                writeBuckets(out, node.stopped);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode cluster counters", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Merges an encoded state into this one, keeping the maximum of every bucket and the
+     * newest active count of every node. Buckets older than the retention and active
+     * counts older than the node timeout are ignored, so expired nodes are not revived.
+     * Time complexity is O(m r log r) for m nodes and r retained seconds.
+     *
+     * @param state     Encoded state of another node
+     * @param nowSecond Current epoch second
+     * @throws IllegalArgumentException If the state cannot be decoded
+     */
+    public synchronized void merge(final byte[] state, final long nowSecond) {
+
+        final long horizon = nowSecond - retentionSeconds;
+        final long activeHorizon = activeHorizon(nowSecond);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+            final int format = in.readInt();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Unsupported cluster state format " + format);
+            }
+
+            final int nodeCount = in.readInt();
+            for (int i = 0; i < nodeCount; i++) {
+                final String id = in.readUTF();
+                final Active active = new Active(in.readLong(), in.readLong());
+                final long[] started = readBuckets(in, horizon);
+                final long[] stopped = readBuckets(in, horizon);
+
+                // only this node writes its own counts, so a stale copy of them is ignored
+                final boolean live = active.version >= activeHorizon;
+                if (nodeId.equals(id) || !live && started.length == 0 && stopped.length == 0) {
+                    continue;
+                }
+
+                final Node node = node(id);
+                if (live) {
+                    node.active.accumulateAndGet(active, ClusterCounters::newer);
+                }
+                mergeBuckets(node.started, started);
+                mergeBuckets(node.stopped, stopped);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot decode cluster state", e);
+        }
+    }
+
+    private long activeHorizon(final long nowSecond) {
+        return (nowSecond - nodeTimeoutSeconds) * 1000L;
+    }
+
+    private Node node(final String id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = nodes.computeIfAbsent(id, key -> new Node());
+        }
+        return node;
+    }
+
+    private static void increment(final ConcurrentSkipListMap<Long, AtomicLong> buckets, final long second,
+                                  final long count) {
+        AtomicLong bucket = buckets.get(second);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(second, key -> new AtomicLong());
+        }
+        bucket.addAndGet(count);
+    }
+
+    private static long sum(final ConcurrentSkipListMap<Long, AtomicLong> buckets, final long fromSecond,
+                            final long toSecond) {
+        long sum = 0L;
+        for (final AtomicLong bucket : buckets.subMap(fromSecond, true, toSecond, true).values()) {
+            sum += bucket.get();
+        }
+        return sum;
+    }
+
+    private static void writeBuckets(final DataOutputStream out, final NavigableMap<Long, AtomicLong> buckets)
+            throws IOException {
+
+        // a snapshot, as buckets may be added while writing
+        final Map<Long, Long> snapshot = new ConcurrentSkipListMap<>();
+        buckets.forEach((second, count) -> snapshot.put(second, count.get()));
+
+        out.writeInt(snapshot.size());
+        for (final Map.Entry<Long, Long> bucket : snapshot.entrySet()) {
+            out.writeLong(bucket.getKey());
+            out.writeLong(bucket.getValue());
+        }
+    }
+
+    /**
+     * @return Seconds and counts of the buckets from the horizon on, one after the other
+     */
+    private static long[] readBuckets(final DataInputStream in, final long horizon) throws IOException {
+
+        final int size = in.readInt();
+        long[] buckets = new long[2 * Math.min(Math.max(size, 0), MAX_PREALLOCATED)];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            final long second = in.readLong();
+            final long count = in.readLong();
+            if (second >= horizon) {
+                if (length == buckets.length) {
+                    buckets = Arrays.copyOf(buckets, 2 * length);
+                }
+                buckets[length++] = second;
+                buckets[length++] = count;
+            }
+        }
+
+        return length == buckets.length ? buckets : Arrays.copyOf(buckets, length);
+    }
+
+    private static void mergeBuckets(final ConcurrentSkipListMap<Long, AtomicLong> buckets, final long[] update) {
+
+        for (int i = 0; i < update.length; i += 2) {
+            final long second = update[i];
+            final long count = update[i + 1];
+            AtomicLong bucket = buckets.get(second);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(second, key -> new AtomicLong());
+            }
+            bucket.accumulateAndGet(count, Math::max);
+        }
+    }
+
+    private static Active newer(final Active current, final Active update) {
+        return update.version > current.version ? update : current;
+    }
+
+    private static final class Node {
+
+        private final ConcurrentSkipListMap<Long, AtomicLong> started = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<Long, AtomicLong> stopped = new ConcurrentSkipListMap<>();
+        private final AtomicReference<Active> active = new AtomicReference<>(NONE);
+    }
+
+    private static final class Active {
+
+        private final long count;
+        private final long version;
+
+        private Active(final long count, final long version) {
+            this.count = count;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.evbox.everon.cluster;
+
+import com.evbox.everon.repository.ChargingSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "true")
+public class ClusterGossip {
+
+    private final ClusterCounters counters;
+    private final GossipTransport transport;
+    private final ChargingSessionRepository repository;
+    private final Clock clock;
+    private final List<String> peers;
+    private final List<String> peerHosts;
+
+    private int next;
+
+    /**
+     * Every round publishes the active sessions of this node, exchanges the counters with
+     * the next peer in turn and drops the buckets older than the retention. With m nodes
+     * that all list each other, an event reaches every node within m - 1 rounds.
+     *
+     * @param peers Comma-separated host:port addresses of the other nodes
+     */
+    @Autowired
+    public ClusterGossip(final ClusterCounters counters, final GossipTransport transport,
+                         final ChargingSessionRepository repository, final Clock clock,
+                         @Value("${everon.cluster.peers:}") final String peers) {
+        this(counters, transport, repository, clock, parsePeers(peers));
+    }
+
+    ClusterGossip(final ClusterCounters counters, final GossipTransport transport,
+                  final ChargingSessionRepository repository, final Clock clock, final List<String> peers) {
+        this.counters = counters;
+        this.transport = transport;
+        this.repository = repository;
+        this.clock = clock;
+        this.peers = Collections.unmodifiableList(new ArrayList<>(peers));
+        this.peerHosts = new ArrayList<>(peers.size());
+        for (final String peer : peers) {
+            peerHosts.add(hostOf(peer));
+        }
+
+        log.info("Node {} gossiping with {}", counters.getNodeId(), this.peers);
+    }
+
+    /**
+     * Merges the state of a peer and returns the state of this node, the receiving end of
+     * an exchange.
+     * Time complexity is O(m r log r) for m nodes and r retained seconds.
+     *
+     * @param state Encoded state of the peer
+     * @return Encoded state of this node, including what it just merged
+     */
+    public byte[] receive(final byte[] state) {
+
+        counters.merge(state, clock.instant().getEpochSecond());
+
+        return counters.encode();
+    }
+
+    /**
+     * Tells whether an address belongs to one of the configured peers, the only nodes
+     * allowed to gossip with this one. Peer names are resolved on every call, so a peer
+     * that moves is followed within the DNS cache of the JVM.
+     * Time complexity is O(p) for p peers.
+     *
+     * @param address Remote address of a gossip request
+     * @return Whether the address is one of a peer
+     */
+    public boolean isPeer(final InetAddress address) {
+
+        for (final String host : peerHosts) {
+            try {
+                for (final InetAddress peerAddress : InetAddress.getAllByName(host)) {
+                    if (peerAddress.equals(address)) {
+                        return true;
+                    }
+                }
+            } catch (UnknownHostException e) {
+                log.debug("Cannot resolve peer {}: {}", host, e.getMessage());
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Background task that runs one gossip round. A peer that cannot be reached is skipped
+     * until its next turn; its counters are still served as last merged.
+     */
+    @Scheduled(fixedDelayString = "${everon.cluster.gossip-interval-millis:1000}")
+    public synchronized void gossip() {
+
+        counters.setActive(repository.countActive(), clock.millis());
+
+        if (!peers.isEmpty()) {
+            final String peer = peers.get(next);
+            next = (next + 1) % peers.size();
+
+            try {
+                counters.merge(transport.exchange(peer, counters.encode()), clock.instant().getEpochSecond());
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Gossip with {} failed: {}", peer, e.getMessage());
+            }
+        }
+
+        counters.expire(clock.instant().getEpochSecond());
+    }
+
+    /**
+     * @return Host of a host:port address, without the brackets of an IPv6 address
+     */
+    private static String hostOf(final String peer) {
+
+        if (peer.startsWith("[") && peer.indexOf(']') > 0) {
+            return peer.substring(1, peer.indexOf(']'));
+        }
+
+        final int colon = peer.lastIndexOf(':');
+        return colon < 0 ? peer : peer.substring(0, colon);
+    }
+
+    private static List<String> parsePeers(final String peers) {
+
+        final List<String> result = new ArrayList<>();
+        for (final String peer : peers.split(",")) {
+            if (!peer.trim().isEmpty()) {
+                result.add(peer.trim());
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package com.evbox.everon.cluster;
+
+import java.io.IOException;
+
+/**
+ * Sends the encoded counters of this node to a peer and returns the encoded counters of
+ * the peer, a push-pull exchange, so both nodes learn from one round trip.
+ */
+@FunctionalInterface
+public interface GossipTransport {
+
+    /**
+     * @param peer  Address of the peer, as listed in everon.cluster.peers
+     * @param state Encoded state of this node
+     * @return Encoded state of the peer
+     * @throws IOException If the peer cannot be reached
+     */
+    byte[] exchange(String peer, byte[] state) throws IOException;
+}
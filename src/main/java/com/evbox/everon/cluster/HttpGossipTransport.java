@@ -0,0 +1,74 @@
+package com.evbox.everon.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+@Component
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "true")
+public class HttpGossipTransport implements GossipTransport {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private final int timeoutMillis;
+
+    /**
+     * Posts the state to {@code http://<peer>/cluster/gossip} of the peer and reads its
+     * state from the response, without any dependency beyond the JDK.
+     *
+     * @param timeoutMillis Connect and read timeout of an exchange
+     */
+    public HttpGossipTransport(@Value("${everon.cluster.timeout-millis:500}") final int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public byte[] exchange(final String peer, final byte[] state) throws IOException {
+
+        final HttpURLConnection connection =
+                (HttpURLConnection) new URL("http://" + peer + ClusterController.GOSSIP_PATH).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(state.length);
+            connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+            connection.setRequestProperty("Accept", CONTENT_TYPE);
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(state);
+            }
+
+            final int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Gossip with " + peer + " failed with status " + status);
+            }
+
+            try (InputStream in = connection.getInputStream()) {
+                return readAll(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,42 @@
+package com.evbox.everon.cluster;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The gossip endpoint of ClusterController for the reactive profile.
+ */
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveClusterController {
+
+    private final ClusterGossip clusterGossip;
+
+    @PostMapping(value = ClusterController.GOSSIP_PATH,
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> gossip(ServerHttpRequest request, @RequestBody final byte[] state) {
+
+        final InetSocketAddress address = request.getRemoteAddress();
+        if (address == null || !clusterGossip.isPeer(address.getAddress())) {
+            log.warn("Rejected gossip from {}, which is not a peer", address);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(clusterGossip.receive(state));
+    }
+}
@@ -0,0 +1,245 @@
+package com.evbox.everon.config;
+
+import com.evbox.everon.model.dto.BinaryCodec;
+import com.evbox.everon.model.dto.ChargingSessionBatchResult;
+import com.evbox.everon.model.dto.ChargingSessionRequest;
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.service.SummaryPublisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the payloads of the charging session endpoints in the encoding of
+ * BinaryCodec, for clients that send {@value BinaryCodec#MEDIA_TYPE_VALUE} in Accept or
+ * Content-Type. Everything else is left to Jackson; JSON is listed first, so clients
+ * that accept any type still get JSON.
+ *
+ * The published summary snapshot is written from its cached bytes in either encoding.
+ *
+ * Spring Boot puts converter beans in front of its default ones.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(BinaryCodec.MEDIA_TYPE_VALUE);
+
+    private enum Kind {
+        SESSION, SESSIONS, SUMMARY, SUMMARIES, BATCH_RESULTS, REQUEST, REQUESTS, STRINGS, SNAPSHOT
+    }
+
+    public BinaryHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return kindOf(ResolvableType.forClass(clazz)) != null;
+    }
+
+    @Override
+    public boolean canRead(final Class<?> clazz, final MediaType mediaType) {
+        return canRead(clazz, null, mediaType);
+    }
+
+    @Override
+    public boolean canRead(final Type type, final Class<?> contextClass, final MediaType mediaType) {
+        final Kind kind = kindOf(ResolvableType.forType(type));
+        return kind != null && kind != Kind.SNAPSHOT && isBinary(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(final Class<?> clazz, final MediaType mediaType) {
+        return canWrite(null, clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(final Type type, final Class<?> clazz, final MediaType mediaType) {
+        final Kind kind = kindOf(type, clazz);
+        if (kind == null) {
+            return false;
+        }
+        // the snapshot holds its JSON too, everything else is JSON to Jackson
+        return kind == Kind.SNAPSHOT ? canWrite(mediaType) : mediaType == null || isBinary(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(final Class<?> clazz, final HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    public Object read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage)
+            throws IOException {
+
+        final Kind kind = kindOf(ResolvableType.forType(type));
+        final InputStream in = new BufferedInputStream(inputMessage.getBody());
+
+        try {
+            switch (kind) {
+                case SESSION:
+                    return BinaryCodec.readSession(in);
+                case SESSIONS:
+                    return BinaryCodec.readSessions(in);
+                case SUMMARY:
+                    return BinaryCodec.readSummary(in);
+                case SUMMARIES:
+                    return BinaryCodec.readSummaries(in);
+                case BATCH_RESULTS:
+                    return BinaryCodec.readBatchResults(in);
+                case REQUEST:
+                    return BinaryCodec.readRequest(in);
+                case REQUESTS:
+                    return BinaryCodec.readRequests(in);
+                case STRINGS:
+                    return BinaryCodec.readStrings(in);
+                default:
+                    throw new IllegalStateException("Cannot read " + type);
+            }
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Malformed binary body: " + e, e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(final Object value, final Type type, final HttpOutputMessage outputMessage)
+            throws IOException {
+
+        if (value instanceof SummaryPublisher.Snapshot) {
+            outputMessage.getBody().write(bytesOf((SummaryPublisher.Snapshot) value,
+                    outputMessage.getHeaders().getContentType()));
+            return;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        switch (kindOf(type, value.getClass())) {
+            case SESSION:
+                BinaryCodec.writeSession(out, (ChargingSessionResponse) value);
+                break;
+            case SESSIONS:
+                BinaryCodec.writeSessions(out, (List<ChargingSessionResponse>) value);
+                break;
+            case SUMMARY:
+                BinaryCodec.writeSummary(out, (ChargingSessionsSummaryResponse) value);
+                break;
+            case SUMMARIES:
+                BinaryCodec.writeSummaries(out, (Map<String, ChargingSessionsSummaryResponse>) value);
+                break;
+            case BATCH_RESULTS:
+                BinaryCodec.writeBatchResults(out, (List<ChargingSessionBatchResult>) value);
+                break;
+            case REQUEST:
+                BinaryCodec.writeRequest(out, (ChargingSessionRequest) value);
+                break;
+            case REQUESTS:
+                BinaryCodec.writeRequests(out, (List<ChargingSessionRequest>) value);
+                break;
+            case STRINGS:
+                BinaryCodec.writeStrings(out, (List<String>) value);
+                break;
+            default:
+                throw new IllegalStateException("Cannot write " + type);
+        }
+        out.writeTo(outputMessage.getBody());
+    }
+
+    /**
+     * Writes the JSON of the snapshot as UTF-8, the charset its bytes are in.
+     */
+    @Override
+    protected void addDefaultHeaders(final HttpHeaders headers, final Object value, final MediaType contentType)
+            throws IOException {
+
+        if (headers.getContentType() == null && contentType != null && !isBinary(contentType)
+                && contentType.getCharset() == null) {
+            headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+        }
+        super.addDefaultHeaders(headers, value, contentType);
+    }
+
+    @Override
+    protected Long getContentLength(final Object value, final MediaType contentType) {
+        return value instanceof SummaryPublisher.Snapshot
+                ? (long) bytesOf((SummaryPublisher.Snapshot) value, contentType).length
+                : null;
+    }
+
+    private static byte[] bytesOf(final SummaryPublisher.Snapshot snapshot, final MediaType contentType) {
+        return isBinary(contentType) ? snapshot.getBinary() : snapshot.getJson();
+    }
+
+    private static boolean isBinary(final MediaType mediaType) {
+        return mediaType != null && MEDIA_TYPE.includes(mediaType) && !mediaType.isWildcardSubtype();
+    }
+
+    /**
+     * Resolves the declared type, or the class of the value when the declared type is
+     * too vague, e.g. the body of a {@code ResponseEntity<?>}.
+     */
+    private static Kind kindOf(final Type type, final Class<?> clazz) {
+        final ResolvableType resolvable = type == null ? ResolvableType.NONE : ResolvableType.forType(type);
+        final Class<?> resolved = resolvable.resolve();
+        return resolved == null || resolved == Object.class
+                ? kindOf(ResolvableType.forClass(clazz))
+                : kindOf(resolvable);
+    }
+
+    private static Kind kindOf(final ResolvableType type) {
+
+        final Class<?> clazz = type.resolve();
+        if (clazz == null) {
+            return null;
+        }
+        if (ChargingSessionResponse.class.isAssignableFrom(clazz)) {
+            return Kind.SESSION;
+        }
+        if (ChargingSessionsSummaryResponse.class.isAssignableFrom(clazz)) {
+            return Kind.SUMMARY;
+        }
+        if (ChargingSessionRequest.class.isAssignableFrom(clazz)) {
+            return Kind.REQUEST;
+        }
+        if (SummaryPublisher.Snapshot.class.isAssignableFrom(clazz)) {
+            return Kind.SNAPSHOT;
+        }
+        if (List.class.isAssignableFrom(clazz)) {
+            final Class<?> element = type.asCollection().resolveGeneric(0);
+            if (element == ChargingSessionResponse.class) {
+                return Kind.SESSIONS;
+            }
+            if (element == ChargingSessionBatchResult.class) {
+                return Kind.BATCH_RESULTS;
+            }
+            if (element == ChargingSessionRequest.class) {
+                return Kind.REQUESTS;
+            }
+            if (element == String.class) {
+                return Kind.STRINGS;
+            }
+        }
+        if (Map.class.isAssignableFrom(clazz)) {
+            final ResolvableType map = type.asMap();
+            if (map.resolveGeneric(0) == String.class && map.resolveGeneric(1) == ChargingSessionsSummaryResponse.class) {
+                return Kind.SUMMARIES;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.evbox.everon.config;
+
+import com.evbox.everon.engine.CommandExecutor;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.service.ChargingSessionStatisticsService;
+import com.evbox.everon.service.SummaryStreamService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ChargingSessionMetrics {
+
+    /**
+     * Registers gauges of the sizes of the repository, the statistics and the queues.
+     * They are only read when the metrics are scraped, so they add nothing to creating
+     * and stopping sessions.
+     *
+     * Registered here rather than by a MeterBinder, since the statistics service itself
+     * depends on the meter registry.
+     */
+    public ChargingSessionMetrics(final MeterRegistry meterRegistry,
+                                  final ChargingSessionRepository repository,
+                                  final ChargingSessionStatisticsService chargingSessionStatisticsService,
+                                  final CommandExecutor commandExecutor,
+                                  final SummaryStreamService summaryStreamService) {
+
+        Gauge.builder("everon.sessions", repository, ChargingSessionRepository::count)
+                .description("Charging sessions in the repository")
+                .register(meterRegistry);
+        Gauge.builder("everon.sessions.active", repository, ChargingSessionRepository::countActive)
+                .description("Charging sessions in progress")
+                .register(meterRegistry);
+        Gauge.builder("everon.statistics.stations", chargingSessionStatisticsService,
+                ChargingSessionStatisticsService::getStationCount)
+                .description("Stations with counters in the statistics window")
+                .register(meterRegistry);
+        Gauge.builder("everon.engine.pending", commandExecutor, CommandExecutor::getPendingCommands)
+                .description("Create and stop commands not applied yet")
+                .register(meterRegistry);
+        Gauge.builder("everon.summary.stream.subscribers", summaryStreamService,
+                SummaryStreamService::getSubscriberCount)
+                .description("Subscribers of the live summary stream")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.evbox.everon.config;
+
+import com.evbox.everon.cluster.ClusterCounters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /**
+     * @param nodeId      Id of this node, or blank for a random one per start
+     * @param retention   Longest summary window served by the cluster
+     * @param nodeTimeout Time without gossip after which the active sessions of a node are no longer counted
+     */
+    @Bean
+    public ClusterCounters clusterCounters(@Value("${everon.cluster.node-id:}") final String nodeId,
+                                           @Value("${everon.cluster.retention:PT1H}") final Duration retention,
+                                           @Value("${everon.cluster.node-timeout:PT30S}") final Duration nodeTimeout) {
+
+        final String id = nodeId.trim().isEmpty() ? UUID.randomUUID().toString() : nodeId.trim();
+
+        log.info("Starting cluster node {}", id);
+
+        return new ClusterCounters(id, retention.getSeconds(), nodeTimeout.getSeconds());
+    }
+}
@@ -1,60 +1,305 @@
 package com.evbox.everon.controller;
 
+import com.evbox.everon.config.BinaryHttpMessageConverter;
+import com.evbox.everon.model.ETags;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.dto.ChargingSessionBatchResult;
+import com.evbox.everon.model.dto.ChargingSessionPage;
 import com.evbox.everon.model.dto.ChargingSessionRequest;
 import com.evbox.everon.model.dto.ChargingSessionResponse;
 import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
 import com.evbox.everon.service.ChargingSessionService;
 import com.evbox.everon.service.ChargingSessionStatisticsService;
+import com.evbox.everon.service.SummaryPublisher;
+import com.evbox.everon.service.SummaryStreamService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.http.ResponseEntity.ok;
 
 @RestController
 @AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ChargingSessionController {
 
     private final ChargingSessionService chargingSessionService;
     private final ChargingSessionStatisticsService chargingSessionStatisticsService;
+    private final SummaryStreamService summaryStreamService;
+    private final SummaryPublisher summaryPublisher;
+    private final ObjectMapper objectMapper;
 
-    @PostMapping("/chargingSessions")
-    public ResponseEntity<ChargingSessionResponse> createChargingSession(@RequestBody @Valid ChargingSessionRequest request) {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
 
-        final ChargingSessionResponse session = chargingSessionService.create(request.getStationId());
+    private static final String BINARY_ETAG = "bin";
+
+    @PostMapping("/chargingSessions")
+    public CompletableFuture<ResponseEntity<ChargingSessionResponse>> createChargingSession(@RequestBody @Valid ChargingSessionRequest request) {
 
-        return ok().body(session);
+        return chargingSessionService.createAsync(request.getStationId())
+                .thenApply(session -> ok().body(session));
     }
 
     @PutMapping("/chargingSessions/{id}")
-    public ResponseEntity<ChargingSessionResponse> stopChargingSession(@PathVariable String id) {
+    public CompletableFuture<ResponseEntity<ChargingSessionResponse>> stopChargingSession(@PathVariable String id) {
+
+        return chargingSessionService.stopAsync(id)
+                .thenApply(session -> ok().body(session));
+    }
+
+    @PostMapping("/chargingSessions/batch")
+    public CompletableFuture<ResponseEntity<List<ChargingSessionBatchResult>>> createChargingSessions(@RequestBody List<ChargingSessionRequest> requests) {
 
-        final ChargingSessionResponse session = chargingSessionService.stop(id);
+        final List<String> stationIds = requests.stream()
+                .map(r -> r == null ? null : r.getStationId())
+                .collect(Collectors.toList());
 
-        return ok().body(session);
+        return chargingSessionService.createAllAsync(stationIds)
+                .thenApply(results -> ok().body(results));
     }
 
+    @PutMapping("/chargingSessions/batch/stop")
+    public CompletableFuture<ResponseEntity<List<ChargingSessionBatchResult>>> stopChargingSessions(@RequestBody List<String> ids) {
+
+        return chargingSessionService.stopAllAsync(ids)
+                .thenApply(results -> ok().body(results));
+    }
+
+    /**
+     * Answers a request whose If-None-Match holds the ETag of the current repository
+     * version with 304, before any session is read. Without paging parameters the first
+     * page of the default size is returned, so a request never reads the whole store;
+     * every session is streamed with Accept application/stream+json.
+     */
     @GetMapping("/chargingSessions")
-    public ResponseEntity<List<ChargingSessionResponse>> getAllChargingSessions() {
+    public ResponseEntity<List<ChargingSessionResponse>> getAllChargingSessions(WebRequest webRequest,
+                                                                                @RequestParam(required = false) StatusEnum status,
+                                                                                @RequestParam(required = false) Integer limit,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Instant createdSince,
+                                                                                @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime startedFrom,
+                                                                                @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime startedTo,
+                                                                                @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime updatedSince) {
+
+        checkListParameters(status, limit, cursor, createdSince, startedFrom, startedTo, updatedSince);
+
+        if (checkNotModified(webRequest, ETags.of(chargingSessionService.getVersion()))) {
+            return null;
+        }
+
+        if (status != null) {
+            return ok().body(chargingSessionService.getAllByStatus(status));
+        }
 
-        final List<ChargingSessionResponse> sessions = chargingSessionService.getAll();
+        if (startedFrom != null || startedTo != null || updatedSince != null) {
+            final ChargingSessionPage page = chargingSessionService.getPageByTime(startedFrom, startedTo, updatedSince,
+                    cursor, limit == null ? DEFAULT_PAGE_SIZE : limit);
 
-        return ok().body(sessions);
+            final ResponseEntity.BodyBuilder response = ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+
+            return response.body(page.getSessions());
+        }
+
+        final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        final ChargingSessionPage page = cursor == null && createdSince != null
+                ? chargingSessionService.getPageCreatedSince(createdSince, pageSize)
+                : chargingSessionService.getPage(cursor, pageSize);
+
+        final ResponseEntity.BodyBuilder response = ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+
+        return response.body(page.getSessions());
     }
 
+    @GetMapping(value = "/chargingSessions", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllChargingSessions() {
+
+        final StreamingResponseBody body = this::writeAllChargingSessions;
+
+        return ok().contentType(MediaType.APPLICATION_STREAM_JSON).body(body);
+    }
+
+    /**
+     * Answers a request whose If-None-Match holds the ETag of the current summary with
+     * 304, without writing it. The summary of the last minute is written from the JSON or
+     * binary bytes of the snapshot published on the current tick, without serializing it
+     * again; other windows and stations are computed per request.
+     */
     @GetMapping("/chargingSessions/summary")
-    public ResponseEntity<ChargingSessionsSummaryResponse> getSummary() {
+    public ResponseEntity<?> getSummary(WebRequest webRequest,
+                                        @RequestParam(required = false) String stationId,
+                                        @RequestParam(defaultValue = "PT1M") Duration window) {
+
+        if (stationId == null && SummaryPublisher.WINDOW.equals(window)) {
+            final SummaryPublisher.Snapshot snapshot = summaryPublisher.getSnapshot();
+            if (checkNotModified(webRequest, snapshot.getETag())) {
+                return null;
+            }
+
+            return ok().body(snapshot);
+        }
 
-        final ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
+        final ChargingSessionsSummaryResponse summary = stationId == null
+                ? chargingSessionStatisticsService.getSummary(window)
+                : chargingSessionStatisticsService.getSummary(stationId, window);
+
+        if (checkNotModified(webRequest, SummaryPublisher.eTagOf(summary))) {
+            return null;
+        }
 
         return ok().body(summary);
     }
+
+    /**
+     * Streams the summary of the last minute as Server-Sent Events, written without
+     * blocking so a stalled subscriber is dropped instead of holding up the others.
+     */
+    @GetMapping(value = "/chargingSessions/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void streamSummary(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        ServletSummarySink.start(request, response, summaryStreamService);
+    }
+
+    @GetMapping("/chargingSessions/summary/stations")
+    public ResponseEntity<Map<String, ChargingSessionsSummaryResponse>> getStationSummaries() {
+
+        final Map<String, ChargingSessionsSummaryResponse> summaries = chargingSessionStatisticsService.getStationSummaries();
+
+        return ok().body(summaries);
+    }
+
+    /**
+     * Rejects the parameters of the list endpoint that select different queries, so none
+     * of them is silently ignored: the status filter is neither paged nor combined with
+     * times, and createdSince cannot be combined with the time filters. A cursor may
+     * follow createdSince, as it continues the same scan by id.
+     *
+     * @throws IllegalArgumentException If the parameters cannot be combined
+     */
+    static void checkListParameters(final StatusEnum status, final Integer limit, final String cursor,
+                                    final Instant createdSince, final LocalDateTime startedFrom,
+                                    final LocalDateTime startedTo, final LocalDateTime updatedSince) {
+
+        final boolean byTime = startedFrom != null || startedTo != null || updatedSince != null;
+
+        if (status != null && (limit != null || cursor != null || createdSince != null || byTime)) {
+            throw new IllegalArgumentException("status cannot be combined with limit, cursor, createdSince, "
+                    + "startedFrom, startedTo or updatedSince");
+        }
+
+        if (createdSince != null && byTime) {
+            throw new IllegalArgumentException("createdSince cannot be combined with startedFrom, startedTo or updatedSince");
+        }
+    }
+
+    /**
+     * Checks the ETag of a response that is negotiated between JSON and the binary
+     * encoding, telling caches that it varies by Accept, on 304 as well. The binary
+     * encoding gets a tag of its own, so a tag of one encoding never validates the other.
+     */
+    private static boolean checkNotModified(final WebRequest webRequest, final String eTag) {
+
+        final HttpServletResponse response = ((NativeWebRequest) webRequest).getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        return webRequest.checkNotModified(acceptsBinary(webRequest) ? ETags.variant(eTag, BINARY_ETAG) : eTag);
+    }
+
+    /**
+     * Tells whether the response will be in the binary encoding, when the most specific
+     * and preferred accepted type that either encoding satisfies is the binary one. JSON
+     * is listed first, so wildcards select JSON.
+     */
+    private static boolean acceptsBinary(final WebRequest webRequest) {
+
+        final String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains(BinaryHttpMessageConverter.MEDIA_TYPE.getSubtype())) {
+            return false;
+        }
+
+        final List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+
+        for (final MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() > 0.0 && mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.getQualityValue() > 0.0 && mediaType.includes(BinaryHttpMessageConverter.MEDIA_TYPE)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes every session as one JSON document per line, serializing them one by one
+     * straight from the repository so memory stays constant regardless of store size.
+     */
+    private void writeAllChargingSessions(final OutputStream outputStream) throws IOException {
+
+        final ObjectWriter writer = objectMapper.writerFor(ChargingSessionResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             Stream<ChargingSessionResponse> sessions = chargingSessionService.streamAll()) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            final Iterator<ChargingSessionResponse> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+            }
+        }
+    }
 }
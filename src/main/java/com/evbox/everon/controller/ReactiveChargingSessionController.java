@@ -0,0 +1,176 @@
+package com.evbox.everon.controller;
+
+import com.evbox.everon.model.ETags;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.dto.ChargingSessionPage;
+import com.evbox.everon.model.dto.ChargingSessionRequest;
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.service.ChargingSessionService;
+import com.evbox.everon.service.ChargingSessionStatisticsService;
+import com.evbox.everon.service.SummaryPublisher;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static com.evbox.everon.controller.ChargingSessionController.NEXT_CURSOR_HEADER;
+import static org.springframework.http.ResponseEntity.ok;
+
+/**
+ * The charging session endpoints of ChargingSessionController for the reactive profile,
+ * served by WebFlux on Netty instead of Spring MVC on Tomcat.
+ *
+ * Service calls may block, on repository locks or on the write-ahead log with sync
+ * commit, so they run on the elastic scheduler once subscribed, never on the event loop.
+ */
+@RestController
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChargingSessionController {
+
+    private final ChargingSessionService chargingSessionService;
+    private final ChargingSessionStatisticsService chargingSessionStatisticsService;
+    private final SummaryPublisher summaryPublisher;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    @PostMapping("/chargingSessions")
+    public Mono<ChargingSessionResponse> createChargingSession(@RequestBody @Valid ChargingSessionRequest request) {
+
+        return Mono.defer(() -> Mono.fromFuture(chargingSessionService.createAsync(request.getStationId())))
+                .subscribeOn(Schedulers.elastic());
+    }
+
+    @PutMapping("/chargingSessions/{id}")
+    public Mono<ChargingSessionResponse> stopChargingSession(@PathVariable String id) {
+
+        return Mono.defer(() -> Mono.fromFuture(chargingSessionService.stopAsync(id)))
+                .subscribeOn(Schedulers.elastic());
+    }
+
+    /**
+     * Without paging parameters, every session is emitted from a lazy repository stream
+     * as the client demands it, so the list is never materialized. A request whose
+     * If-None-Match holds the ETag of the current repository version is answered with 304.
+     */
+    @GetMapping("/chargingSessions")
+    public Mono<ResponseEntity<Flux<ChargingSessionResponse>>> getAllChargingSessions(ServerWebExchange exchange,
+                                                                                @RequestParam(required = false) StatusEnum status,
+                                                                                @RequestParam(required = false) Integer limit,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Instant createdSince,
+                                                                                @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime startedFrom,
+                                                                                @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime startedTo,
+                                                                                @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime updatedSince) {
+
+        ChargingSessionController.checkListParameters(status, limit, cursor, createdSince, startedFrom, startedTo,
+                updatedSince);
+
+        if (exchange.checkNotModified(ETags.of(chargingSessionService.getVersion()))) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+
+        if (status != null) {
+            return blocking(() -> ok().body(Flux.fromIterable(chargingSessionService.getAllByStatus(status))));
+        }
+
+        if (startedFrom != null || startedTo != null || updatedSince != null) {
+            return blocking(() -> {
+                final ChargingSessionPage page = chargingSessionService.getPageByTime(startedFrom, startedTo, updatedSince,
+                        cursor, limit == null ? DEFAULT_PAGE_SIZE : limit);
+
+                final ResponseEntity.BodyBuilder response = ok();
+                if (page.getNextCursor() != null) {
+                    response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+
+                return response.body(Flux.fromIterable(page.getSessions()));
+            });
+        }
+
+        if (limit == null && cursor == null && createdSince == null) {
+            return Mono.just(ok().body(Flux.fromStream(chargingSessionService::streamAll)
+                    .subscribeOn(Schedulers.elastic())));
+        }
+
+        return blocking(() -> {
+            final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+            final ChargingSessionPage page = cursor == null && createdSince != null
+                    ? chargingSessionService.getPageCreatedSince(createdSince, pageSize)
+                    : chargingSessionService.getPage(cursor, pageSize);
+
+            final ResponseEntity.BodyBuilder response = ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+
+            return response.body(Flux.fromIterable(page.getSessions()));
+        });
+    }
+
+    /**
+     * The summary of the last minute is written from the JSON bytes of the published
+     * snapshot, without serializing it again.
+     */
+    @GetMapping("/chargingSessions/summary")
+    public Mono<ResponseEntity<?>> getSummary(ServerWebExchange exchange,
+                                              @RequestParam(required = false) String stationId,
+                                              @RequestParam(defaultValue = "PT1M") String window) {
+
+        final Duration duration = parseWindow(window);
+
+        if (stationId == null && SummaryPublisher.WINDOW.equals(duration)) {
+            final SummaryPublisher.Snapshot snapshot = summaryPublisher.getSnapshot();
+            if (exchange.checkNotModified(snapshot.getETag())) {
+                return Mono.empty();
+            }
+
+            return Mono.just(ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(snapshot.getJson()));
+        }
+
+        return Mono.fromSupplier(() -> stationId == null
+                ? chargingSessionStatisticsService.getSummary(duration)
+                : chargingSessionStatisticsService.getSummary(stationId, duration))
+                .flatMap(summary -> exchange.checkNotModified(SummaryPublisher.eTagOf(summary))
+                        ? Mono.<ResponseEntity<?>>empty()
+                        : Mono.just(ok().body(summary)));
+    }
+
+    /**
+     * Runs a blocking call on the elastic scheduler once subscribed.
+     */
+    private static <T> Mono<T> blocking(final Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.elastic());
+    }
+
+    private static Duration parseWindow(final String window) {
+        try {
+            return Duration.parse(window);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid window: " + window, e);
+        }
+    }
+}
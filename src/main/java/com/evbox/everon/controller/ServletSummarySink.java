@@ -0,0 +1,115 @@
+package com.evbox.everon.controller;
+
+import com.evbox.everon.service.SummaryStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the summaries of one subscriber as Server-Sent Events through the non-blocking
+ * output of Servlet 3.1, so a stalled connection never holds up the thread that writes.
+ * Every frame is written at once and only while the container reports the connection
+ * ready; the container calls back once it has drained.
+ */
+@Slf4j
+final class ServletSummarySink implements SummaryStreamService.SummarySink, WriteListener, AsyncListener {
+
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+
+    private volatile SummaryStreamService.Subscription subscription;
+    private volatile boolean nonBlocking;
+
+    private ServletSummarySink(final AsyncContext asyncContext, final ServletOutputStream out) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+    }
+
+    /**
+     * Commits the response headers, switches the request to asynchronous, non-blocking
+     * output and subscribes it to the summary stream.
+     */
+    static void start(final HttpServletRequest request, final HttpServletResponse response,
+                      final SummaryStreamService summaryStreamService) throws IOException {
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE + ";charset=UTF-8");
+
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(0L);
+        response.flushBuffer();
+
+        final ServletSummarySink sink = new ServletSummarySink(asyncContext, response.getOutputStream());
+        asyncContext.addListener(sink);
+        sink.subscription = summaryStreamService.subscribe(sink);
+        sink.out.setWriteListener(sink);
+        sink.nonBlocking = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return nonBlocking && out.isReady();
+    }
+
+    @Override
+    public void send(final byte[] json) throws IOException {
+
+        final byte[] frame = new byte[DATA.length + json.length + END.length];
+        System.arraycopy(DATA, 0, frame, 0, DATA.length);
+        System.arraycopy(json, 0, frame, DATA.length, json.length);
+        System.arraycopy(END, 0, frame, DATA.length + json.length, END.length);
+
+        out.write(frame);
+        if (out.isReady()) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        asyncContext.complete();
+    }
+
+    @Override
+    public void onWritePossible() {
+        subscription.ready();
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+        log.debug("Summary stream connection failed: {}", t.getMessage());
+        subscription.cancel();
+        asyncContext.complete();
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+        subscription.cancel();
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+        subscription.cancel();
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+        subscription.cancel();
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+        // not restarted
+    }
+}
@@ -0,0 +1,39 @@
+package com.evbox.everon.controller;
+
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import com.evbox.everon.service.ChargingSessionService;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StationController {
+
+    private final ChargingSessionService chargingSessionService;
+
+    @GetMapping("/stations/{stationId}/chargingSessions")
+    public ResponseEntity<List<ChargingSessionResponse>> getStationChargingSessions(@PathVariable String stationId) {
+
+        final List<ChargingSessionResponse> sessions = chargingSessionService.getAllByStation(stationId);
+
+        return ok().body(sessions);
+    }
+
+    @PutMapping("/stations/{stationId}/chargingSessions")
+    public CompletableFuture<ResponseEntity<List<ChargingSessionResponse>>> stopStationChargingSessions(@PathVariable String stationId) {
+
+        return chargingSessionService.stopAllByStationAsync(stationId)
+                .thenApply(sessions -> ok().body(sessions));
+    }
+}
@@ -0,0 +1,30 @@
+package com.evbox.everon.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Applies state changing commands of the service layer.
+ */
+public interface CommandExecutor {
+
+    /**
+     * Applies the command to the argument, completing the returned future with its
+     * result, or exceptionally with the exception it threw.
+     *
+     * @param command  Command, without side effects on the calling thread
+     * @param argument Argument of the command
+     * @param <A>      Type of the argument
+     * @param <R>      Type of the result
+     * @return Future result of the command
+     */
+    <A, R> CompletableFuture<R> execute(final Function<A, R> command, final A argument);
+
+    /**
+     * @return Number of commands accepted but not applied yet
+     */
+    default long getPendingCommands() {
+        return 0L;
+    }
+
+}
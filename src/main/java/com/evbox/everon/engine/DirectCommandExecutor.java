@@ -0,0 +1,28 @@
+package com.evbox.everon.engine;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Applies every command on the calling thread, returning an already completed future.
+ */
+@Component
+@ConditionalOnProperty(name = "everon.engine.type", havingValue = "direct", matchIfMissing = true)
+public class DirectCommandExecutor implements CommandExecutor {
+
+    @Override
+    public <A, R> CompletableFuture<R> execute(final Function<A, R> command, final A argument) {
+
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        try {
+            result.complete(command.apply(argument));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+}
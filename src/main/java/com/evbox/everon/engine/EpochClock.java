@@ -0,0 +1,74 @@
+package com.evbox.everon.engine;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class EpochClock {
+
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final Clock clock;
+
+    private volatile Offset offset;
+
+    /**
+     * Reads the current local date-time of the clock as EpochNanos, with millisecond
+     * precision, without allocating. The offset of the time zone of the clock is looked
+     * up once and reused until its next transition, e.g. to daylight saving time, or
+     * until the clock goes back.
+     *
+     * @param clock Clock, in the time zone of the local date-times
+     */
+    public EpochClock(final Clock clock) {
+        this.clock = clock;
+        this.offset = offsetAt(clock.millis());
+    }
+
+    /**
+     * Time complexity is O(1).
+     *
+     * @return Current local date-time as EpochNanos
+     */
+    public long nanos() {
+
+        final long millis = clock.millis();
+
+        Offset current = offset;
+        if (millis < current.validFrom || millis >= current.validUntil) {
+            current = offsetAt(millis);
+            offset = current;
+        }
+
+        return (millis + current.offsetMillis) * NANOS_PER_MILLI;
+    }
+
+    private Offset offsetAt(final long millis) {
+
+        final Instant instant = Instant.ofEpochMilli(millis);
+        final ZoneRules rules = clock.getZone().getRules();
+        final ZoneOffsetTransition next = rules.nextTransition(instant);
+
+        return new Offset(TimeUnit.SECONDS.toMillis(rules.getOffset(instant).getTotalSeconds()),
+                millis,
+                next == null ? Long.MAX_VALUE : next.getInstant().toEpochMilli());
+    }
+
+    private static final class Offset {
+
+        private final long offsetMillis;
+        private final long validFrom;
+        private final long validUntil;
+
+        private Offset(final long offsetMillis, final long validFrom, final long validUntil) {
+            this.offsetMillis = offsetMillis;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.evbox.everon.engine;
+
+import com.evbox.everon.model.Uuids;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Creates random version 4 session ids from a SecureRandom, which carry no creation time
+ * and cannot be guessed from other ids.
+ */
+@Component
+@ConditionalOnProperty(name = "everon.session-id.type", havingValue = "random", matchIfMissing = true)
+public class RandomSessionIdGenerator implements SessionIdGenerator {
+
+    @Override
+    public UUID next() {
+        return Uuids.random();
+    }
+
+    @Override
+    public boolean isTimeOrdered() {
+        return false;
+    }
+
+    @Override
+    public UUID createdBefore(final Instant since) {
+        throw new UnsupportedOperationException("Random session ids are not time ordered");
+    }
+}
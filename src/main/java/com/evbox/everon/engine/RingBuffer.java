@@ -0,0 +1,140 @@
+package com.evbox.everon.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer, single-consumer ring of pre-allocated entries, addressed by
+ * ever increasing sequence numbers.
+ *
+ * A producer claims a sequence, fills the entry of that sequence in place and publishes
+ * it. The consumer reads published entries in sequence order and releases them for
+ * reuse. Producers wait for the consumer when the ring is full, so entries are never
+ * allocated after construction.
+ *
+ * @param <E> Type of the entries
+ */
+class RingBuffer<E> {
+
+    private final Object[] entries;
+    private final int mask;
+
+    private final AtomicLong claimed;
+    private final AtomicLongArray published;
+
+    // written by the consumer only
+    private volatile long released;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity Number of entries, a power of two
+     * @param factory  Creates the entries
+     */
+    RingBuffer(final int capacity, final Supplier<E> factory) {
+
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.entries = new Object[capacity];
+        this.mask = capacity - 1;
+        this.claimed = new AtomicLong(-1L);
+        this.published = new AtomicLongArray(capacity);
+        this.released = -1L;
+
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+            published.set(i, i - (long) capacity);
+        }
+    }
+
+    /**
+     * Claims the next sequence, waiting while the ring is full.
+     * Time complexity is O(1) when the ring has free entries.
+     *
+     * @return Claimed sequence, or -1 if the ring was closed while waiting
+     */
+    long claim() {
+
+        final long sequence = claimed.incrementAndGet();
+
+        while (sequence - entries.length > released) {
+            if (closed) {
+                return -1L;
+            }
+            LockSupport.parkNanos(1L);
+        }
+
+        return sequence;
+    }
+
+    /**
+     * @return Last claimed sequence
+     */
+    long getClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * Releases the producers waiting for a free entry, once the consumer has stopped.
+     * Must only be called by the consumer.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * @param sequence Claimed or published sequence
+     * @return Entry of the sequence
+     */
+    @SuppressWarnings("unchecked")
+    E get(final long sequence) {
+        return (E) entries[(int) (sequence & mask)];
+    }
+
+    /**
+     * Makes the entry of a claimed sequence visible to the consumer.
+     *
+     * @param sequence Claimed sequence
+     */
+    void publish(final long sequence) {
+        // a full fence, so a consumer going to sleep either sees the entry or is seen asleep
+        published.set((int) (sequence & mask), sequence);
+    }
+
+    /**
+     * @param sequence Sequence
+     * @return Whether the entry of the sequence is published
+     */
+    boolean isPublished(final long sequence) {
+        return published.get((int) (sequence & mask)) == sequence;
+    }
+
+    /**
+     * Hands the entries up to and including the given sequence back to the producers.
+     * Must only be called by the consumer.
+     *
+     * @param sequence Last consumed sequence
+     */
+    void release(final long sequence) {
+        released = sequence;
+    }
+
+    /**
+     * @return Number of claimed entries the consumer has not released yet, including
+     * the ones producers wait for while the ring is full
+     */
+    long size() {
+        final long consumed = released;
+        return claimed.get() - consumed;
+    }
+
+    /**
+     * @return Number of entries
+     */
+    int capacity() {
+        return entries.length;
+    }
+}
@@ -0,0 +1,31 @@
+package com.evbox.everon.engine;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Creates the ids of new charging sessions.
+ */
+public interface SessionIdGenerator {
+
+    /**
+     * @return New unique session id
+     */
+    UUID next();
+
+    /**
+     * @return Whether ids compare in the order the sessions were created
+     */
+    boolean isTimeOrdered();
+
+    /**
+     * Returns an id that compares below the ids of all sessions created at or after the
+     * given time, so a page of ids after it holds the sessions created since then.
+     *
+     * @param since Creation time
+     * @return Exclusive lower bound of the ids created since the time
+     * @throws UnsupportedOperationException If ids are not time ordered
+     */
+    UUID createdBefore(final Instant since);
+
+}
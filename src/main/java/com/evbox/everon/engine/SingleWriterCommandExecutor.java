@@ -0,0 +1,196 @@
+package com.evbox.everon.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "everon.engine.type", havingValue = "single-writer")
+public class SingleWriterCommandExecutor implements CommandExecutor {
+
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final RingBuffer<Command> ring;
+    private final Thread writer;
+
+    private volatile boolean running;
+    private volatile boolean sleeping;
+    private volatile boolean stopped;
+
+    /**
+     * Commands are published to a pre-allocated RingBuffer by the calling threads and
+     * applied one at a time, in publishing order, by a single writer thread. Only the
+     * writer changes state through this executor, so callers never contend on the
+     * repository, the statistics or the logger; they only race for a ring sequence.
+     *
+     * The writer yields briefly when the ring is empty and then parks until a caller
+     * publishes. Callers wait while the ring is full. Once the writer stops, every
+     * command it did not apply completes with a RejectedExecutionException.
+     *
+     * @param ringSize Number of commands the ring holds, a power of two
+     */
+    public SingleWriterCommandExecutor(@Value("${everon.engine.ring-size:65536}") final int ringSize) {
+
+        this.ring = new RingBuffer<>(ringSize, Command::new);
+        this.running = true;
+        this.writer = new Thread(this::run, "session-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Publishes the command to the ring.
+     * Time complexity is O(1) while the ring has free entries.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A, R> CompletableFuture<R> execute(final Function<A, R> command, final A argument) {
+
+        final CompletableFuture<R> result = new CompletableFuture<>();
+
+        if (!running) {
+            result.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+            return result;
+        }
+
+        final long sequence = ring.claim();
+        if (sequence < 0L) {
+            result.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+            return result;
+        }
+
+        final Command entry = ring.get(sequence);
+        entry.command = (Function<Object, Object>) command;
+        entry.argument = argument;
+        entry.result = (CompletableFuture<Object>) result;
+        ring.publish(sequence);
+
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+
+        // the writer serves every sequence claimed before it stopped, later ones are not
+        // applied by anyone; completing twice keeps the first result
+        if (stopped) {
+            result.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+        }
+
+        return result;
+    }
+
+    /**
+     * Time complexity is O(1).
+     *
+     * @return Number of commands published or waiting for a free entry, not applied yet
+     */
+    @Override
+    public long getPendingCommands() {
+        return ring.size();
+    }
+
+    /**
+     * Stops the writer after it applied every published command. Commands still being
+     * published, or waiting for a free entry, are rejected.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    private void run() {
+
+        long next = 0L;
+        int idle = 0;
+
+        try {
+            while (running || ring.isPublished(next)) {
+
+                if (ring.isPublished(next)) {
+                    apply(ring.get(next));
+                    ring.release(next++);
+                    idle = 0;
+                } else if (++idle < YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    sleeping = true;
+                    if (!ring.isPublished(next) && running) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+            }
+
+            log.info("Session writer stopped after {} commands", next);
+        } finally {
+            // also when a command failed with an Error, which ends the writer
+            running = false;
+            reject(next);
+        }
+    }
+
+    /**
+     * Completes the commands from the given sequence on exceptionally: the ones of callers
+     * that passed the running check or waited for a free entry while the writer stopped.
+     */
+    private void reject(final long from) {
+
+        stopped = true;
+
+        final long last = ring.getClaimed();
+        for (long sequence = from; sequence <= last; sequence++) {
+            // claimed entries are published right away
+            while (!ring.isPublished(sequence)) {
+                Thread.yield();
+            }
+
+            final Command entry = ring.get(sequence);
+            final CompletableFuture<Object> result = entry.result;
+            entry.clear();
+            result.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+            ring.release(sequence);
+        }
+
+        ring.close();
+    }
+
+    private static void apply(final Command entry) {
+
+        final Object value;
+        try {
+            value = entry.command.apply(entry.argument);
+        } catch (Exception e) {
+            final CompletableFuture<Object> result = entry.result;
+            entry.clear();
+            result.completeExceptionally(e);
+            return;
+        }
+
+        final CompletableFuture<Object> result = entry.result;
+        entry.clear();
+        result.complete(value);
+    }
+
+    private static final class Command {
+        private Function<Object, Object> command;
+        private Object argument;
+        private CompletableFuture<Object> result;
+
+        private void clear() {
+            command = null;
+            argument = null;
+            result = null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.evbox.everon.engine;
+
+import com.evbox.everon.model.Uuids;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Creates session ids in the layout of version 7 UUIDs, starting with the creation time
+ * in milliseconds, without any state shared between threads. Stores ordered by id keep
+ * new sessions at their end and find the sessions created since a time with a range scan.
+ * Anyone holding an id learns when the session was created.
+ */
+@Component
+@ConditionalOnProperty(name = "everon.session-id.type", havingValue = "time-ordered")
+public class TimeOrderedSessionIdGenerator implements SessionIdGenerator {
+
+    private final Clock clock;
+
+    public TimeOrderedSessionIdGenerator(final Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID next() {
+        return Uuids.timeOrdered(clock.millis());
+    }
+
+    @Override
+    public boolean isTimeOrdered() {
+        return true;
+    }
+
+    @Override
+    public UUID createdBefore(final Instant since) {
+        return Uuids.timeOrderedBefore(since.toEpochMilli());
+    }
+}
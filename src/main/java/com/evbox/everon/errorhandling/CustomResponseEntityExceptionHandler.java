@@ -1,7 +1,9 @@
 package com.evbox.everon.errorhandling;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,10 +12,12 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
 
@@ -35,6 +39,24 @@ public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptio
         return createResponseEntity(response);
     }
 
+    /**
+     * Asynchronous endpoints fail with the exception of the service wrapped by the future.
+     */
+    @ExceptionHandler(CompletionException.class)
+    public final ResponseEntity<Object> handleCompletionException(CompletionException ex,
+                                                                  WebRequest request) {
+
+        if (ex.getCause() instanceof ResourceNotFoundException) {
+            return handleResourceNotFoundException((ResourceNotFoundException) ex.getCause(), request);
+        }
+
+        if (ex.getCause() instanceof IllegalArgumentException) {
+            return handleIllegalArgumentException((IllegalArgumentException) ex.getCause(), request);
+        }
+
+        return handleOthers(ex, request);
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
                                                                   HttpHeaders headers, HttpStatus status,
@@ -66,7 +88,13 @@ public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptio
         return createResponseEntity(response);
     }
 
+    /**
+     * Errors are always JSON, also for clients that only accept the binary encoding, so
+     * they keep their status instead of failing with 406.
+     */
     private ResponseEntity<Object> createResponseEntity(ApiExceptionResponse response) {
-        return new ResponseEntity<>(response, response.getStatus());
+        return ResponseEntity.status(response.getStatus())
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(response);
     }
 }
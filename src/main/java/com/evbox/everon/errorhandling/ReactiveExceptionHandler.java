@@ -0,0 +1,70 @@
+package com.evbox.everon.errorhandling;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maps exceptions of the reactive profile to the same responses as
+ * CustomResponseEntityExceptionHandler does for Spring MVC.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Object> handleResourceNotFoundException(ResourceNotFoundException ex) {
+
+        return createResponseEntity(ApiExceptionResponse.of(HttpStatus.NOT_FOUND, ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Object> handleIllegalArgumentException(IllegalArgumentException ex) {
+
+        return createResponseEntity(ApiExceptionResponse.of(HttpStatus.BAD_REQUEST, ex.getMessage()));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Object> handleWebExchangeBindException(WebExchangeBindException ex) {
+
+        List<String> fieldErrors = ex.getFieldErrors()
+                .stream()
+                .map(e -> e.getField() + ", " + e.getDefaultMessage())
+                .collect(Collectors.toList());
+
+        List<String> globalErrors = ex.getGlobalErrors()
+                .stream()
+                .map(e -> e.getObjectName() + ", " + e.getDefaultMessage())
+                .collect(Collectors.toList());
+
+        List<String> errors = Stream.of(fieldErrors, globalErrors)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        return createResponseEntity(ApiExceptionResponse.of(HttpStatus.BAD_REQUEST, errors));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Object> handleResponseStatusException(ResponseStatusException ex) {
+
+        return createResponseEntity(ApiExceptionResponse.of(ex.getStatus(), ex.getReason()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleOthers(Exception ex) {
+
+        return createResponseEntity(ApiExceptionResponse.of(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage()));
+    }
+
+    private ResponseEntity<Object> createResponseEntity(ApiExceptionResponse response) {
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+}
@@ -12,11 +12,37 @@ public class ChargingSession {
 
     private String stationId;
 
-    private LocalDateTime startedAt;
+    // local date-times as EpochNanos, so setting and storing them allocates nothing
 
-    private LocalDateTime stoppedAt;
+    private long startedAtNanos = EpochNanos.NONE;
 
-    private LocalDateTime updatedAt;
+    private long stoppedAtNanos = EpochNanos.NONE;
+
+    private long updatedAtNanos = EpochNanos.NONE;
 
     private StatusEnum status;
+
+    public LocalDateTime getStartedAt() {
+        return EpochNanos.toLocalDateTime(startedAtNanos);
+    }
+
+    public void setStartedAt(final LocalDateTime startedAt) {
+        this.startedAtNanos = EpochNanos.of(startedAt);
+    }
+
+    public LocalDateTime getStoppedAt() {
+        return EpochNanos.toLocalDateTime(stoppedAtNanos);
+    }
+
+    public void setStoppedAt(final LocalDateTime stoppedAt) {
+        this.stoppedAtNanos = EpochNanos.of(stoppedAt);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return EpochNanos.toLocalDateTime(updatedAtNanos);
+    }
+
+    public void setUpdatedAt(final LocalDateTime updatedAt) {
+        this.updatedAtNanos = EpochNanos.of(updatedAt);
+    }
 }
@@ -0,0 +1,45 @@
+package com.evbox.everon.model;
+
+/**
+ * Entity tags built from modification versions.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Formats the versions as a strong entity tag, e.g. {@code "2a-64-7"}. Equal versions
+     * give equal tags, so a tag only changes when one of the versions does.
+     * Time complexity is O(v) for v versions.
+     *
+     * @param versions Versions the tagged content depends on
+     * @return Quoted entity tag
+     */
+    public static String of(final long... versions) {
+
+        final StringBuilder eTag = new StringBuilder(2 + 17 * versions.length).append('"');
+        for (int i = 0; i < versions.length; i++) {
+            if (i > 0) {
+                eTag.append('-');
+            }
+            eTag.append(Long.toHexString(versions[i]));
+        }
+
+        return eTag.append('"').toString();
+    }
+
+    /**
+     * Derives the tag of another representation of the same content, e.g. {@code "2a-bin"}
+     * for another encoding, as a strong tag must differ between representations.
+     * Time complexity is O(n) for the length n of the tag.
+     *
+     * @param eTag    Quoted entity tag
+     * @param variant Name of the representation
+     * @return Quoted entity tag of the representation
+     */
+    public static String variant(final String eTag, final String variant) {
+
+        return eTag.substring(0, eTag.length() - 1) + '-' + variant + '"';
+    }
+}
@@ -0,0 +1,41 @@
+package com.evbox.everon.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encoding of local date-times as primitive nanoseconds since the epoch, reading the
+ * local date-time as if it were UTC. Encoding therefore needs no time zone, and the
+ * order of encoded values is the order of the date-times.
+ */
+public final class EpochNanos {
+
+    /**
+     * Encoding of a missing date-time.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private EpochNanos() {
+    }
+
+    /**
+     * @param time Date-time, may be null
+     * @return Epoch nanos, or NONE for null
+     */
+    public static long of(final LocalDateTime time) {
+        return time == null ? NONE : time.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + time.getNano();
+    }
+
+    /**
+     * @param epochNanos Epoch nanos, or NONE
+     * @return Date-time, or null for NONE
+     */
+    public static LocalDateTime toLocalDateTime(final long epochNanos) {
+        return epochNanos == NONE
+                ? null
+                : LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
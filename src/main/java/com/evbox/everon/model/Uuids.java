@@ -0,0 +1,104 @@
+package com.evbox.everon.model;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Session id helpers that allocate nothing but the UUID itself.
+ */
+public final class Uuids {
+
+    private static final int LENGTH = 36;
+
+    // one instance per thread, so callers do not synchronize on a shared SecureRandom
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private Uuids() {
+    }
+
+    /**
+     * Creates a random version 4 UUID from the SecureRandom of the calling thread, as
+     * unguessable as UUID.randomUUID.
+     * Time complexity is O(1).
+     *
+     * @return Random UUID
+     */
+    public static UUID random() {
+
+        final SecureRandom random = RANDOM.get();
+
+        final long msb = random.nextLong() & ~0xF000L | 0x4000L;
+        final long lsb = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Creates a time-ordered UUID in the layout of a version 7 UUID: 48 bits of Unix epoch
+     * milliseconds followed by 74 random bits from the SecureRandom of the calling thread.
+     * Ids created in different milliseconds compare, by UUID.compareTo, in the order they
+     * were created; ids of the same millisecond in random order. The random bits are
+     * unguessable, but the id reveals its creation time.
+     * Time complexity is O(1).
+     *
+     * @param epochMillis Unix epoch milliseconds of the creation time
+     * @return Time-ordered UUID
+     */
+    public static UUID timeOrdered(final long epochMillis) {
+
+        final SecureRandom random = RANDOM.get();
+
+        final long msb = epochMillis << 16 | 0x7000L | random.nextInt(1 << 12);
+        final long lsb = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns an id that compares below every time-ordered UUID created at or after the
+     * given time, and above every one created before it, to scan ids from that time on.
+     * Time complexity is O(1).
+     *
+     * @param epochMillis Unix epoch milliseconds
+     * @return Exclusive lower bound of the time-ordered UUIDs of the time
+     */
+    public static UUID timeOrderedBefore(final long epochMillis) {
+        return new UUID(epochMillis << 16 | 0x6FFFL, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses the canonical form of a UUID, e.g. {@code 123e4567-e89b-12d3-a456-426655440000},
+     * without splitting it into substrings like UUID.fromString does. Other forms are
+     * passed to UUID.fromString.
+     * Time complexity is O(1).
+     *
+     * @param value UUID string
+     * @return UUID
+     * @throws IllegalArgumentException If the value is not a UUID
+     */
+    public static UUID parse(final String value) {
+
+        if (value.length() != LENGTH || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return UUID.fromString(value);
+        }
+
+        final long msb = hex(value, 0, 8) << 32 | hex(value, 9, 13) << 16 | hex(value, 14, 18);
+        final long lsb = hex(value, 19, 23) << 48 | hex(value, 24, 36);
+
+        return new UUID(msb, lsb);
+    }
+
+    private static long hex(final String value, final int from, final int to) {
+
+        long result = 0L;
+        for (int i = from; i < to; i++) {
+            final int digit = Character.digit(value.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid UUID string: " + value);
+            }
+            result = result << 4 | digit;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,296 @@
+package com.evbox.everon.model.dto;
+
+import com.evbox.everon.model.EpochNanos;
+import com.evbox.everon.model.StatusEnum;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the request and response payloads, served as
+ * {@value #MEDIA_TYPE_VALUE} next to JSON.
+ *
+ * Field names are implied by the order of the fields. Integers are unsigned LEB128
+ * varints, ids are 16 bytes, timestamps are ZigZag varints of epoch millis, the precision
+ * of the clock of the sessions, in 6 bytes for current dates, and strings are UTF-8
+ * prefixed with their length. Nullable values are shifted by one, so that 0 encodes null:
+ * <pre>
+ * string   = varint (n + 1) | n bytes UTF-8, or varint 0 for null
+ * time     = varint (zigzag(epoch millis) + 1), or varint 0 for null
+ * status   = byte (ordinal + 1), or byte 0 for null
+ * session  = 16 bytes id | string stationId | time updatedAt | status
+ * summary  = varint startedCount | varint stoppedCount | varint (activeCount + 1), or varint 0 for null
+ * result   = varint status | byte 0 or 1 followed by a session | string error
+ * request  = string stationId
+ * list     = varint n | n elements
+ * map      = varint n | n times string key and element
+ * </pre>
+ */
+public final class BinaryCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-everon-binary";
+
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    private static final int MAX_PREALLOCATED = 1024;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    private BinaryCodec() {
+    }
+
+    public static void writeSession(final OutputStream out, final ChargingSessionResponse session) throws IOException {
+        writeUuid(out, session.getId());
+        writeString(out, session.getStationId());
+        writeTime(out, session.getUpdatedAt());
+        out.write(session.getStatus() == null ? 0 : session.getStatus().ordinal() + 1);
+    }
+
+    public static ChargingSessionResponse readSession(final InputStream in) throws IOException {
+        final UUID id = readUuid(in);
+        final String stationId = readString(in);
+        final LocalDateTime updatedAt = readTime(in);
+        final int status = readByte(in);
+        if (status > STATUSES.length) {
+            throw new IOException("Invalid status " + status);
+        }
+        return new ChargingSessionResponse(id, stationId, updatedAt, status == 0 ? null : STATUSES[status - 1]);
+    }
+
+    public static void writeSessions(final OutputStream out, final List<ChargingSessionResponse> sessions)
+            throws IOException {
+        writeVarint(out, sessions.size());
+        for (final ChargingSessionResponse session : sessions) {
+            writeSession(out, session);
+        }
+    }
+
+    public static List<ChargingSessionResponse> readSessions(final InputStream in) throws IOException {
+        final int size = readSize(in);
+        final List<ChargingSessionResponse> sessions = new ArrayList<>(Math.min(size, MAX_PREALLOCATED));
+        for (int i = 0; i < size; i++) {
+            sessions.add(readSession(in));
+        }
+        return sessions;
+    }
+
+    public static void writeSummary(final OutputStream out, final ChargingSessionsSummaryResponse summary)
+            throws IOException {
+        writeVarint(out, summary.getStartedCount());
+        writeVarint(out, summary.getStoppedCount());
+        writeVarint(out, summary.getActiveCount() == null ? 0L : summary.getActiveCount() + 1);
+    }
+
+    public static ChargingSessionsSummaryResponse readSummary(final InputStream in) throws IOException {
+        final int startedCount = (int) readVarint(in);
+        final int stoppedCount = (int) readVarint(in);
+        final long activeCount = readVarint(in);
+        return new ChargingSessionsSummaryResponse(startedCount, stoppedCount, activeCount == 0L ? null : activeCount - 1);
+    }
+
+    public static void writeSummaries(final OutputStream out, final Map<String, ChargingSessionsSummaryResponse> summaries)
+            throws IOException {
+        writeVarint(out, summaries.size());
+        for (final Map.Entry<String, ChargingSessionsSummaryResponse> summary : summaries.entrySet()) {
+            writeString(out, summary.getKey());
+            writeSummary(out, summary.getValue());
+        }
+    }
+
+    public static Map<String, ChargingSessionsSummaryResponse> readSummaries(final InputStream in) throws IOException {
+        final int size = readSize(in);
+        final Map<String, ChargingSessionsSummaryResponse> summaries = new HashMap<>(Math.min(size, MAX_PREALLOCATED) * 2);
+        for (int i = 0; i < size; i++) {
+            summaries.put(readString(in), readSummary(in));
+        }
+        return summaries;
+    }
+
+    public static void writeBatchResults(final OutputStream out, final List<ChargingSessionBatchResult> results)
+            throws IOException {
+        writeVarint(out, results.size());
+        for (final ChargingSessionBatchResult result : results) {
+            writeVarint(out, result.getStatus());
+            out.write(result.getSession() == null ? 0 : 1);
+            if (result.getSession() != null) {
+                writeSession(out, result.getSession());
+            }
+            writeString(out, result.getError());
+        }
+    }
+
+    public static List<ChargingSessionBatchResult> readBatchResults(final InputStream in) throws IOException {
+        final int size = readSize(in);
+        final List<ChargingSessionBatchResult> results = new ArrayList<>(Math.min(size, MAX_PREALLOCATED));
+        for (int i = 0; i < size; i++) {
+            final int status = (int) readVarint(in);
+            final ChargingSessionResponse session = readByte(in) == 0 ? null : readSession(in);
+            results.add(new ChargingSessionBatchResult(status, session, readString(in)));
+        }
+        return results;
+    }
+
+    public static void writeRequest(final OutputStream out, final ChargingSessionRequest request) throws IOException {
+        writeString(out, request.getStationId());
+    }
+
+    public static ChargingSessionRequest readRequest(final InputStream in) throws IOException {
+        return new ChargingSessionRequest(readString(in));
+    }
+
+    public static void writeRequests(final OutputStream out, final List<ChargingSessionRequest> requests)
+            throws IOException {
+        writeVarint(out, requests.size());
+        for (final ChargingSessionRequest request : requests) {
+            writeString(out, request == null ? null : request.getStationId());
+        }
+    }
+
+    public static List<ChargingSessionRequest> readRequests(final InputStream in) throws IOException {
+        final int size = readSize(in);
+        final List<ChargingSessionRequest> requests = new ArrayList<>(Math.min(size, MAX_PREALLOCATED));
+        for (int i = 0; i < size; i++) {
+            requests.add(readRequest(in));
+        }
+        return requests;
+    }
+
+    /**
+     * Writes strings, e.g. the ids of a batch stop, which are kept as strings so that
+     * invalid ids fail per item like in JSON.
+     */
+    public static void writeStrings(final OutputStream out, final List<String> values) throws IOException {
+        writeVarint(out, values.size());
+        for (final String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    public static List<String> readStrings(final InputStream in) throws IOException {
+        final int size = readSize(in);
+        final List<String> values = new ArrayList<>(Math.min(size, MAX_PREALLOCATED));
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    static void writeVarint(final OutputStream out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0L) {
+            out.write((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    static long readVarint(final InputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeUuid(final OutputStream out, final UUID id) throws IOException {
+        writeLong(out, id.getMostSignificantBits());
+        writeLong(out, id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(final InputStream in) throws IOException {
+        return new UUID(readLong(in), readLong(in));
+    }
+
+    private static void writeLong(final OutputStream out, final long value) throws IOException {
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static long readLong(final InputStream in) throws IOException {
+        long value = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = value << Byte.SIZE | readByte(in);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the time truncated to millis, read as UTC like EpochNanos.
+     */
+    private static void writeTime(final OutputStream out, final LocalDateTime time) throws IOException {
+        if (time == null) {
+            writeVarint(out, 0L);
+        } else {
+            final long millis = Math.floorDiv(EpochNanos.of(time), NANOS_PER_MILLI);
+            writeVarint(out, (millis << 1 ^ millis >> 63) + 1);
+        }
+    }
+
+    private static LocalDateTime readTime(final InputStream in) throws IOException {
+        final long value = readVarint(in);
+        if (value == 0L) {
+            return null;
+        }
+        final long zigzag = value - 1;
+        return EpochNanos.toLocalDateTime((zigzag >>> 1 ^ -(zigzag & 1)) * NANOS_PER_MILLI);
+    }
+
+    private static void writeString(final OutputStream out, final String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0L);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(final InputStream in) throws IOException {
+        final long length = readVarint(in);
+        if (length == 0L) {
+            return null;
+        }
+        if (length - 1 > MAX_STRING_BYTES) {
+            throw new IOException("String is too long: " + (length - 1) + " bytes");
+        }
+        final byte[] bytes = new byte[(int) length - 1];
+        int read = 0;
+        while (read < bytes.length) {
+            final int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readSize(final InputStream in) throws IOException {
+        final long size = readVarint(in);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Too many elements: " + size);
+        }
+        return (int) size;
+    }
+
+    private static int readByte(final InputStream in) throws IOException {
+        final int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+}
@@ -0,0 +1,24 @@
+package com.evbox.everon.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+import org.springframework.http.HttpStatus;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChargingSessionBatchResult {
+
+    private int status;
+
+    private ChargingSessionResponse session;
+
+    private String error;
+
+    public static ChargingSessionBatchResult of(final ChargingSessionResponse session) {
+        return new ChargingSessionBatchResult(HttpStatus.OK.value(), session, null);
+    }
+
+    public static ChargingSessionBatchResult error(final HttpStatus status, final String error) {
+        return new ChargingSessionBatchResult(status.value(), null, error);
+    }
+}
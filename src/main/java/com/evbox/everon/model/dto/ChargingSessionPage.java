@@ -0,0 +1,16 @@
+package com.evbox.everon.model.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ChargingSessionPage {
+
+    private List<ChargingSessionResponse> sessions;
+
+    /**
+     * Cursor of the next page, or null for the last page.
+     */
+    private String nextCursor;
+}
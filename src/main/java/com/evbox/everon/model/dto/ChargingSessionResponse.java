@@ -2,6 +2,7 @@ package com.evbox.everon.model.dto;
 
 import com.evbox.everon.model.ChargingSession;
 import com.evbox.everon.model.StatusEnum;
+import io.swagger.annotations.ApiModelProperty;
 import lombok.Value;
 
 import java.time.LocalDateTime;
@@ -14,6 +15,7 @@ public class ChargingSessionResponse {
 
     private String stationId;
 
+    @ApiModelProperty("Local date-time of the last update, with millisecond precision")
     private LocalDateTime updatedAt;
 
     private StatusEnum status;
@@ -1,5 +1,6 @@
 package com.evbox.everon.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Value;
 
 @Value
@@ -11,10 +12,18 @@ public class ChargingSessionsSummaryResponse {
 
     private int stoppedCount;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long activeCount;
+
     public ChargingSessionsSummaryResponse(int startedCount, int stoppedCount) {
+        this(startedCount, stoppedCount, null);
+    }
+
+    public ChargingSessionsSummaryResponse(int startedCount, int stoppedCount, Long activeCount) {
         this.startedCount = startedCount;
         this.stoppedCount = stoppedCount;
         this.totalCount = startedCount + stoppedCount;
+        this.activeCount = activeCount;
     }
 
 }
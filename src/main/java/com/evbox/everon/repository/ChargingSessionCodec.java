@@ -0,0 +1,117 @@
+package com.evbox.everon.repository;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
+import com.evbox.everon.model.StatusEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of a charging session, shared by the on-disk formats.
+ *
+ * Layout, in the byte order of the buffer:
+ * <pre>
+ * long idMsb | long idLsb | long startedAt | long stoppedAt | long updatedAt | byte status | short n | n bytes stationId
+ * </pre>
+ * Timestamps are EpochNanos, missing timestamps are stored as Long.MIN_VALUE and a
+ * missing status as -1.
+ */
+public final class ChargingSessionCodec {
+
+    /**
+     * Upper bound of the size of an encoded session.
+     */
+    public static final int MAX_ENCODED_SIZE = Long.BYTES * 5 + 1 + Short.BYTES + 0xFFFF;
+
+    private static final byte NO_STATUS = -1;
+    private static final int STATION_ID_OFFSET = Long.BYTES * 5 + 1;
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    private ChargingSessionCodec() {
+    }
+
+    /**
+     * Writes the session at the position of the buffer.
+     *
+     * @param buffer          Buffer with at least MAX_ENCODED_SIZE bytes remaining
+     * @param chargingSession Charging session
+     */
+    public static void write(final ByteBuffer buffer, final ChargingSession chargingSession) {
+
+        final byte[] station = chargingSession.getStationId() == null
+                ? new byte[0]
+                : chargingSession.getStationId().getBytes(StandardCharsets.UTF_8);
+
+        if (station.length > 0xFFFF) {
+            throw new IllegalArgumentException("Station id is too long: " + station.length + " bytes");
+        }
+
+        buffer.putLong(chargingSession.getId().getMostSignificantBits());
+        buffer.putLong(chargingSession.getId().getLeastSignificantBits());
+        buffer.putLong(chargingSession.getStartedAtNanos());
+        buffer.putLong(chargingSession.getStoppedAtNanos());
+        buffer.putLong(chargingSession.getUpdatedAtNanos());
+        buffer.put(chargingSession.getStatus() == null ? NO_STATUS : (byte) chargingSession.getStatus().ordinal());
+        buffer.putShort((short) station.length);
+        buffer.put(station);
+    }
+
+    /**
+     * Reads the session at the position of the buffer.
+     *
+     * @param buffer Buffer positioned at an encoded session
+     * @return Charging session
+     */
+    public static ChargingSession read(final ByteBuffer buffer) {
+
+        final ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(new UUID(buffer.getLong(), buffer.getLong()));
+        chargingSession.setStartedAtNanos(buffer.getLong());
+        chargingSession.setStoppedAtNanos(buffer.getLong());
+        chargingSession.setUpdatedAtNanos(buffer.getLong());
+
+        final byte status = buffer.get();
+        if (status != NO_STATUS) {
+            chargingSession.setStatus(STATUSES[status]);
+        }
+
+        final int length = buffer.getShort() & 0xFFFF;
+        if (length > 0) {
+            final byte[] station = new byte[length];
+            buffer.get(station);
+            chargingSession.setStationId(new String(station, StandardCharsets.UTF_8));
+        }
+
+        return chargingSession;
+    }
+
+    /**
+     * Moves the position of the buffer past the session at its position.
+     *
+     * @param buffer Buffer positioned at an encoded session
+     */
+    public static void skip(final ByteBuffer buffer) {
+        final int position = buffer.position();
+        buffer.position(position + STATION_ID_OFFSET + Short.BYTES
+                + (buffer.getShort(position + STATION_ID_OFFSET) & 0xFFFF));
+    }
+
+    /**
+     * @param time Timestamp, may be null
+     * @return UTC epoch nanos, or Long.MIN_VALUE for null
+     */
+    public static long toEpochNanos(final LocalDateTime time) {
+        return EpochNanos.of(time);
+    }
+
+    /**
+     * @param epochNanos UTC epoch nanos, or Long.MIN_VALUE
+     * @return Timestamp, or null for Long.MIN_VALUE
+     */
+    public static LocalDateTime fromEpochNanos(final long epochNanos) {
+        return EpochNanos.toLocalDateTime(epochNanos);
+    }
+}
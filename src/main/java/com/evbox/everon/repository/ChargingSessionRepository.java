@@ -1,17 +1,129 @@
 package com.evbox.everon.repository;
 
 import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface ChargingSessionRepository {
 
     ChargingSession save(final ChargingSession chargingSession);
 
+    /**
+     * Saves the given charging sessions in order. Implementations may amortize locking
+     * and durability over the whole batch.
+     *
+     * @param chargingSessions Charging sessions
+     * @return Persisted charging sessions
+     */
+    default List<ChargingSession> saveAll(final List<ChargingSession> chargingSessions) {
+
+        final List<ChargingSession> saved = new ArrayList<>(chargingSessions.size());
+        for (final ChargingSession chargingSession : chargingSessions) {
+            saved.add(save(chargingSession));
+        }
+
+        return saved;
+    }
+
     Optional<ChargingSession> findById(final UUID id);
 
     List<ChargingSession> findAll();
 
+    /**
+     * Returns a page of charging sessions ordered by id.
+     *
+     * @param after Exclusive id to continue after, or null for the first page
+     * @param limit Maximum number of sessions
+     * @return Charging sessions with an id greater than after
+     */
+    List<ChargingSession> findAll(final UUID after, final int limit);
+
+    /**
+     * Returns a page of the charging sessions started before the given time, ordered by
+     * their start time and id. Implementations without a time index scan all sessions.
+     *
+     * @param after    Exclusive key to continue after, e.g. TimeKey.before(from) for the first page
+     * @param toNanos  Exclusive end of the start times as EpochNanos
+     * @param limit    Maximum number of sessions
+     * @return Charging sessions with a start time key greater than after
+     */
+    default List<ChargingSession> findStartedBetween(final TimeKey after, final long toNanos, final int limit) {
+
+        try (Stream<ChargingSession> chargingSessions = streamAll()) {
+            return chargingSessions
+                    .filter(s -> TimeKey.startedAt(s).compareTo(after) > 0 && s.getStartedAtNanos() < toNanos)
+                    .sorted(TimeKey.BY_STARTED_AT)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by the time of their last update and
+     * their id. Implementations without a time index scan all sessions.
+     *
+     * @param after Exclusive key to continue after, e.g. TimeKey.before(since) for the first page
+     * @param limit Maximum number of sessions
+     * @return Charging sessions with an update time key greater than after
+     */
+    default List<ChargingSession> findUpdatedAfter(final TimeKey after, final int limit) {
+
+        try (Stream<ChargingSession> chargingSessions = streamAll()) {
+            return chargingSessions
+                    .filter(s -> TimeKey.updatedAt(s).compareTo(after) > 0)
+                    .sorted(TimeKey.BY_UPDATED_AT)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns a lazy, weakly consistent stream over all charging sessions,
+     * without copying them.
+     *
+     * @return Stream of charging sessions
+     */
+    Stream<ChargingSession> streamAll();
+
+    /**
+     * Returns all charging sessions of a station.
+     *
+     * @param stationId Station Id
+     * @return Charging sessions of the station
+     */
+    List<ChargingSession> findByStationId(final String stationId);
+
+    /**
+     * Returns all charging sessions with the given status.
+     *
+     * @param status Session status
+     * @return Charging sessions with the status
+     */
+    List<ChargingSession> findAllByStatus(final StatusEnum status);
+
+    /**
+     * @return Number of sessions in progress
+     */
+    long countActive();
+
+    /**
+     * @return Number of charging sessions
+     */
+    long count();
+
+    /**
+     * Returns a version that increases after every change of the stored sessions, so
+     * readers that saw the same version saw the same sessions. It is read before the
+     * sessions, so a concurrent change at worst yields a stale version with newer sessions.
+     *
+     * @return Modification version
+     */
+    long getVersion();
+
 }
@@ -1,31 +1,67 @@
 package com.evbox.everon.repository;
 
 import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
+import com.evbox.everon.model.StatusEnum;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
+@ConditionalOnProperty(name = "everon.repository.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryChargingSessionRepository implements ChargingSessionRepository {
 
     private final Map<UUID, ChargingSession> chargingSessions;
+    private final NavigableSet<UUID> orderedIds;
+    private final Map<String, Set<UUID>> stationIndex;
+    private final Set<UUID> activeIds;
+    private final NavigableSet<TimeKey> startedIndex;
+    private final NavigableSet<TimeKey> updatedIndex;
+    private final Map<UUID, TimeKey> updatedKeys;
+    private final AtomicLong version;
 
     /**
      * Charging sessions are stored in ConcurrentHashMap for thread-safe access and
      * constant time operations.
+     * Their ids are additionally kept in a ConcurrentSkipListSet to serve pages in
+     * a stable order, in concurrent sets per station id for station queries and in
+     * a concurrent set of sessions in progress.
+     * Their start and update times are kept in ConcurrentSkipListSets to serve time
+     * ranges, with the indexed update time of every session to move it on updates.
+     * Every save and removal increments the modification version once it is indexed.
+     * The active set is updated within the atomic compute of the map entry, so it always
+     * follows the status of the latest save of a session, however saves of the same id
+     * from different threads interleave.
      */
     public InMemoryChargingSessionRepository() {
         chargingSessions = new ConcurrentHashMap<>();
+        orderedIds = new ConcurrentSkipListSet<>();
+        stationIndex = new ConcurrentHashMap<>();
+        activeIds = ConcurrentHashMap.newKeySet();
+        startedIndex = new ConcurrentSkipListSet<>();
+        updatedIndex = new ConcurrentSkipListSet<>();
+        updatedKeys = new ConcurrentHashMap<>();
+        version = new AtomicLong();
     }
 
     /**
      * Puts charging session to map.
+     * Time complexity is O(log n).
      *
      * @param chargingSession Charging session
      * @return Persisted charging session
@@ -35,7 +71,32 @@ public class InMemoryChargingSessionRepository implements ChargingSessionReposit
 
         Objects.requireNonNull(chargingSession);
 
-        chargingSessions.put(chargingSession.getId(), chargingSession);
+        final ChargingSession[] replaced = new ChargingSession[1];
+        chargingSessions.compute(chargingSession.getId(), (id, current) -> {
+            replaced[0] = current;
+            if (chargingSession.getStatus() == StatusEnum.IN_PROGRESS) {
+                activeIds.add(id);
+            } else {
+                activeIds.remove(id);
+            }
+            return chargingSession;
+        });
+        final ChargingSession previous = replaced[0];
+
+        if (previous == null) {
+            orderedIds.add(chargingSession.getId());
+        } else if (!Objects.equals(previous.getStationId(), chargingSession.getStationId())) {
+            unindexStation(previous);
+        }
+
+        if (previous != null && previous.getStartedAtNanos() != chargingSession.getStartedAtNanos()) {
+            startedIndex.remove(TimeKey.startedAt(previous));
+        }
+
+        indexStation(chargingSession);
+        indexTimes(chargingSession);
+
+        version.incrementAndGet();
 
         return chargingSession;
     }
@@ -64,4 +125,290 @@ public class InMemoryChargingSessionRepository implements ChargingSessionReposit
 
         return new ArrayList<>(chargingSessions.values());
     }
+
+    /**
+     * Returns a page of charging sessions ordered by id.
+     * Time complexity is O(log n + limit).
+     *
+     * @param after Exclusive id to continue after, or null for the first page
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll(final UUID after, final int limit) {
+
+        final NavigableSet<UUID> ids = after == null ? orderedIds : orderedIds.tailSet(after, false);
+        final List<ChargingSession> page = new ArrayList<>(Math.min(limit, chargingSessions.size()));
+
+        final Iterator<UUID> iterator = ids.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            final ChargingSession chargingSession = chargingSessions.get(iterator.next());
+            if (chargingSession != null) {
+                page.add(chargingSession);
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Returns a page of the charging sessions started before the given time from the
+     * start time index.
+     * Time complexity is O(log n + limit).
+     *
+     * @param after   Exclusive key to continue after
+     * @param toNanos Exclusive end of the start times as EpochNanos
+     * @param limit   Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findStartedBetween(final TimeKey after, final long toNanos, final int limit) {
+
+        if (after.compareTo(TimeKey.before(toNanos)) >= 0) {
+            return new ArrayList<>();
+        }
+
+        return findByTime(startedIndex.subSet(after, false, TimeKey.before(toNanos), false),
+                ChargingSession::getStartedAtNanos, limit);
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by their update time from the update
+     * time index.
+     * Time complexity is O(log n + limit).
+     *
+     * @param after Exclusive key to continue after
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findUpdatedAfter(final TimeKey after, final int limit) {
+
+        return findByTime(updatedIndex.tailSet(after, false), ChargingSession::getUpdatedAtNanos, limit);
+    }
+
+    private List<ChargingSession> findByTime(final NavigableSet<TimeKey> keys, final ToLongFunction<ChargingSession> time,
+                                             final int limit) {
+
+        final List<ChargingSession> page = new ArrayList<>(Math.min(limit, chargingSessions.size()));
+
+        final Iterator<TimeKey> iterator = keys.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            final TimeKey key = iterator.next();
+            final ChargingSession chargingSession = chargingSessions.get(key.getId());
+            // skips keys of a time the session was changed from in place, or concurrently
+            if (chargingSession != null && time.applyAsLong(chargingSession) == key.getEpochNanos()) {
+                page.add(chargingSession);
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Returns a lazy stream over the charging sessions map.
+     *
+     * @return Stream of charging sessions
+     */
+    @Override
+    public Stream<ChargingSession> streamAll() {
+
+        return chargingSessions.values().stream();
+    }
+
+    /**
+     * Returns the charging sessions of a station from the station index.
+     * Time complexity is O(k), where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findByStationId(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        final Set<UUID> ids = stationIndex.get(stationId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+
+        final List<ChargingSession> stationSessions = new ArrayList<>(ids.size());
+        for (final UUID id : ids) {
+            final ChargingSession chargingSession = chargingSessions.get(id);
+            if (chargingSession != null) {
+                stationSessions.add(chargingSession);
+            }
+        }
+
+        return stationSessions;
+    }
+
+    /**
+     * Returns the charging sessions with the given status. Sessions in progress are
+     * served from the active set in O(a), where a is the number of active sessions;
+     * finished sessions need an O(n) scan.
+     *
+     * @param status Session status
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAllByStatus(final StatusEnum status) {
+
+        Objects.requireNonNull(status);
+
+        if (status != StatusEnum.IN_PROGRESS) {
+            return chargingSessions.values()
+                    .stream()
+                    .filter(s -> s.getStatus() == status)
+                    .collect(Collectors.toList());
+        }
+
+        final List<ChargingSession> activeSessions = new ArrayList<>(activeIds.size());
+        for (final UUID id : activeIds) {
+            final ChargingSession chargingSession = chargingSessions.get(id);
+            if (chargingSession != null && chargingSession.getStatus() == StatusEnum.IN_PROGRESS) {
+                activeSessions.add(chargingSession);
+            }
+        }
+
+        return activeSessions;
+    }
+
+    /**
+     * Returns the size of the active set.
+     * Time complexity is O(1).
+     *
+     * @return Number of sessions in progress
+     */
+    @Override
+    public long countActive() {
+
+        return activeIds.size();
+    }
+
+    /**
+     * Removes the given charging session, unless it was replaced by another instance
+     * with the same id in the meantime.
+     * Time complexity is O(log n).
+     *
+     * @param chargingSession Charging session
+     * @return Whether the session was removed
+     */
+    public boolean remove(final ChargingSession chargingSession) {
+
+        Objects.requireNonNull(chargingSession);
+
+        final UUID id = chargingSession.getId();
+        final boolean[] removed = new boolean[1];
+        chargingSessions.computeIfPresent(id, (key, current) -> {
+            if (!current.equals(chargingSession)) {
+                return current;
+            }
+            removed[0] = true;
+            activeIds.remove(key);
+            return null;
+        });
+        if (!removed[0]) {
+            return false;
+        }
+
+        orderedIds.remove(id);
+        unindexStation(chargingSession);
+        startedIndex.remove(TimeKey.startedAt(chargingSession));
+        final TimeKey updatedKey = updatedKeys.remove(id);
+        if (updatedKey != null) {
+            updatedIndex.remove(updatedKey);
+        }
+
+        // a concurrent save of the same id may have been unindexed above
+        final ChargingSession saved = chargingSessions.get(id);
+        if (saved != null) {
+            orderedIds.add(id);
+            indexStation(saved);
+            indexTimes(saved);
+        }
+
+        version.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Time complexity is O(1).
+     *
+     * @return Number of charging sessions
+     */
+    @Override
+    public long count() {
+
+        return size();
+    }
+
+    /**
+     * Time complexity is O(1).
+     *
+     * @return Modification version
+     */
+    @Override
+    public long getVersion() {
+
+        return version.get();
+    }
+
+    /**
+     * Time complexity is O(1).
+     *
+     * @return Number of charging sessions
+     */
+    public int size() {
+
+        return chargingSessions.size();
+    }
+
+    private void indexStation(final ChargingSession chargingSession) {
+
+        if (chargingSession.getStationId() == null) {
+            return;
+        }
+
+        Set<UUID> ids = stationIndex.get(chargingSession.getStationId());
+        if (ids == null) {
+            ids = stationIndex.computeIfAbsent(chargingSession.getStationId(), stationId -> ConcurrentHashMap.newKeySet());
+        }
+
+        ids.add(chargingSession.getId());
+    }
+
+    private void indexTimes(final ChargingSession chargingSession) {
+
+        if (chargingSession.getStartedAtNanos() != EpochNanos.NONE) {
+            startedIndex.add(TimeKey.startedAt(chargingSession));
+        }
+
+        if (chargingSession.getUpdatedAtNanos() == EpochNanos.NONE) {
+            return;
+        }
+
+        final TimeKey updatedKey = TimeKey.updatedAt(chargingSession);
+        final TimeKey previous = updatedKeys.put(chargingSession.getId(), updatedKey);
+        if (!updatedKey.equals(previous)) {
+            updatedIndex.add(updatedKey);
+            if (previous != null) {
+                updatedIndex.remove(previous);
+            }
+        }
+    }
+
+    private void unindexStation(final ChargingSession chargingSession) {
+
+        if (chargingSession.getStationId() == null) {
+            return;
+        }
+
+        final Set<UUID> ids = stationIndex.get(chargingSession.getStationId());
+        if (ids != null) {
+            ids.remove(chargingSession.getId());
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package com.evbox.everon.repository;
+
+import com.evbox.everon.model.ChargingSession;
+import lombok.Value;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Key of a session in a time index, ordered by time and then by id, so sessions of the
+ * same time are kept apart and a page can continue after the last key it returned.
+ */
+@Value
+public class TimeKey implements Comparable<TimeKey> {
+
+    public static final Comparator<ChargingSession> BY_STARTED_AT = Comparator.comparing(TimeKey::startedAt);
+    public static final Comparator<ChargingSession> BY_UPDATED_AT = Comparator.comparing(TimeKey::updatedAt);
+
+    // below every id by UUID.compareTo, and no valid UUID of any version
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private long epochNanos;
+
+    private UUID id;
+
+    /**
+     * @param epochNanos Time as EpochNanos
+     * @return Key below the keys of all sessions of the time, and above those of earlier times
+     */
+    public static TimeKey before(final long epochNanos) {
+        return new TimeKey(epochNanos, MIN_ID);
+    }
+
+    public static TimeKey startedAt(final ChargingSession chargingSession) {
+        return new TimeKey(chargingSession.getStartedAtNanos(), chargingSession.getId());
+    }
+
+    public static TimeKey updatedAt(final ChargingSession chargingSession) {
+        return new TimeKey(chargingSession.getUpdatedAtNanos(), chargingSession.getId());
+    }
+
+    @Override
+    public int compareTo(final TimeKey other) {
+        final int byTime = Long.compare(epochNanos, other.epochNanos);
+        return byTime != 0 ? byTime : id.compareTo(other.id);
+    }
+}
@@ -0,0 +1,504 @@
+package com.evbox.everon.repository.columnar;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@Component
+@ConditionalOnProperty(name = "everon.repository.type", havingValue = "columnar")
+public class ColumnarChargingSessionRepository implements ChargingSessionRepository {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final byte NO_STATUS = -1;
+    private static final StatusEnum[] STATUSES = StatusEnum.values();
+
+    private final StampedLock lock;
+    private final StationDictionary stations;
+    private final RowIndex index;
+
+    // guarded by lock
+    private long[][] idMsb;
+    private long[][] idLsb;
+    private long[][] startedAt;
+    private long[][] stoppedAt;
+    private long[][] updatedAt;
+    private int[][] stationCodes;
+    private byte[][] statuses;
+    private IntList[] stationRows;
+    private int rowCount;
+
+    private volatile int activeCount;
+    private volatile long version;
+
+    /**
+     * Charging sessions are stored as rows of primitive columns: the id as two longs,
+     * timestamps as UTC epoch nanos, the status as a byte and the station id as an int
+     * code of a StationDictionary. Columns are split in fixed size chunks, so growing
+     * never copies existing rows. A session only costs about 45 bytes, in a few large
+     * arrays instead of a graph of small objects, and is only turned back into a
+     * ChargingSession when it is read.
+     *
+     * Ids are found through a primitive open addressing RowIndex and stations through
+     * primitive row lists per station code. Writes take a write lock and reads a shared
+     * read lock of a StampedLock.
+     */
+    public ColumnarChargingSessionRepository() {
+        lock = new StampedLock();
+        stations = new StationDictionary();
+        index = new RowIndex(new IdColumns());
+
+        idMsb = new long[1][];
+        idLsb = new long[1][];
+        startedAt = new long[1][];
+        stoppedAt = new long[1][];
+        updatedAt = new long[1][];
+        stationCodes = new int[1][];
+        statuses = new byte[1][];
+        stationRows = new IntList[16];
+    }
+
+    /**
+     * Writes the charging session to its row, appending a row for new sessions.
+     * Time complexity is O(1) amortized, plus O(k) when a session moves to another
+     * station with k sessions.
+     *
+     * @param chargingSession Charging session
+     * @return Persisted charging session
+     */
+    @Override
+    public ChargingSession save(final ChargingSession chargingSession) {
+
+        Objects.requireNonNull(chargingSession);
+
+        final long stamp = lock.writeLock();
+        try {
+            write(chargingSession);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return chargingSession;
+    }
+
+    /**
+     * Writes the charging sessions in order under a single acquisition of the write lock.
+     * Time complexity is O(b) amortized for a batch of b sessions.
+     *
+     * @param chargingSessions Charging sessions
+     * @return Persisted charging sessions
+     */
+    @Override
+    public List<ChargingSession> saveAll(final List<ChargingSession> chargingSessions) {
+
+        chargingSessions.forEach(Objects::requireNonNull);
+
+        final long stamp = lock.writeLock();
+        try {
+            for (final ChargingSession chargingSession : chargingSessions) {
+                write(chargingSession);
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return new ArrayList<>(chargingSessions);
+    }
+
+    // guarded by the write lock
+    private void write(final ChargingSession chargingSession) {
+
+        final UUID id = chargingSession.getId();
+        final boolean active = chargingSession.getStatus() == StatusEnum.IN_PROGRESS;
+
+        final int station = chargingSession.getStationId() == null
+                ? StationDictionary.NO_CODE
+                : stations.encode(chargingSession.getStationId());
+
+        int row = index.find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+
+        if (row == RowIndex.NOT_FOUND) {
+            row = appendRow(id);
+            addStationRow(station, row);
+            if (active) {
+                activeCount++;
+            }
+        } else {
+            final int previousStation = stationCodes[chunk(row)][offset(row)];
+            if (previousStation != station) {
+                removeStationRow(previousStation, row);
+                addStationRow(station, row);
+            }
+
+            final boolean wasActive = statuses[chunk(row)][offset(row)] == StatusEnum.IN_PROGRESS.ordinal();
+            if (active != wasActive) {
+                activeCount += active ? 1 : -1;
+            }
+        }
+
+        final int chunk = chunk(row);
+        final int offset = offset(row);
+        startedAt[chunk][offset] = chargingSession.getStartedAtNanos();
+        stoppedAt[chunk][offset] = chargingSession.getStoppedAtNanos();
+        updatedAt[chunk][offset] = chargingSession.getUpdatedAtNanos();
+        stationCodes[chunk][offset] = station;
+        statuses[chunk][offset] = chargingSession.getStatus() == null
+                ? NO_STATUS
+                : (byte) chargingSession.getStatus().ordinal();
+    }
+
+    /**
+     * Gets charging session by ID from the row index.
+     * Time complexity is O(1) on average.
+     *
+     * @param id ID of the charging session
+     * @return Charging session
+     */
+    @Override
+    public Optional<ChargingSession> findById(final UUID id) {
+
+        Objects.requireNonNull(id);
+
+        final long stamp = lock.readLock();
+        try {
+            final int row = index.find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            return row == RowIndex.NOT_FOUND ? Optional.empty() : Optional.of(read(row));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns all the charging sessions
+     *
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll() {
+
+        final long stamp = lock.readLock();
+        try {
+            final List<ChargingSession> chargingSessions = new ArrayList<>(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                chargingSessions.add(read(row));
+            }
+            return chargingSessions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by id. Rows are kept in insertion
+     * order, so the page is selected by scanning the id columns into a heap bounded by
+     * the limit, trading the ordered index of the in-memory repository for memory.
+     * Time complexity is O(n log limit).
+     *
+     * @param after Exclusive id to continue after, or null for the first page
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll(final UUID after, final int limit) {
+
+        final long stamp = lock.readLock();
+        try {
+            // max-heap of the smallest ids seen so far
+            final PriorityQueue<Integer> page = new PriorityQueue<>(Math.max(1, Math.min(limit, rowCount)),
+                    (a, b) -> compareRows(b, a));
+
+            for (int row = 0; row < rowCount; row++) {
+                if (after != null && compareTo(row, after) <= 0) {
+                    continue;
+                }
+                if (page.size() < limit) {
+                    page.add(row);
+                } else if (compareRows(row, page.peek()) < 0) {
+                    page.poll();
+                    page.add(row);
+                }
+            }
+
+            final List<Integer> rows = new ArrayList<>(page);
+            rows.sort(this::compareRows);
+
+            final List<ChargingSession> chargingSessions = new ArrayList<>(rows.size());
+            for (final int row : rows) {
+                chargingSessions.add(read(row));
+            }
+            return chargingSessions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a lazy stream over the rows, materializing one session at a time.
+     * Sessions saved while the stream is consumed may or may not be included.
+     *
+     * @return Stream of charging sessions
+     */
+    @Override
+    public Stream<ChargingSession> streamAll() {
+
+        final int rows;
+        final long stamp = lock.readLock();
+        try {
+            rows = rowCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        return IntStream.range(0, rows).mapToObj(this::readLocked);
+    }
+
+    /**
+     * Returns the charging sessions of a station from its row list.
+     * Time complexity is O(k), where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findByStationId(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        final long stamp = lock.readLock();
+        try {
+            final int station = stations.codeOf(stationId);
+            if (station == StationDictionary.NO_CODE || stationRows[station] == null) {
+                return new ArrayList<>();
+            }
+
+            final IntList rows = stationRows[station];
+            final List<ChargingSession> chargingSessions = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                chargingSessions.add(read(rows.get(i)));
+            }
+            return chargingSessions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the charging sessions with the given status by scanning the status column.
+     * Time complexity is O(n), over one byte per session.
+     *
+     * @param status Session status
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAllByStatus(final StatusEnum status) {
+
+        Objects.requireNonNull(status);
+
+        final byte code = (byte) status.ordinal();
+
+        final long stamp = lock.readLock();
+        try {
+            final List<ChargingSession> chargingSessions = new ArrayList<>();
+            for (int row = 0; row < rowCount; row++) {
+                if (statuses[chunk(row)][offset(row)] == code) {
+                    chargingSessions.add(read(row));
+                }
+            }
+            return chargingSessions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of sessions in progress, maintained on save.
+     * Time complexity is O(1).
+     *
+     * @return Number of sessions in progress
+     */
+    @Override
+    public long countActive() {
+
+        return activeCount;
+    }
+
+    /**
+     * Returns the number of rows.
+     * Time complexity is O(1).
+     *
+     * @return Number of charging sessions
+     */
+    @Override
+    public long count() {
+
+        final long stamp = lock.readLock();
+        try {
+            return rowCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the modification version, incremented under the write lock by every save.
+     * Time complexity is O(1).
+     *
+     * @return Modification version
+     */
+    @Override
+    public long getVersion() {
+
+        return version;
+    }
+
+    private long msb(final int row) {
+        return idMsb[chunk(row)][offset(row)];
+    }
+
+    private long lsb(final int row) {
+        return idLsb[chunk(row)][offset(row)];
+    }
+
+    private int appendRow(final UUID id) {
+
+        final int row = rowCount;
+        final int chunk = chunk(row);
+
+        if (chunk == idMsb.length) {
+            final int chunks = chunk * 2;
+            idMsb = Arrays.copyOf(idMsb, chunks);
+            idLsb = Arrays.copyOf(idLsb, chunks);
+            startedAt = Arrays.copyOf(startedAt, chunks);
+            stoppedAt = Arrays.copyOf(stoppedAt, chunks);
+            updatedAt = Arrays.copyOf(updatedAt, chunks);
+            stationCodes = Arrays.copyOf(stationCodes, chunks);
+            statuses = Arrays.copyOf(statuses, chunks);
+        }
+
+        if (idMsb[chunk] == null) {
+            idMsb[chunk] = new long[CHUNK_SIZE];
+            idLsb[chunk] = new long[CHUNK_SIZE];
+            startedAt[chunk] = new long[CHUNK_SIZE];
+            stoppedAt[chunk] = new long[CHUNK_SIZE];
+            updatedAt[chunk] = new long[CHUNK_SIZE];
+            stationCodes[chunk] = new int[CHUNK_SIZE];
+            statuses[chunk] = new byte[CHUNK_SIZE];
+        }
+
+        idMsb[chunk][offset(row)] = id.getMostSignificantBits();
+        idLsb[chunk][offset(row)] = id.getLeastSignificantBits();
+
+        rowCount++;
+        index.add(row);
+
+        return row;
+    }
+
+    private void addStationRow(final int station, final int row) {
+
+        if (station == StationDictionary.NO_CODE) {
+            return;
+        }
+
+        if (station >= stationRows.length) {
+            stationRows = Arrays.copyOf(stationRows, Math.max(station + 1, stationRows.length * 2));
+        }
+
+        if (stationRows[station] == null) {
+            stationRows[station] = new IntList();
+        }
+
+        stationRows[station].add(row);
+    }
+
+    private void removeStationRow(final int station, final int row) {
+        if (station != StationDictionary.NO_CODE) {
+            stationRows[station].remove(row);
+        }
+    }
+
+    private ChargingSession readLocked(final int row) {
+
+        final long stamp = lock.readLock();
+        try {
+            return read(row);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private ChargingSession read(final int row) {
+
+        final int chunk = chunk(row);
+        final int offset = offset(row);
+
+        final ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(new UUID(idMsb[chunk][offset], idLsb[chunk][offset]));
+        chargingSession.setStartedAtNanos(startedAt[chunk][offset]);
+        chargingSession.setStoppedAtNanos(stoppedAt[chunk][offset]);
+        chargingSession.setUpdatedAtNanos(updatedAt[chunk][offset]);
+
+        final int station = stationCodes[chunk][offset];
+        if (station != StationDictionary.NO_CODE) {
+            chargingSession.setStationId(stations.decode(station));
+        }
+
+        final byte status = statuses[chunk][offset];
+        if (status != NO_STATUS) {
+            chargingSession.setStatus(STATUSES[status]);
+        }
+
+        return chargingSession;
+    }
+
+    /**
+     * Compares the ids of two rows with the ordering of UUID.compareTo.
+     */
+    private int compareRows(final int row, final int other) {
+        final int byMsb = Long.compare(msb(row), msb(other));
+        return byMsb != 0 ? byMsb : Long.compare(lsb(row), lsb(other));
+    }
+
+    private int compareTo(final int row, final UUID id) {
+        final int byMsb = Long.compare(msb(row), id.getMostSignificantBits());
+        return byMsb != 0 ? byMsb : Long.compare(lsb(row), id.getLeastSignificantBits());
+    }
+
+    private static int chunk(final int row) {
+        return row >>> CHUNK_BITS;
+    }
+
+    private static int offset(final int row) {
+        return row & CHUNK_MASK;
+    }
+
+    private final class IdColumns implements RowIndex.IdColumns {
+
+        @Override
+        public long msb(final int row) {
+            return ColumnarChargingSessionRepository.this.msb(row);
+        }
+
+        @Override
+        public long lsb(final int row) {
+            return ColumnarChargingSessionRepository.this.lsb(row);
+        }
+    }
+}
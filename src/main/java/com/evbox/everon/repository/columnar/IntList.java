@@ -0,0 +1,45 @@
+package com.evbox.everon.repository.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, without boxing.
+ *
+ * Not thread-safe; guarded by the owning repository.
+ */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(final int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Removes the given value by moving the last value into its place, so the order
+     * is not kept.
+     * Time complexity is O(size).
+     *
+     * @param value Value to remove
+     */
+    void remove(final int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return;
+            }
+        }
+    }
+
+    int get(final int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,108 @@
+package com.evbox.everon.repository.columnar;
+
+/**
+ * Open addressing hash index from session ids to rows.
+ *
+ * Slots only hold row numbers; the ids themselves are compared against the id columns,
+ * so the index costs four bytes per slot. Collisions are resolved by linear probing and
+ * the table doubles once it is half full, keeping probe sequences short.
+ *
+ * Not thread-safe; guarded by the owning repository.
+ */
+final class RowIndex {
+
+    static final int NOT_FOUND = -1;
+
+    private static final int EMPTY = 0;
+
+    private final IdColumns ids;
+    private int[] slots = new int[1 << 10];
+    private int size;
+
+    /**
+     * @param ids Id columns the indexed rows are read from
+     */
+    RowIndex(final IdColumns ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Time complexity is O(1) on average.
+     *
+     * @return Row of the given id, or NOT_FOUND
+     */
+    int find(final long msb, final long lsb) {
+
+        final int mask = slots.length - 1;
+
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = slots[slot];
+            if (entry == EMPTY) {
+                return NOT_FOUND;
+            }
+
+            final int row = entry - 1;
+            if (ids.msb(row) == msb && ids.lsb(row) == lsb) {
+                return row;
+            }
+        }
+    }
+
+    /**
+     * Indexes a row whose id is not indexed yet.
+     * Time complexity is O(1) amortized.
+     *
+     * @param row Row with its id already written to the id columns
+     */
+    void add(final int row) {
+
+        if (++size > slots.length / 2) {
+            resize();
+        }
+
+        insert(slots, row);
+    }
+
+    private void resize() {
+
+        final int[] resized = new int[slots.length * 2];
+
+        for (final int entry : slots) {
+            if (entry != EMPTY) {
+                insert(resized, entry - 1);
+            }
+        }
+
+        slots = resized;
+    }
+
+    private void insert(final int[] table, final int row) {
+
+        final int mask = table.length - 1;
+
+        int slot = hash(ids.msb(row), ids.lsb(row)) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = row + 1;
+    }
+
+    private static int hash(final long msb, final long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Reads the id of a row.
+     */
+    interface IdColumns {
+
+        long msb(int row);
+
+        long lsb(int row);
+    }
+}
@@ -0,0 +1,68 @@
+package com.evbox.everon.repository.columnar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps station ids to dense int codes and back, so every station id is stored once no
+ * matter how many sessions refer to it.
+ *
+ * Not thread-safe; guarded by the owning repository.
+ */
+final class StationDictionary {
+
+    static final int NO_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] stationIds = new String[16];
+    private int size;
+
+    /**
+     * Returns the code of the given station id, assigning the next one if it is new.
+     * Time complexity is O(1) amortized.
+     *
+     * @param stationId Station Id
+     * @return Code of the station id
+     */
+    int encode(final String stationId) {
+
+        final Integer code = codes.get(stationId);
+        if (code != null) {
+            return code;
+        }
+
+        if (size == stationIds.length) {
+            stationIds = Arrays.copyOf(stationIds, size * 2);
+        }
+
+        stationIds[size] = stationId;
+        codes.put(stationId, size);
+
+        return size++;
+    }
+
+    /**
+     * @param stationId Station Id
+     * @return Code of the station id, or NO_CODE if it was never encoded
+     */
+    int codeOf(final String stationId) {
+        final Integer code = codes.get(stationId);
+        return code == null ? NO_CODE : code;
+    }
+
+    /**
+     * @param code Code of a station id
+     * @return Station id of the code
+     */
+    String decode(final int code) {
+        return stationIds[code];
+    }
+
+    /**
+     * @return Number of encoded station ids
+     */
+    int size() {
+        return size;
+    }
+}
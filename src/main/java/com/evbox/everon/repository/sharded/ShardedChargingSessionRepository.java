@@ -0,0 +1,317 @@
+package com.evbox.everon.repository.sharded;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.evbox.everon.repository.TimeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "everon.repository.type", havingValue = "sharded")
+public class ShardedChargingSessionRepository implements ChargingSessionRepository {
+
+    private static final Comparator<ChargingSession> BY_ID = Comparator.comparing(ChargingSession::getId);
+
+    private final InMemoryChargingSessionRepository[] shards;
+    private final Map<UUID, InMemoryChargingSessionRepository> shardById;
+    private final ForkJoinPool pool;
+
+    /**
+     * Sessions are split by the hash of their station id over InMemoryChargingSessionRepository
+     * shards, each with its own map, indexes and active count. Saves and station queries
+     * touch only the shard of the station. As the id does not tell the station, a global
+     * ConcurrentHashMap routes lookups by id to the shard of the session in O(1), at the
+     * cost of one entry per session.
+     *
+     * Queries over all sessions run on every shard in parallel in a ForkJoinPool and merge
+     * their results, so scans scale with the number of cores up to the number of shards.
+     *
+     * @param shardCount  Number of shards, or 0 for one per core
+     * @param parallelism Number of threads of the fan-out pool, or 0 for one per core
+     */
+    public ShardedChargingSessionRepository(@Value("${everon.sharded.shards:0}") final int shardCount,
+                                            @Value("${everon.sharded.parallelism:0}") final int parallelism) {
+
+        final int cores = Runtime.getRuntime().availableProcessors();
+
+        this.shards = new InMemoryChargingSessionRepository[shardCount > 0 ? shardCount : cores];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new InMemoryChargingSessionRepository();
+        }
+        this.shardById = new ConcurrentHashMap<>();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : cores);
+
+        log.info("Sharding sessions over {} shards", shards.length);
+    }
+
+    /**
+     * Puts charging session to the shard of its station and routes its id there. A session
+     * saved with another station moves to the shard of that station.
+     * Time complexity is O(log n / s) for s shards.
+     *
+     * @param chargingSession Charging session
+     * @return Persisted charging session
+     */
+    @Override
+    public ChargingSession save(final ChargingSession chargingSession) {
+
+        Objects.requireNonNull(chargingSession);
+
+        final InMemoryChargingSessionRepository shard = shardOf(chargingSession.getStationId());
+        shard.save(chargingSession);
+
+        final InMemoryChargingSessionRepository previous = shardById.put(chargingSession.getId(), shard);
+        if (previous != null && previous != shard) {
+            previous.findById(chargingSession.getId()).ifPresent(previous::remove);
+        }
+
+        return chargingSession;
+    }
+
+    /**
+     * Gets charging session by ID from the shard its id is routed to.
+     * Time complexity is O(1).
+     *
+     * @param id ID of the charging session
+     * @return Charging session
+     */
+    @Override
+    public Optional<ChargingSession> findById(final UUID id) {
+
+        Objects.requireNonNull(id);
+
+        final InMemoryChargingSessionRepository shard = shardById.get(id);
+
+        return shard == null ? Optional.empty() : shard.findById(id);
+    }
+
+    /**
+     * Returns all the charging sessions, copying the shards in parallel.
+     * Time complexity is O(n / p) for p threads.
+     *
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll() {
+
+        return concat(fanOut(InMemoryChargingSessionRepository::findAll));
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by id, merging the pages of every shard.
+     * Time complexity is O(s (log n + limit)) for s shards.
+     *
+     * @param after Exclusive id to continue after, or null for the first page
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll(final UUID after, final int limit) {
+
+        return merge(fanOut(shard -> shard.findAll(after, limit)), BY_ID, limit);
+    }
+
+    /**
+     * Returns a page of the charging sessions started before the given time, merging the
+     * pages of every shard.
+     * Time complexity is O(s (log n + limit)) for s shards.
+     *
+     * @param after   Exclusive key to continue after
+     * @param toNanos Exclusive end of the start times as EpochNanos
+     * @param limit   Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findStartedBetween(final TimeKey after, final long toNanos, final int limit) {
+
+        return merge(fanOut(shard -> shard.findStartedBetween(after, toNanos, limit)), TimeKey.BY_STARTED_AT, limit);
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by their update time, merging the pages
+     * of every shard.
+     * Time complexity is O(s (log n + limit)) for s shards.
+     *
+     * @param after Exclusive key to continue after
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findUpdatedAfter(final TimeKey after, final int limit) {
+
+        return merge(fanOut(shard -> shard.findUpdatedAfter(after, limit)), TimeKey.BY_UPDATED_AT, limit);
+    }
+
+    /**
+     * Returns a lazy stream over the shards one after the other.
+     *
+     * @return Stream of charging sessions
+     */
+    @Override
+    public Stream<ChargingSession> streamAll() {
+
+        return Arrays.stream(shards).flatMap(InMemoryChargingSessionRepository::streamAll);
+    }
+
+    /**
+     * Returns the charging sessions of a station from the station index of its shard.
+     * Time complexity is O(k), where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findByStationId(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        return shardOf(stationId).findByStationId(stationId);
+    }
+
+    /**
+     * Returns the charging sessions with the given status of every shard in parallel.
+     * Time complexity is O(a / p) for sessions in progress and O(n / p) for finished
+     * sessions, for p threads.
+     *
+     * @param status Session status
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAllByStatus(final StatusEnum status) {
+
+        Objects.requireNonNull(status);
+
+        return concat(fanOut(shard -> shard.findAllByStatus(status)));
+    }
+
+    /**
+     * Sums the active counts of the shards, which are O(1) each, so forking would cost
+     * more than counting.
+     * Time complexity is O(s) for s shards.
+     *
+     * @return Number of sessions in progress
+     */
+    @Override
+    public long countActive() {
+
+        long count = 0L;
+        for (final InMemoryChargingSessionRepository shard : shards) {
+            count += shard.countActive();
+        }
+
+        return count;
+    }
+
+    /**
+     * Time complexity is O(s) for s shards.
+     *
+     * @return Number of charging sessions
+     */
+    @Override
+    public long count() {
+
+        long count = 0L;
+        for (final InMemoryChargingSessionRepository shard : shards) {
+            count += shard.count();
+        }
+
+        return count;
+    }
+
+    /**
+     * Sums the versions of the shards, which only increase, so the sum increases with
+     * every change of any shard.
+     * Time complexity is O(s) for s shards.
+     *
+     * @return Modification version
+     */
+    @Override
+    public long getVersion() {
+
+        long version = 0L;
+        for (final InMemoryChargingSessionRepository shard : shards) {
+            version += shard.getVersion();
+        }
+
+        return version;
+    }
+
+    /**
+     * @return Number of shards
+     */
+    public int getShardCount() {
+
+        return shards.length;
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    InMemoryChargingSessionRepository shardOf(final String stationId) {
+
+        if (stationId == null) {
+            return shards[0];
+        }
+
+        final int hash = stationId.hashCode();
+        return shards[Math.floorMod(hash ^ hash >>> 16, shards.length)];
+    }
+
+    private <R> List<R> fanOut(final Function<InMemoryChargingSessionRepository, R> query) {
+
+        if (shards.length == 1) {
+            return Arrays.asList(query.apply(shards[0]));
+        }
+
+        // a parallel stream started from a task of the pool runs in that pool
+        return pool.submit(() -> Arrays.stream(shards)
+                .parallel()
+                .map(query)
+                .collect(Collectors.toList()))
+                .join();
+    }
+
+    private static List<ChargingSession> concat(final List<List<ChargingSession>> results) {
+
+        int size = 0;
+        for (final List<ChargingSession> result : results) {
+            size += result.size();
+        }
+
+        final List<ChargingSession> chargingSessions = new ArrayList<>(size);
+        results.forEach(chargingSessions::addAll);
+
+        return chargingSessions;
+    }
+
+    private static List<ChargingSession> merge(final List<List<ChargingSession>> pages,
+                                               final Comparator<ChargingSession> order, final int limit) {
+
+        final List<ChargingSession> page = concat(pages);
+        page.sort(order);
+
+        return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+    }
+}
@@ -0,0 +1,575 @@
+package com.evbox.everon.repository.tiered;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.repository.ChargingSessionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only archive of charging sessions in compressed blocks of local segment files.
+ *
+ * Sessions are appended in the order given, so archiving them by stop time keeps the
+ * segments time-ordered. Every block holds up to a fixed number of ChargingSessionCodec
+ * records, Deflater-compressed:
+ * <pre>
+ * int compressedLength | int rawLength | compressed records
+ * </pre>
+ * Only a primitive index stays on the heap: the id as two longs and the block location
+ * as one long per session, found through open addressing, plus the archived ids per
+ * station. Reads decompress the block of a session, keeping recently used blocks in a
+ * BlockCache.
+ *
+ * The archive is a tier of a non-persistent repository, so it starts empty and removes
+ * the segments of a previous run.
+ */
+@Slf4j
+public class ArchiveStore implements Closeable {
+
+    private static final int BLOCK_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int EMPTY = 0;
+
+    private static final String SEGMENT_PREFIX = "archive-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int blockSessions;
+    private final BlockCache cache;
+
+    private final ReadWriteLock lock;
+
+    // guarded by lock
+    private final List<FileChannel> segments;
+    private final List<Long> blocks;
+    private final Map<String, Ordinals> stations;
+    private long[] idMsb;
+    private long[] idLsb;
+    private long[] locations;
+    private int[] slots;
+    private int count;
+
+    // guarded by this
+    private long segmentPosition;
+
+    /**
+     * @param directory     Directory of the segment files, created if missing
+     * @param segmentSize   Size after which a new segment file is started
+     * @param blockSessions Number of sessions per compressed block
+     * @param cachedBlocks  Number of decompressed blocks kept in the cache
+     */
+    public ArchiveStore(final Path directory, final long segmentSize, final int blockSessions,
+                        final int cachedBlocks) {
+
+        this.directory = Objects.requireNonNull(directory);
+        this.segmentSize = segmentSize;
+        this.blockSessions = blockSessions;
+        this.cache = new BlockCache(cachedBlocks);
+        this.lock = new ReentrantReadWriteLock();
+
+        this.segments = new ArrayList<>();
+        this.blocks = new ArrayList<>();
+        this.stations = new HashMap<>();
+        this.idMsb = new long[1024];
+        this.idLsb = new long[1024];
+        this.locations = new long[1024];
+        this.slots = new int[2048];
+
+        try {
+            Files.createDirectories(directory);
+            deleteSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare archive directory " + directory, e);
+        }
+    }
+
+    /**
+     * Appends the sessions in the given order. An id archived again replaces its previous
+     * copy.
+     * Time complexity is O(n).
+     *
+     * @param sessions Charging sessions
+     */
+    public synchronized void append(final List<ChargingSession> sessions) {
+
+        for (int from = 0; from < sessions.size(); from += blockSessions) {
+            final List<ChargingSession> block = sessions.subList(from, Math.min(sessions.size(), from + blockSessions));
+            final long location = writeBlock(encode(block));
+
+            lock.writeLock().lock();
+            try {
+                blocks.add(location);
+                for (final ChargingSession chargingSession : block) {
+                    index(chargingSession, location);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads an archived session through the block cache.
+     * Time complexity is O(1) on average, plus decompressing the block on a cache miss.
+     *
+     * @param id Session id
+     * @return Charging session
+     */
+    public Optional<ChargingSession> findById(final UUID id) {
+
+        final long location;
+        lock.readLock().lock();
+        try {
+            final int ordinal = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (ordinal < 0) {
+                return Optional.empty();
+            }
+            location = locations[ordinal];
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return Optional.ofNullable(readFromBlock(cachedBlock(location), id));
+    }
+
+    /**
+     * Reads the archived sessions of a station.
+     * Time complexity is O(k), where k is the number of archived sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return List of charging sessions
+     */
+    public List<ChargingSession> findByStationId(final String stationId) {
+
+        // an id archived again at the same station is listed twice
+        final Set<UUID> ids = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            final Ordinals ordinals = stations.get(stationId);
+            for (int i = 0; ordinals != null && i < ordinals.size; i++) {
+                ids.add(idOf(ordinals.values[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final List<ChargingSession> chargingSessions = new ArrayList<>(ids.size());
+        for (final UUID id : ids) {
+            // a session archived again may have moved to another station
+            findById(id).filter(s -> stationId.equals(s.getStationId())).ifPresent(chargingSessions::add);
+        }
+
+        return chargingSessions;
+    }
+
+    /**
+     * Returns a page of archived sessions ordered by id, selected by scanning the id
+     * index into a heap bounded by the limit.
+     * Time complexity is O(m log limit), where m is the number of archived sessions.
+     *
+     * @param after Exclusive id to continue after, or null for the first page
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    public List<ChargingSession> findAll(final UUID after, final int limit) {
+
+        final List<UUID> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final PriorityQueue<Integer> page = new PriorityQueue<>(Math.max(1, Math.min(limit, count)),
+                    (a, b) -> compare(b, a));
+
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                if (after != null && compare(ordinal, after) <= 0) {
+                    continue;
+                }
+                if (page.size() < limit) {
+                    page.add(ordinal);
+                } else if (compare(ordinal, page.peek()) < 0) {
+                    page.poll();
+                    page.add(ordinal);
+                }
+            }
+
+            final List<Integer> ordinals = new ArrayList<>(page);
+            ordinals.sort(this::compare);
+            for (final int ordinal : ordinals) {
+                ids.add(idOf(ordinal));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final List<ChargingSession> chargingSessions = new ArrayList<>(ids.size());
+        for (final UUID id : ids) {
+            findById(id).ifPresent(chargingSessions::add);
+        }
+
+        return chargingSessions;
+    }
+
+    /**
+     * Returns a lazy stream over the archived sessions in archive order, decompressing
+     * one block at a time without going through the cache.
+     *
+     * @return Stream of charging sessions
+     */
+    public Stream<ChargingSession> stream() {
+
+        final List<Long> archivedBlocks;
+        lock.readLock().lock();
+        try {
+            archivedBlocks = new ArrayList<>(blocks);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return archivedBlocks.stream().flatMap(location -> current(location, decode(readBlock(location))).stream());
+    }
+
+    /**
+     * @return Number of archived sessions
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (final FileChannel segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close archive segments in " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static byte[] encode(final List<ChargingSession> block) {
+
+        ByteBuffer raw = ByteBuffer.allocate(ChargingSessionCodec.MAX_ENCODED_SIZE * 2);
+
+        for (final ChargingSession chargingSession : block) {
+            if (raw.remaining() < ChargingSessionCodec.MAX_ENCODED_SIZE) {
+                final ByteBuffer grown = ByteBuffer.allocate(raw.capacity() * 2);
+                raw.flip();
+                grown.put(raw);
+                raw = grown;
+            }
+            ChargingSessionCodec.write(raw, chargingSession);
+        }
+
+        return Arrays.copyOf(raw.array(), raw.position());
+    }
+
+    private long writeBlock(final byte[] raw) {
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        final byte[] compressed;
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            byte[] output = new byte[Math.max(64, raw.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            compressed = Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+
+        final ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressed.length);
+        block.putInt(compressed.length).putInt(raw.length).put(compressed);
+        block.flip();
+
+        try {
+            final int segment = segmentFor(block.remaining());
+            final FileChannel channel = channelOf(segment);
+            final long offset = segmentPosition;
+
+            while (block.hasRemaining()) {
+                channel.write(block, offset + block.position());
+            }
+            segmentPosition += block.limit();
+
+            return ((long) segment << 32) | offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive block in " + directory, e);
+        }
+    }
+
+    private int segmentFor(final int blockSize) throws IOException {
+
+        lock.writeLock().lock();
+        try {
+            if (segments.isEmpty() || segmentPosition + blockSize > segmentSize && segmentPosition > 0) {
+                final Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segments.size(),
+                        SEGMENT_SUFFIX));
+                segments.add(FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE));
+                segmentPosition = 0L;
+            }
+            return segments.size() - 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private FileChannel channelOf(final int segment) {
+        lock.readLock().lock();
+        try {
+            return segments.get(segment);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte[] cachedBlock(final long location) {
+
+        byte[] block = cache.get(location);
+        if (block == null) {
+            block = readBlock(location);
+            cache.put(location, block);
+        }
+
+        return block;
+    }
+
+    private byte[] readBlock(final long location) {
+
+        final FileChannel channel = channelOf((int) (location >>> 32));
+        final long offset = location & 0xFFFFFFFFL;
+
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            readFully(channel, header, offset);
+            header.flip();
+
+            final ByteBuffer compressed = ByteBuffer.allocate(header.getInt());
+            final byte[] raw = new byte[header.getInt()];
+            readFully(channel, compressed, offset + BLOCK_HEADER_SIZE);
+
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed.array());
+                int length = 0;
+                while (length < raw.length && !inflater.finished()) {
+                    length += inflater.inflate(raw, length, raw.length - length);
+                }
+            } finally {
+                inflater.end();
+            }
+
+            return raw;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive block at " + location, e);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block at " + location, e);
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long offset)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+    }
+
+    private static ChargingSession readFromBlock(final byte[] block, final UUID id) {
+
+        final ByteBuffer records = ByteBuffer.wrap(block);
+
+        while (records.hasRemaining()) {
+            final int position = records.position();
+            if (records.getLong(position) == id.getMostSignificantBits()
+                    && records.getLong(position + Long.BYTES) == id.getLeastSignificantBits()) {
+                return ChargingSessionCodec.read(records);
+            }
+            ChargingSessionCodec.skip(records);
+        }
+
+        return null;
+    }
+
+    private static List<ChargingSession> decode(final byte[] block) {
+
+        final ByteBuffer records = ByteBuffer.wrap(block);
+        final List<ChargingSession> chargingSessions = new ArrayList<>();
+
+        while (records.hasRemaining()) {
+            chargingSessions.add(ChargingSessionCodec.read(records));
+        }
+
+        return chargingSessions;
+    }
+
+    /**
+     * Drops the sessions of a block that were archived again into a later block.
+     */
+    private List<ChargingSession> current(final long location, final List<ChargingSession> chargingSessions) {
+
+        lock.readLock().lock();
+        try {
+            chargingSessions.removeIf(s -> {
+                final int ordinal = find(s.getId().getMostSignificantBits(), s.getId().getLeastSignificantBits());
+                return ordinal < 0 || locations[ordinal] != location;
+            });
+            return chargingSessions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(final ChargingSession chargingSession, final long location) {
+
+        final long msb = chargingSession.getId().getMostSignificantBits();
+        final long lsb = chargingSession.getId().getLeastSignificantBits();
+
+        int ordinal = find(msb, lsb);
+        if (ordinal < 0) {
+            ordinal = count++;
+            if (ordinal == idMsb.length) {
+                idMsb = Arrays.copyOf(idMsb, ordinal * 2);
+                idLsb = Arrays.copyOf(idLsb, ordinal * 2);
+                locations = Arrays.copyOf(locations, ordinal * 2);
+            }
+            idMsb[ordinal] = msb;
+            idLsb[ordinal] = lsb;
+
+            if (count > slots.length / 2) {
+                rehash();
+            } else {
+                insert(slots, ordinal);
+            }
+        }
+
+        locations[ordinal] = location;
+
+        if (chargingSession.getStationId() != null) {
+            stations.computeIfAbsent(chargingSession.getStationId(), stationId -> new Ordinals()).add(ordinal);
+        }
+    }
+
+    private int find(final long msb, final long lsb) {
+
+        final int mask = slots.length - 1;
+
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (idMsb[entry - 1] == msb && idLsb[entry - 1] == lsb) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            insert(slots, ordinal);
+        }
+    }
+
+    private void insert(final int[] table, final int ordinal) {
+
+        final int mask = table.length - 1;
+
+        int slot = hash(idMsb[ordinal], idLsb[ordinal]) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = ordinal + 1;
+    }
+
+    private UUID idOf(final int ordinal) {
+        return new UUID(idMsb[ordinal], idLsb[ordinal]);
+    }
+
+    private int compare(final int ordinal, final int other) {
+        final int byMsb = Long.compare(idMsb[ordinal], idMsb[other]);
+        return byMsb != 0 ? byMsb : Long.compare(idLsb[ordinal], idLsb[other]);
+    }
+
+    private int compare(final int ordinal, final UUID id) {
+        final int byMsb = Long.compare(idMsb[ordinal], id.getMostSignificantBits());
+        return byMsb != 0 ? byMsb : Long.compare(idLsb[ordinal], id.getLeastSignificantBits());
+    }
+
+    private static int hash(final long msb, final long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private void deleteSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                final String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable list of primitive ordinals.
+     */
+    private static final class Ordinals {
+
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(final int ordinal) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ordinal;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.evbox.everon.repository.tiered;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of decompressed archive blocks, keyed by block location.
+ *
+ * Blocks are loaded outside the cache lock, so two readers missing the same block may
+ * both decompress it; the cache only bounds how many blocks stay on the heap.
+ */
+final class BlockCache {
+
+    private final Map<Long, byte[]> blocks;
+
+    /**
+     * @param capacity Maximum number of cached blocks
+     */
+    BlockCache(final int capacity) {
+        this.blocks = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param location Block location
+     * @return Decompressed block, or null if it is not cached
+     */
+    synchronized byte[] get(final long location) {
+        return blocks.get(location);
+    }
+
+    synchronized void put(final long location, final byte[] block) {
+        blocks.put(location, block);
+    }
+
+    synchronized int size() {
+        return blocks.size();
+    }
+}
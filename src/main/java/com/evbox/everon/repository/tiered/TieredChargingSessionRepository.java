@@ -0,0 +1,370 @@
+package com.evbox.everon.repository.tiered;
+
+import com.evbox.everon.engine.EpochClock;
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.evbox.everon.repository.TimeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "everon.repository.type", havingValue = "tiered")
+public class TieredChargingSessionRepository implements ChargingSessionRepository {
+
+    private static final Comparator<ChargingSession> BY_ID = Comparator.comparing(ChargingSession::getId);
+
+    private final InMemoryChargingSessionRepository hot;
+    private final ArchiveStore archive;
+    private final Duration archiveAfter;
+    private final int hotBudget;
+    private final EpochClock clock;
+
+    /**
+     * Sessions are saved to an InMemoryChargingSessionRepository, the hot tier. A
+     * background task moves finished sessions to an ArchiveStore, the cold tier, once
+     * they are stopped for longer than the archive age, or oldest first while the hot
+     * tier holds more sessions than its budget.
+     *
+     * Reads go to the hot tier first and fall through to the archive, so a session is
+     * never missing while it moves. A session saved again after it was archived is
+     * served from the hot tier.
+     *
+     * @param directory     Directory of the archive segments
+     * @param segmentSize   Size after which a new archive segment is started
+     * @param blockSessions Number of sessions per compressed archive block
+     * @param cachedBlocks  Number of decompressed archive blocks kept in the cache
+     * @param archiveAfter  Time after its stop a finished session is archived
+     * @param hotBudget     Number of sessions the hot tier holds before archiving early
+     * @param clock         Clock of the stop times
+     */
+    public TieredChargingSessionRepository(
+            @Value("${everon.archive.directory:data/archive}") final String directory,
+            @Value("${everon.archive.segment-size-bytes:67108864}") final long segmentSize,
+            @Value("${everon.archive.block-sessions:1024}") final int blockSessions,
+            @Value("${everon.archive.cached-blocks:64}") final int cachedBlocks,
+            @Value("${everon.archive.after:PT1H}") final Duration archiveAfter,
+            @Value("${everon.archive.hot-budget-sessions:1000000}") final int hotBudget,
+            final EpochClock clock) {
+
+        this.hot = new InMemoryChargingSessionRepository();
+        this.archive = new ArchiveStore(Paths.get(directory), segmentSize, blockSessions, cachedBlocks);
+        this.archiveAfter = Objects.requireNonNull(archiveAfter);
+        this.hotBudget = hotBudget;
+        this.clock = clock;
+    }
+
+    /**
+     * Puts charging session to the hot tier.
+     * Time complexity is O(log n) for new sessions, O(1) for updates.
+     *
+     * @param chargingSession Charging session
+     * @return Persisted charging session
+     */
+    @Override
+    public ChargingSession save(final ChargingSession chargingSession) {
+
+        return hot.save(chargingSession);
+    }
+
+    /**
+     * Gets charging session by ID from the hot tier, or else from the archive.
+     * Time complexity is O(1), plus decompressing an uncached archive block.
+     *
+     * @param id ID of the charging session
+     * @return Charging session
+     */
+    @Override
+    public Optional<ChargingSession> findById(final UUID id) {
+
+        final Optional<ChargingSession> chargingSession = hot.findById(id);
+
+        return chargingSession.isPresent() ? chargingSession : archive.findById(id);
+    }
+
+    /**
+     * Returns all the charging sessions of both tiers.
+     * Time complexity is O(n + m), decompressing every archive block.
+     *
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll() {
+
+        return streamAll().collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by id, merging the pages of both tiers.
+     * Time complexity is O(log n + limit) for the hot tier and O(m log limit) for the
+     * archive, where m is the number of archived sessions.
+     *
+     * @param after Exclusive id to continue after, or null for the first page
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAll(final UUID after, final int limit) {
+
+        return merge(hot.findAll(after, limit), archivePage(after, limit), BY_ID, limit);
+    }
+
+    /**
+     * Returns a page of the charging sessions started before the given time, merging the
+     * start time index of the hot tier with the matching archived sessions.
+     * Time complexity is O(log n + limit) for the hot tier and O(m) for the archive.
+     *
+     * @param after   Exclusive key to continue after
+     * @param toNanos Exclusive end of the start times as EpochNanos
+     * @param limit   Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findStartedBetween(final TimeKey after, final long toNanos, final int limit) {
+
+        final List<ChargingSession> archivePage = archivePage(
+                s -> TimeKey.startedAt(s).compareTo(after) > 0 && s.getStartedAtNanos() < toNanos,
+                TimeKey.BY_STARTED_AT, limit);
+
+        return merge(hot.findStartedBetween(after, toNanos, limit), archivePage, TimeKey.BY_STARTED_AT, limit);
+    }
+
+    /**
+     * Returns a page of charging sessions ordered by their update time, merging the
+     * update time index of the hot tier with the matching archived sessions.
+     * Time complexity is O(log n + limit) for the hot tier and O(m) for the archive.
+     *
+     * @param after Exclusive key to continue after
+     * @param limit Maximum number of sessions
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findUpdatedAfter(final TimeKey after, final int limit) {
+
+        final List<ChargingSession> archivePage = archivePage(s -> TimeKey.updatedAt(s).compareTo(after) > 0,
+                TimeKey.BY_UPDATED_AT, limit);
+
+        return merge(hot.findUpdatedAfter(after, limit), archivePage, TimeKey.BY_UPDATED_AT, limit);
+    }
+
+    /**
+     * Returns a lazy stream over the archive followed by the hot tier. An archived session
+     * still in the hot tier, e.g. while it moves, is taken from the hot tier right away and
+     * skipped there, so a session moving while the stream is read is listed at most once.
+     * Only the ids of sessions found in both tiers are kept.
+     *
+     * @return Stream of charging sessions
+     */
+    @Override
+    public Stream<ChargingSession> streamAll() {
+
+        final Set<UUID> inBothTiers = new HashSet<>();
+
+        final Stream<ChargingSession> archived = archive.stream().map(chargingSession -> {
+            final Optional<ChargingSession> current = hot.findById(chargingSession.getId());
+            if (!current.isPresent()) {
+                return chargingSession;
+            }
+            inBothTiers.add(chargingSession.getId());
+            return current.get();
+        });
+
+        return Stream.concat(archived, hot.streamAll().filter(s -> !inBothTiers.contains(s.getId())));
+    }
+
+    /**
+     * Returns the charging sessions of a station from both tiers.
+     * Time complexity is O(k), where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findByStationId(final String stationId) {
+
+        final List<ChargingSession> chargingSessions = hot.findByStationId(stationId);
+
+        archive.findByStationId(stationId)
+                .stream()
+                .filter(this::isCold)
+                .forEach(chargingSessions::add);
+
+        return chargingSessions;
+    }
+
+    /**
+     * Returns the charging sessions with the given status. Sessions in progress are never
+     * archived, so they are served from the hot tier alone.
+     *
+     * @param status Session status
+     * @return List of charging sessions
+     */
+    @Override
+    public List<ChargingSession> findAllByStatus(final StatusEnum status) {
+
+        if (status == StatusEnum.IN_PROGRESS) {
+            return hot.findAllByStatus(status);
+        }
+
+        return streamAll()
+                .filter(s -> s.getStatus() == status)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of sessions in progress of the hot tier.
+     * Time complexity is O(1).
+     *
+     * @return Number of sessions in progress
+     */
+    @Override
+    public long countActive() {
+
+        return hot.countActive();
+    }
+
+    /**
+     * Returns the number of sessions of both tiers. A session being archived is counted
+     * twice until it is removed from the hot tier.
+     * Time complexity is O(1).
+     *
+     * @return Number of charging sessions
+     */
+    @Override
+    public long count() {
+
+        return hot.size() + (long) archive.size();
+    }
+
+    /**
+     * Returns the version of the hot tier, as sessions only reach the archive by being
+     * removed from it. Archiving thus changes the version without changing the sessions.
+     * Time complexity is O(1).
+     *
+     * @return Modification version
+     */
+    @Override
+    public long getVersion() {
+
+        return hot.getVersion();
+    }
+
+    /**
+     * Background task that archives finished sessions by stop time: every one stopped
+     * before the archive age, and the oldest ones while the hot tier is over its budget.
+     * Sessions are removed from the hot tier only after their block is written.
+     */
+    @Scheduled(fixedDelayString = "${everon.archive.interval-millis:60000}")
+    public void archive() {
+
+        final long archiveBeforeNanos = clock.nanos() - archiveAfter.toNanos();
+        final int excess = hot.size() - hotBudget;
+
+        // a missing stop time is EpochNanos.NONE, the smallest value, so it sorts first
+        final List<ChargingSession> finished = hot.findAllByStatus(StatusEnum.FINISHED);
+        finished.sort(Comparator.comparingLong(ChargingSession::getStoppedAtNanos));
+
+        final List<ChargingSession> archived = new ArrayList<>();
+        for (final ChargingSession chargingSession : finished) {
+            if (archived.size() >= excess && chargingSession.getStoppedAtNanos() >= archiveBeforeNanos) {
+                break;
+            }
+            archived.add(chargingSession);
+        }
+
+        if (archived.isEmpty()) {
+            return;
+        }
+
+        archive.append(archived);
+
+        int removed = 0;
+        for (final ChargingSession chargingSession : archived) {
+            if (hot.remove(chargingSession)) {
+                removed++;
+            }
+        }
+
+        log.info("Archived {} finished sessions, {} sessions archived in total", removed, archive.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        archive.close();
+    }
+
+    private List<ChargingSession> archivePage(final UUID after, final int limit) {
+
+        final List<ChargingSession> page = new ArrayList<>();
+
+        // skip archived copies of sessions saved again, without cutting the page short
+        UUID cursor = after;
+        List<ChargingSession> batch;
+        do {
+            batch = archive.findAll(cursor, limit - page.size());
+            for (final ChargingSession chargingSession : batch) {
+                if (isCold(chargingSession)) {
+                    page.add(chargingSession);
+                }
+                cursor = chargingSession.getId();
+            }
+        } while (page.size() < limit && !batch.isEmpty());
+
+        return page;
+    }
+
+    private List<ChargingSession> archivePage(final Predicate<ChargingSession> filter,
+                                              final Comparator<ChargingSession> order, final int limit) {
+
+        try (Stream<ChargingSession> archived = archive.stream()) {
+            return archived.filter(filter)
+                    .filter(this::isCold)
+                    .sorted(order)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<ChargingSession> merge(final List<ChargingSession> hotPage, final List<ChargingSession> archivePage,
+                                               final Comparator<ChargingSession> order, final int limit) {
+
+        final List<ChargingSession> page = new ArrayList<>(Math.min(limit, hotPage.size() + archivePage.size()));
+
+        int h = 0;
+        int a = 0;
+        while (page.size() < limit && (h < hotPage.size() || a < archivePage.size())) {
+            if (a == archivePage.size()
+                    || h < hotPage.size() && order.compare(hotPage.get(h), archivePage.get(a)) < 0) {
+                page.add(hotPage.get(h++));
+            } else {
+                page.add(archivePage.get(a++));
+            }
+        }
+
+        return page;
+    }
+
+    private boolean isCold(final ChargingSession chargingSession) {
+        return !hot.findById(chargingSession.getId()).isPresent();
+    }
+}
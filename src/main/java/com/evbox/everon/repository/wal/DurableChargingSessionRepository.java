@@ -0,0 +1,352 @@
+package com.evbox.everon.repository.wal;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.evbox.everon.repository.TimeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "everon.repository.type", havingValue = "wal")
+public class DurableChargingSessionRepository implements ChargingSessionRepository {
+
+    private final InMemoryChargingSessionRepository delegate;
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+    private final boolean syncCommit;
+    private final long snapshotMinLogBytes;
+
+    /**
+     * Held shared by saves between their append and their apply, and exclusively while
+     * picking the log position of a snapshot, so every record before that position is
+     * already visible in memory.
+     */
+    private final ReadWriteLock checkpointLock;
+
+    private final ScheduledExecutorService snapshotExecutor;
+
+    private volatile long snapshotLsn;
+
+    /**
+     * Charging sessions are served from an InMemoryChargingSessionRepository, so reads
+     * keep their in-memory latency. Every save is first appended to a WriteAheadLog.
+     *
+     * With sync commit, save returns only after its record is forced to disk, sharing
+     * the fsync with concurrent saves. Without it, save returns right after the append
+     * and at most the last fsync interval is lost on a crash.
+     *
+     * On startup the latest snapshot is loaded and only the log after it is replayed.
+     * Snapshots are checked for on a dedicated thread, so writing a large one never
+     * holds up the scheduled tasks of the application.
+     *
+     * @param directory           Directory of the log segments and snapshots
+     * @param segmentSize         Size of a log segment in bytes
+     * @param fsyncInterval       Maximum time between two fsyncs
+     * @param fsyncBatchBytes     Number of pending bytes that triggers an early fsync
+     * @param syncCommit          Whether save waits for its record to be durable
+     * @param snapshotMinLogBytes Number of log bytes since the last snapshot that make a new one worthwhile
+     * @param snapshotInterval    Delay between two snapshot checks in milliseconds
+     */
+    public DurableChargingSessionRepository(
+            @Value("${everon.wal.directory:data/wal}") final String directory,
+            @Value("${everon.wal.segment-size-bytes:67108864}") final int segmentSize,
+            @Value("${everon.wal.fsync-interval-millis:10}") final long fsyncInterval,
+            @Value("${everon.wal.fsync-batch-bytes:1048576}") final long fsyncBatchBytes,
+            @Value("${everon.wal.sync-commit:false}") final boolean syncCommit,
+            @Value("${everon.snapshot.min-log-bytes:67108864}") final long snapshotMinLogBytes,
+            @Value("${everon.snapshot.interval-millis:60000}") final long snapshotInterval) {
+
+        final Path path = Paths.get(directory);
+
+        this.delegate = new InMemoryChargingSessionRepository();
+        this.syncCommit = syncCommit;
+        this.snapshotMinLogBytes = snapshotMinLogBytes;
+        this.checkpointLock = new ReentrantReadWriteLock();
+        this.snapshotStore = new SnapshotStore(path);
+        this.snapshotLsn = snapshotStore.load(delegate::save);
+        this.writeAheadLog = new WriteAheadLog(path, segmentSize, Duration.ofMillis(fsyncInterval),
+                fsyncBatchBytes, snapshotLsn, new Recovery());
+
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "wal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval, snapshotInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a create record for sessions in progress, or a stop record for finished
+     * ones, then puts the session to memory. Changes are saved as a new instance, so
+     * readers and snapshots never see a change before its record is in the log.
+     * Time complexity is O(log n) for new sessions, O(1) for updates, plus the fsync wait
+     * with sync commit.
+     *
+     * @param chargingSession Charging session
+     * @return Persisted charging session
+     */
+    @Override
+    public ChargingSession save(final ChargingSession chargingSession) {
+
+        Objects.requireNonNull(chargingSession);
+
+        final long lsn;
+        checkpointLock.readLock().lock();
+        try {
+            lsn = append(chargingSession);
+            delegate.save(chargingSession);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+
+        if (syncCommit) {
+            writeAheadLog.awaitDurable(lsn);
+        }
+
+        return chargingSession;
+    }
+
+    /**
+     * Appends and applies the charging sessions in order, waiting at most once for the
+     * last record of the batch to be durable with sync commit.
+     * Time complexity is O(b log n) for a batch of b sessions, plus one fsync wait.
+     *
+     * @param chargingSessions Charging sessions
+     * @return Persisted charging sessions
+     */
+    @Override
+    public List<ChargingSession> saveAll(final List<ChargingSession> chargingSessions) {
+
+        chargingSessions.forEach(Objects::requireNonNull);
+
+        long lsn = 0L;
+        checkpointLock.readLock().lock();
+        try {
+            for (final ChargingSession chargingSession : chargingSessions) {
+                lsn = append(chargingSession);
+                delegate.save(chargingSession);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+
+        if (syncCommit) {
+            writeAheadLog.awaitDurable(lsn);
+        }
+
+        return new ArrayList<>(chargingSessions);
+    }
+
+    private long append(final ChargingSession chargingSession) {
+
+        final UUID id = chargingSession.getId();
+
+        long lsn = 0L;
+        if (chargingSession.getStatus() == StatusEnum.IN_PROGRESS || !delegate.findById(id).isPresent()) {
+            lsn = writeAheadLog.appendCreated(id, chargingSession.getStationId(), chargingSession.getStartedAtNanos());
+        }
+        if (chargingSession.getStatus() == StatusEnum.FINISHED) {
+            lsn = writeAheadLog.appendStopped(id, chargingSession.getStoppedAtNanos());
+        }
+
+        return lsn;
+    }
+
+    @Override
+    public Optional<ChargingSession> findById(final UUID id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<ChargingSession> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<ChargingSession> findAll(final UUID after, final int limit) {
+        return delegate.findAll(after, limit);
+    }
+
+    @Override
+    public List<ChargingSession> findStartedBetween(final TimeKey after, final long toNanos, final int limit) {
+        return delegate.findStartedBetween(after, toNanos, limit);
+    }
+
+    @Override
+    public List<ChargingSession> findUpdatedAfter(final TimeKey after, final int limit) {
+        return delegate.findUpdatedAfter(after, limit);
+    }
+
+    @Override
+    public Stream<ChargingSession> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<ChargingSession> findByStationId(final String stationId) {
+        return delegate.findByStationId(stationId);
+    }
+
+    @Override
+    public List<ChargingSession> findAllByStatus(final StatusEnum status) {
+        return delegate.findAllByStatus(status);
+    }
+
+    @Override
+    public long countActive() {
+        return delegate.countActive();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    /**
+     * Background task of the snapshot thread that writes a snapshot once enough log has
+     * accumulated since the last one, then deletes the log segments it covers.
+     *
+     * Saves are only held back while the snapshot position is picked; the sessions are
+     * written while saves go on. A session changed during the write may be captured in
+     * either state, which is corrected on load by replaying the log from the snapshot
+     * position, since replaying a record is idempotent.
+     */
+    public void snapshot() {
+
+        if (writeAheadLog.getAppendedLsn() - snapshotLsn < snapshotMinLogBytes) {
+            return;
+        }
+
+        final long lsn;
+        checkpointLock.writeLock().lock();
+        try {
+            lsn = writeAheadLog.getAppendedLsn();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+
+        // the log must not restart behind the snapshot after a crash
+        writeAheadLog.awaitDurable(lsn);
+
+        snapshotStore.write(lsn, new OrderedIterator());
+        snapshotLsn = lsn;
+
+        final int truncated = writeAheadLog.truncateBefore(lsn);
+
+        log.debug("Truncated {} write-ahead log segments before position {}", truncated, lsn);
+    }
+
+    // a failed run must not cancel the next ones
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Snapshot failed, the log is kept until the next one", e);
+        }
+    }
+
+    /**
+     * Stops the snapshot thread, then forces the pending records to disk and stops the
+     * log flusher.
+     */
+    @PreDestroy
+    public void close() {
+
+        snapshotExecutor.shutdown();
+        try {
+            if (!snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Snapshot still running on shutdown, the log is replayed on restart");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeAheadLog.close();
+    }
+
+    /**
+     * Iterates the sessions page by page in id order, so a loaded snapshot fills the
+     * ordered id index with ascending inserts, which stay in cache.
+     */
+    private final class OrderedIterator implements Iterator<ChargingSession> {
+
+        private static final int PAGE_SIZE = 4096;
+
+        private List<ChargingSession> page = delegate.findAll(null, PAGE_SIZE);
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            if (index == page.size() && page.size() == PAGE_SIZE) {
+                page = delegate.findAll(page.get(PAGE_SIZE - 1).getId(), PAGE_SIZE);
+                index = 0;
+            }
+            return index < page.size();
+        }
+
+        @Override
+        public ChargingSession next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+    }
+
+    private final class Recovery implements WriteAheadLog.RecordHandler {
+
+        @Override
+        public void created(final UUID id, final String stationId, final LocalDateTime startedAt) {
+
+            final ChargingSession chargingSession = new ChargingSession();
+            chargingSession.setId(id);
+            chargingSession.setStationId(stationId);
+            chargingSession.setStartedAt(startedAt);
+            chargingSession.setUpdatedAt(startedAt);
+            chargingSession.setStatus(StatusEnum.IN_PROGRESS);
+
+            delegate.save(chargingSession);
+        }
+
+        @Override
+        public void stopped(final UUID id, final LocalDateTime stoppedAt) {
+
+            delegate.findById(id).ifPresent(chargingSession -> {
+                chargingSession.setStoppedAt(stoppedAt);
+                chargingSession.setUpdatedAt(stoppedAt);
+                chargingSession.setStatus(StatusEnum.FINISHED);
+                delegate.save(chargingSession);
+            });
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.evbox.everon.repository.wal;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.repository.ChargingSessionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Point-in-time snapshots of every charging session, each tagged with the log sequence
+ * number the write-ahead log has to be replayed from on top of it.
+ *
+ * Snapshots are written sequentially through a direct buffer to a temporary file, forced
+ * and atomically renamed, so a crash while writing leaves the previous snapshot in place.
+ * They are loaded through read-only memory mappings in a single sequential pass.
+ *
+ * File layout, big-endian:
+ * <pre>
+ * int magic | int version | long lsn
+ * (ChargingSessionCodec record)*
+ * long count | int crc32
+ * </pre>
+ */
+@Slf4j
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x45565353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = ChargingSessionCodec.MAX_ENCODED_SIZE;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long MAPPING_SIZE = 1L << 30;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    /**
+     * @param directory Directory of the snapshot files, created if missing
+     */
+    public SnapshotStore(final Path directory) {
+        this.directory = Objects.requireNonNull(directory);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create snapshot directory " + directory, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given sessions and removes the older snapshots.
+     * The sessions may keep changing while they are written, as long as every change
+     * after the given log sequence number is replayed on load.
+     *
+     * Time complexity is O(n).
+     *
+     * @param lsn      Log sequence number to replay the log from
+     * @param sessions Charging sessions
+     * @return Number of written sessions
+     */
+    public long write(final long lsn, final Iterator<ChargingSession> sessions) {
+
+        final Path target = fileOf(lsn);
+        final Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY_SUFFIX);
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final CRC32 checksum = new CRC32();
+        long count = 0L;
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(lsn);
+
+            while (sessions.hasNext()) {
+                if (buffer.remaining() < MAX_RECORD_SIZE) {
+                    drain(buffer, channel, checksum);
+                }
+                ChargingSessionCodec.write(buffer, sessions.next());
+                count++;
+            }
+
+            drain(buffer, channel, checksum);
+
+            buffer.putLong(count).putInt((int) checksum.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + target, e);
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            deleteOlderThan(lsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to publish snapshot " + target, e);
+        }
+
+        log.info("Wrote snapshot of {} sessions at position {}", count, lsn);
+
+        return count;
+    }
+
+    /**
+     * Loads the latest valid snapshot. A snapshot with a bad checksum or size is skipped
+     * in favour of an older one.
+     *
+     * Time complexity is O(n).
+     *
+     * @param consumer Receives the sessions of the snapshot
+     * @return Log sequence number to replay the log from, 0 without any snapshot
+     */
+    public long load(final Consumer<ChargingSession> consumer) {
+
+        final List<Path> snapshots = listSnapshots();
+
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            final Path snapshot = snapshots.get(i);
+            try {
+                if (isValid(snapshot)) {
+                    final long lsn = read(snapshot, consumer);
+                    log.info("Loaded snapshot {}", snapshot);
+                    return lsn;
+                }
+                log.warn("Ignoring corrupt snapshot {}", snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load snapshot " + snapshot, e);
+            }
+        }
+
+        return 0L;
+    }
+
+    private static void drain(final ByteBuffer buffer, final FileChannel channel, final CRC32 checksum)
+            throws IOException {
+
+        buffer.flip();
+
+        final ByteBuffer records = buffer.duplicate();
+        // the header is not part of the checksum
+        if (channel.position() == 0L) {
+            records.position(HEADER_SIZE);
+        }
+        checksum.update(records);
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private static boolean isValid(final Path snapshot) throws IOException {
+
+        final long size = Files.size(snapshot);
+        if (size < HEADER_SIZE + FOOTER_SIZE) {
+            return false;
+        }
+
+        final CRC32 checksum = new CRC32();
+        final int footerChecksum;
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+                return false;
+            }
+
+            final long end = size - FOOTER_SIZE;
+            for (long position = HEADER_SIZE; position < end; position += MAPPING_SIZE) {
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAPPING_SIZE, end - position)));
+            }
+
+            footerChecksum = channel.map(FileChannel.MapMode.READ_ONLY, end, FOOTER_SIZE).getInt(Long.BYTES);
+        }
+
+        return footerChecksum == (int) checksum.getValue();
+    }
+
+    private static long read(final Path snapshot, final Consumer<ChargingSession> consumer) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+
+            final long end = channel.size() - FOOTER_SIZE;
+            final long lsn = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).getLong(Integer.BYTES * 2);
+
+            long position = HEADER_SIZE;
+            while (position < end) {
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAPPING_SIZE, end - position));
+                final boolean last = position + window.capacity() == end;
+
+                // records crossing the window boundary are read again from the next window
+                while (window.hasRemaining() && (last || window.remaining() >= MAX_RECORD_SIZE)) {
+                    consumer.accept(ChargingSessionCodec.read(window));
+                }
+
+                position += window.position();
+            }
+
+            return lsn;
+        }
+    }
+
+    private void deleteOlderThan(final long lsn) throws IOException {
+        for (final Path snapshot : listSnapshots()) {
+            if (lsnOf(snapshot) < lsn) {
+                Files.delete(snapshot);
+            }
+        }
+    }
+
+    private Path fileOf(final long lsn) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+    }
+
+    private List<Path> listSnapshots() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(SnapshotStore::isSnapshot)
+                    .sorted((a, b) -> Long.compare(lsnOf(a), lsnOf(b)))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list snapshots in " + directory, e);
+        }
+    }
+
+    private static boolean isSnapshot(final Path file) {
+        final String name = file.getFileName().toString();
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static long lsnOf(final Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+}
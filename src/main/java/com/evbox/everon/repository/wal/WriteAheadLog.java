@@ -0,0 +1,577 @@
+package com.evbox.everon.repository.wal;
+
+import com.evbox.everon.repository.ChargingSessionCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of charging session create and stop records, written to memory-mapped
+ * segment files.
+ *
+ * Appending only copies the encoded record into the mapped segment under a short lock.
+ * A background flusher forces the written pages to disk every fsync interval, or as soon
+ * as a batch of bytes is pending or a caller waits for durability, so concurrent writers
+ * share a single fsync (group commit).
+ *
+ * Record layout, big-endian:
+ * <pre>
+ * int length | int crc32 | byte type | long idMsb | long idLsb | long epochNanos [| short n | n bytes stationId]
+ * </pre>
+ * The station id is only present on create records. A zero length marks the end of the
+ * written part of a segment; a record with a bad checksum is treated as a torn write and
+ * ends the log.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    static final byte CREATED = 1;
+    static final byte STOPPED = 2;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int STOPPED_PAYLOAD_SIZE = 1 + Long.BYTES * 3;
+    private static final int CREATED_PAYLOAD_SIZE = STOPPED_PAYLOAD_SIZE + Short.BYTES;
+    private static final int MAX_STATION_ID_BYTES = 0xFFFF;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long fsyncIntervalMillis;
+    private final long fsyncBatchBytes;
+
+    private final Object appendLock = new Object();
+    private final Object commitMonitor = new Object();
+    private final CRC32 checksum = new CRC32();
+
+    // guarded by appendLock
+    private MappedByteBuffer segment;
+    private long segmentBase;
+    private long appendedLsn;
+    private final List<MappedByteBuffer> unforcedSegments = new ArrayList<>();
+
+    // guarded by commitMonitor
+    private boolean flushRequested;
+
+    private volatile long durableLsn;
+    private volatile boolean running;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    /**
+     * Opens the log in the given directory, replays every valid record to the handler and
+     * starts the background flusher.
+     *
+     * @param directory       Directory of the segment files, created if missing
+     * @param segmentSize     Size of a new segment file in bytes
+     * @param fsyncInterval   Maximum time written records stay unforced
+     * @param fsyncBatchBytes Number of pending bytes that triggers an early fsync
+     * @param handler         Receives the recovered records in log order
+     */
+    public WriteAheadLog(final Path directory, final int segmentSize, final Duration fsyncInterval,
+                         final long fsyncBatchBytes, final RecordHandler handler) {
+        this(directory, segmentSize, fsyncInterval, fsyncBatchBytes, 0L, handler);
+    }
+
+    /**
+     * Opens the log in the given directory, replays the records from the given log
+     * sequence number on to the handler and starts the background flusher.
+     *
+     * @param directory       Directory of the segment files, created if missing
+     * @param segmentSize     Size of a new segment file in bytes
+     * @param fsyncInterval   Maximum time written records stay unforced
+     * @param fsyncBatchBytes Number of pending bytes that triggers an early fsync
+     * @param replayFrom      Log sequence number of the first record to replay
+     * @param handler         Receives the recovered records in log order
+     */
+    public WriteAheadLog(final Path directory, final int segmentSize, final Duration fsyncInterval,
+                         final long fsyncBatchBytes, final long replayFrom, final RecordHandler handler) {
+
+        this.directory = Objects.requireNonNull(directory);
+        this.segmentSize = segmentSize;
+        this.fsyncIntervalMillis = Math.max(1L, fsyncInterval.toMillis());
+        this.fsyncBatchBytes = fsyncBatchBytes;
+
+        try {
+            Files.createDirectories(directory);
+            recover(replayFrom, Objects.requireNonNull(handler));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log in " + directory, e);
+        }
+
+        this.running = true;
+        this.flusher = new Thread(this::runFlusher, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a create record.
+     *
+     * @param id        Session id
+     * @param stationId Station id
+     * @param startedAt Start time
+     * @return Log sequence number right after the record
+     */
+    public long appendCreated(final UUID id, final String stationId, final LocalDateTime startedAt) {
+        return appendCreated(id, stationId, ChargingSessionCodec.toEpochNanos(startedAt));
+    }
+
+    /**
+     * Appends a create record.
+     *
+     * @param id             Session id
+     * @param stationId      Station id
+     * @param startedAtNanos Start time as EpochNanos
+     * @return Log sequence number right after the record
+     */
+    public long appendCreated(final UUID id, final String stationId, final long startedAtNanos) {
+
+        final byte[] station = stationId.getBytes(StandardCharsets.UTF_8);
+        if (station.length > MAX_STATION_ID_BYTES) {
+            throw new IllegalArgumentException("Station id is too long: " + station.length + " bytes");
+        }
+
+        final long lsn;
+        synchronized (appendLock) {
+            final ByteBuffer buffer = reserve(CREATED_PAYLOAD_SIZE + station.length);
+            final int start = buffer.position();
+
+            buffer.position(start + HEADER_SIZE);
+            putPayload(buffer, CREATED, id, startedAtNanos);
+            buffer.putShort((short) station.length);
+            buffer.put(station);
+
+            lsn = seal(buffer, start);
+        }
+
+        requestFlushIfBatchIsFull(lsn);
+
+        return lsn;
+    }
+
+    /**
+     * Appends a stop record.
+     *
+     * @param id        Session id
+     * @param stoppedAt Stop time
+     * @return Log sequence number right after the record
+     */
+    public long appendStopped(final UUID id, final LocalDateTime stoppedAt) {
+        return appendStopped(id, ChargingSessionCodec.toEpochNanos(stoppedAt));
+    }
+
+    /**
+     * Appends a stop record.
+     *
+     * @param id             Session id
+     * @param stoppedAtNanos Stop time as EpochNanos
+     * @return Log sequence number right after the record
+     */
+    public long appendStopped(final UUID id, final long stoppedAtNanos) {
+
+        final long lsn;
+        synchronized (appendLock) {
+            final ByteBuffer buffer = reserve(STOPPED_PAYLOAD_SIZE);
+            final int start = buffer.position();
+
+            buffer.position(start + HEADER_SIZE);
+            putPayload(buffer, STOPPED, id, stoppedAtNanos);
+
+            lsn = seal(buffer, start);
+        }
+
+        requestFlushIfBatchIsFull(lsn);
+
+        return lsn;
+    }
+
+    /**
+     * Blocks until every record up to the given log sequence number is forced to disk.
+     * Concurrent callers are served by the same fsync.
+     *
+     * @param lsn Log sequence number returned by an append
+     * @throws IllegalStateException If the log was closed before the record was forced
+     */
+    public void awaitDurable(final long lsn) {
+
+        if (durableLsn >= lsn) {
+            return;
+        }
+
+        synchronized (commitMonitor) {
+            flushRequested = true;
+            commitMonitor.notifyAll();
+
+            while (durableLsn < lsn && !closed) {
+                try {
+                    commitMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+                }
+            }
+        }
+
+        // a closed log that failed its last flush must not acknowledge the record
+        if (durableLsn < lsn) {
+            throw new IllegalStateException("Write-ahead log was closed before position " + lsn + " was durable");
+        }
+    }
+
+    /**
+     * @return Log sequence number of the end of the last appended record
+     */
+    public long getAppendedLsn() {
+        synchronized (appendLock) {
+            return appendedLsn;
+        }
+    }
+
+    /**
+     * @return Log sequence number up to which records are forced to disk
+     */
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * Stops the flusher after forcing every appended record to disk. Callers still waiting
+     * for durability are released, and fail if the last flush did not cover their record.
+     */
+    @Override
+    public void close() {
+
+        running = false;
+
+        synchronized (commitMonitor) {
+            commitMonitor.notifyAll();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            flush();
+        } finally {
+            synchronized (commitMonitor) {
+                closed = true;
+                commitMonitor.notifyAll();
+            }
+        }
+    }
+
+    private ByteBuffer reserve(final int payloadSize) {
+
+        final int recordSize = HEADER_SIZE + payloadSize;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + recordSize + " bytes does not fit a segment");
+        }
+
+        if (segment.remaining() < recordSize) {
+            unforcedSegments.add(segment);
+            final long nextBase = segmentBase + segment.capacity();
+            segment = mapSegment(nextBase, segmentSize);
+            segmentBase = nextBase;
+        }
+
+        return segment;
+    }
+
+    private long seal(final ByteBuffer buffer, final int start) {
+
+        final int end = buffer.position();
+        final int payloadStart = start + HEADER_SIZE;
+
+        final ByteBuffer payload = buffer.duplicate();
+        payload.position(payloadStart);
+        payload.limit(end);
+
+        checksum.reset();
+        checksum.update(payload);
+
+        buffer.putInt(start + Integer.BYTES, (int) checksum.getValue());
+        // the length is written last, so a reader never sees a record without its checksum
+        buffer.putInt(start, end - payloadStart);
+
+        appendedLsn = segmentBase + end;
+
+        return appendedLsn;
+    }
+
+    private void requestFlushIfBatchIsFull(final long lsn) {
+
+        if (lsn - durableLsn < fsyncBatchBytes) {
+            return;
+        }
+
+        synchronized (commitMonitor) {
+            flushRequested = true;
+            commitMonitor.notifyAll();
+        }
+    }
+
+    private void runFlusher() {
+
+        while (running) {
+            synchronized (commitMonitor) {
+                if (!flushRequested && running) {
+                    try {
+                        commitMonitor.wait(fsyncIntervalMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                flushRequested = false;
+            }
+
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Failed to force write-ahead log to disk", e);
+            }
+        }
+    }
+
+    private void flush() {
+
+        final List<MappedByteBuffer> segments;
+        final long target;
+        synchronized (appendLock) {
+            target = appendedLsn;
+            segments = new ArrayList<>(unforcedSegments);
+            segments.add(segment);
+            unforcedSegments.clear();
+        }
+
+        if (target <= durableLsn) {
+            return;
+        }
+
+        for (final MappedByteBuffer mapped : segments) {
+            mapped.force();
+        }
+
+        synchronized (commitMonitor) {
+            durableLsn = target;
+            commitMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records before the given log sequence number,
+     * once they are covered by a snapshot. The segment being appended to is kept.
+     *
+     * @param lsn Log sequence number the log is replayed from
+     * @return Number of deleted segments
+     */
+    public int truncateBefore(final long lsn) {
+
+        final long currentBase;
+        synchronized (appendLock) {
+            currentBase = segmentBase;
+        }
+
+        int deleted = 0;
+        try {
+            for (final Path file : listSegments()) {
+                final long base = baseOf(file);
+                if (base < currentBase && base + Files.size(file) <= lsn) {
+                    Files.delete(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate write-ahead log in " + directory, e);
+        }
+
+        return deleted;
+    }
+
+    private void recover(final long replayFrom, final RecordHandler handler) throws IOException {
+
+        final List<Path> segmentFiles = listSegments();
+
+        if (segmentFiles.isEmpty()) {
+            segment = mapSegment(replayFrom, segmentSize);
+            segmentBase = replayFrom;
+            appendedLsn = replayFrom;
+            durableLsn = replayFrom;
+            return;
+        }
+
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            final Path file = segmentFiles.get(i);
+            final long base = baseOf(file);
+            final boolean last = i == segmentFiles.size() - 1;
+            final long size = Files.size(file);
+
+            if (!last && base + size <= replayFrom) {
+                continue;
+            }
+
+            final MappedByteBuffer mapped = mapSegment(base, (int) size);
+            final int from = (int) Math.min(size, Math.max(0L, replayFrom - base));
+
+            final int end = replaySegment(mapped, from, handler);
+
+            if (end < 0 && !last) {
+                log.warn("Torn record in {}, ignoring the rest of the segment", file);
+            }
+
+            if (last) {
+                if (end < 0) {
+                    // stale records after the torn one could line up with new appends and replay
+                    log.warn("Torn record in {} at position {}, clearing the rest of the segment", file, ~end);
+                    clear(mapped, ~end);
+                }
+                mapped.position(end < 0 ? ~end : end);
+                segment = mapped;
+                segmentBase = base;
+            }
+        }
+
+        appendedLsn = segmentBase + segment.position();
+        durableLsn = appendedLsn;
+
+        log.info("Recovered write-ahead log from {} segments up to position {}", segmentFiles.size(), appendedLsn);
+    }
+
+    private static void clear(final MappedByteBuffer buffer, final int from) {
+
+        final byte[] zeros = new byte[Math.min(8192, buffer.capacity())];
+        final ByteBuffer tail = buffer.duplicate();
+        tail.position(from);
+        while (tail.hasRemaining()) {
+            tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+        }
+
+        buffer.force();
+    }
+
+    /**
+     * Replays the records of a segment from the given record boundary.
+     *
+     * @return End of the valid records, complemented if a torn record was found
+     */
+    private static int replaySegment(final ByteBuffer buffer, final int from, final RecordHandler handler) {
+
+        final CRC32 crc = new CRC32();
+        int position = from;
+
+        while (buffer.capacity() - position >= HEADER_SIZE) {
+            final int length = buffer.getInt(position);
+            if (length == 0) {
+                return position;
+            }
+
+            final int payloadStart = position + HEADER_SIZE;
+            if (length < STOPPED_PAYLOAD_SIZE || length > buffer.capacity() - payloadStart) {
+                return ~position;
+            }
+
+            final ByteBuffer payload = buffer.duplicate();
+            payload.position(payloadStart);
+            payload.limit(payloadStart + length);
+
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                return ~position;
+            }
+
+            dispatch(payload, handler);
+            position = payloadStart + length;
+        }
+
+        return position;
+    }
+
+    private static void dispatch(final ByteBuffer payload, final RecordHandler handler) {
+
+        final byte type = payload.get();
+        final UUID id = new UUID(payload.getLong(), payload.getLong());
+        final LocalDateTime timestamp = ChargingSessionCodec.fromEpochNanos(payload.getLong());
+
+        if (type == CREATED) {
+            final byte[] station = new byte[payload.getShort() & MAX_STATION_ID_BYTES];
+            payload.get(station);
+            handler.created(id, new String(station, StandardCharsets.UTF_8), timestamp);
+        } else if (type == STOPPED) {
+            handler.stopped(id, timestamp);
+        } else {
+            throw new IllegalStateException("Unknown write-ahead log record type " + type);
+        }
+    }
+
+    private static void putPayload(final ByteBuffer buffer, final byte type, final UUID id,
+                                   final long epochNanos) {
+        buffer.put(type);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.putLong(epochNanos);
+    }
+
+    private MappedByteBuffer mapSegment(final long base, final int size) {
+
+        final Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map write-ahead log segment " + file, e);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(WriteAheadLog::isSegment)
+                    .sorted((a, b) -> Long.compare(baseOf(a), baseOf(b)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isSegment(final Path file) {
+        final String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long baseOf(final Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Receives recovered records in log order.
+     */
+    public interface RecordHandler {
+
+        void created(UUID id, String stationId, LocalDateTime startedAt);
+
+        void stopped(UUID id, LocalDateTime stoppedAt);
+    }
+}
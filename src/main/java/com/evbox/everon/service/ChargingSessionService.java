@@ -1,19 +1,38 @@
 package com.evbox.everon.service;
 
+import com.evbox.everon.engine.CommandExecutor;
+import com.evbox.everon.engine.EpochClock;
+import com.evbox.everon.engine.SessionIdGenerator;
 import com.evbox.everon.errorhandling.ResourceNotFoundException;
 import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
 import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.Uuids;
+import com.evbox.everon.model.dto.ChargingSessionBatchResult;
+import com.evbox.everon.model.dto.ChargingSessionPage;
 import com.evbox.everon.model.dto.ChargingSessionResponse;
 import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.TimeKey;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -22,12 +41,30 @@ public class ChargingSessionService {
 
     private final ChargingSessionRepository repository;
     private final ChargingSessionStatisticsService chargingSessionStatisticsService;
+    private final CommandExecutor commandExecutor;
+    private final MeterRegistry meterRegistry;
+    private final EpochClock clock;
+    private final SessionIdGenerator idGenerator;
+
+    private final Function<String, ChargingSessionResponse> createCommand = this::create;
+    private final Function<String, ChargingSessionResponse> stopCommand = this::stop;
+    private final Function<List<String>, List<ChargingSessionBatchResult>> createAllCommand = this::createAll;
+    private final Function<List<String>, List<ChargingSessionBatchResult>> stopAllCommand = this::stopAll;
+    private final Function<String, List<ChargingSessionResponse>> stopAllByStationCommand = this::stopAllByStation;
+
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 5000;
+
+    static final String FAILED_STOPS = "everon.sessions.stop.failed";
+    static final String INVALID_ID = "invalid_id";
+    static final String NOT_FOUND = "not_found";
+
+    private static final String TIME_CURSOR_SEPARATOR = "_";
 
     /**
      * Creates new charging session for the given station id.
      *
-     * Operates at O(log n) time complexity due to sending
-     * stared event to ChargingSessionStatisticsService.
+     * Operates at O(1) time complexity.
      *
      * @param stationId Station Id
      * @return Charging session response DTO
@@ -38,33 +75,114 @@ public class ChargingSessionService {
 
         final ChargingSession chargingSession = repository.save(createSession(stationId));
 
-        chargingSessionStatisticsService.started(chargingSession.getStartedAt());
+        chargingSessionStatisticsService.started(stationId);
 
-        log.info("New session is created for station {}, with id {}", stationId, chargingSession.getId());
+        log.debug("New session is created for station {}, with id {}", stationId, chargingSession.getId());
 
         return ChargingSessionResponse.from(chargingSession);
     }
 
     private ChargingSession createSession(final String stationId) {
 
-        final LocalDateTime startedAt = LocalDateTime.now();
-        final UUID uuid = UUID.randomUUID();
+        final long startedAt = clock.nanos();
 
         final ChargingSession chargingSession = new ChargingSession();
-        chargingSession.setId(uuid);
+        chargingSession.setId(idGenerator.next());
         chargingSession.setStationId(stationId);
-        chargingSession.setStartedAt(startedAt);
-        chargingSession.setUpdatedAt(startedAt);
+        chargingSession.setStartedAtNanos(startedAt);
+        chargingSession.setUpdatedAtNanos(startedAt);
         chargingSession.setStatus(StatusEnum.IN_PROGRESS);
 
         return chargingSession;
     }
 
+    /**
+     * Creates new charging session for the given station id through the command executor,
+     * which applies it on the calling thread or on a single writer thread.
+     *
+     * Operates at O(1) time complexity.
+     *
+     * @param stationId Station Id
+     * @return Future charging session response DTO
+     */
+    public CompletableFuture<ChargingSessionResponse> createAsync(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        return commandExecutor.execute(createCommand, stationId);
+    }
+
+    /**
+     * Creates a charging session for every given station id, saving them to the
+     * repository and recording them in the statistics once for the whole batch.
+     * A blank station id fails its own item only.
+     *
+     * Operates at O(b) time complexity for a batch of b station ids.
+     *
+     * @param stationIds Station Ids, at most MAX_BATCH_SIZE
+     * @return Result per station id, in order
+     */
+    public List<ChargingSessionBatchResult> createAll(final List<String> stationIds) {
+
+        checkBatchSize(stationIds);
+
+        final ChargingSessionBatchResult[] results = new ChargingSessionBatchResult[stationIds.size()];
+        final List<ChargingSession> created = new ArrayList<>(stationIds.size());
+        final List<String> createdStationIds = new ArrayList<>(stationIds.size());
+
+        for (int i = 0; i < results.length; i++) {
+            final String stationId = stationIds.get(i);
+            if (stationId == null || stationId.trim().isEmpty()) {
+                results[i] = ChargingSessionBatchResult.error(HttpStatus.BAD_REQUEST, "stationId, must not be blank");
+                continue;
+            }
+
+            final ChargingSession chargingSession = createSession(stationId);
+            created.add(chargingSession);
+            createdStationIds.add(stationId);
+            results[i] = ChargingSessionBatchResult.of(ChargingSessionResponse.from(chargingSession));
+        }
+
+        repository.saveAll(created);
+
+        chargingSessionStatisticsService.started(createdStationIds);
+
+        log.info("{} new sessions are created in a batch of {}", created.size(), results.length);
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Creates a charging session for every given station id through the command executor,
+     * as one command, so the whole batch is applied by the same thread as single creates
+     * and stops.
+     *
+     * Operates at O(b) time complexity for a batch of b station ids.
+     *
+     * @param stationIds Station Ids, at most MAX_BATCH_SIZE
+     * @return Future result per station id, in order
+     * @throws IllegalArgumentException If the batch is empty or too large
+     */
+    public CompletableFuture<List<ChargingSessionBatchResult>> createAllAsync(final List<String> stationIds) {
+
+        checkBatchSize(stationIds);
+
+        return commandExecutor.execute(createAllCommand, stationIds);
+    }
+
+    private static void checkBatchSize(final List<String> items) {
+
+        Objects.requireNonNull(items);
+
+        if (items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+    }
+
     /**
      * Stops a charging session by the given session id.
      *
-     * Operates at O(log n) time complexity due to sending
-     * stopped event to ChargingSessionStatisticsService.
+     * Operates at O(1) time complexity.
      *
      * @param id Session Id
      * @return Charging session response DTO
@@ -73,30 +191,189 @@ public class ChargingSessionService {
 
         Objects.requireNonNull(id);
 
-        final UUID uuid = UUID.fromString(id);
+        final UUID uuid;
+        try {
+            uuid = Uuids.parse(id);
+        } catch (IllegalArgumentException e) {
+            countFailedStop(INVALID_ID);
+            throw e;
+        }
+
+        // no capturing lambdas, which would be allocated on every stop
+        final ChargingSession chargingSession = repository.findById(uuid).orElse(null);
+        if (chargingSession == null || chargingSession.getStatus() != StatusEnum.IN_PROGRESS) {
+            countFailedStop(NOT_FOUND);
+            throw new ResourceNotFoundException("No active session found with id: " + id);
+        }
 
-        final ChargingSession chargingSession = repository.findById(uuid)
+        return ChargingSessionResponse.from(stopSession(chargingSession));
+    }
+
+    /**
+     * Stops a charging session by the given session id through the command executor,
+     * which applies it on the calling thread or on a single writer thread.
+     *
+     * Operates at O(1) time complexity.
+     *
+     * @param id Session Id
+     * @return Future charging session response DTO, failed with ResourceNotFoundException
+     * if there is no active session with the id
+     */
+    public CompletableFuture<ChargingSessionResponse> stopAsync(final String id) {
+
+        Objects.requireNonNull(id);
+
+        return commandExecutor.execute(stopCommand, id);
+    }
+
+    /**
+     * Stops the charging sessions of every given session id, saving them to the
+     * repository and recording them in the statistics once for the whole batch.
+     * An invalid, unknown, finished or repeated id fails its own item only.
+     *
+     * Operates at O(b) time complexity for a batch of b session ids.
+     *
+     * @param ids Session Ids, at most MAX_BATCH_SIZE
+     * @return Result per session id, in order
+     */
+    public List<ChargingSessionBatchResult> stopAll(final List<String> ids) {
+
+        checkBatchSize(ids);
+
+        final ChargingSessionBatchResult[] results = new ChargingSessionBatchResult[ids.size()];
+        final List<ChargingSession> stopped = new ArrayList<>(ids.size());
+        final List<String> stoppedStationIds = new ArrayList<>(ids.size());
+        final Set<UUID> seen = new HashSet<>();
+
+        for (int i = 0; i < results.length; i++) {
+            final String id = ids.get(i);
+
+            final UUID uuid;
+            try {
+                uuid = Uuids.parse(Objects.requireNonNull(id, "id must not be null"));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                countFailedStop(INVALID_ID);
+                results[i] = ChargingSessionBatchResult.error(HttpStatus.BAD_REQUEST, e.getMessage());
+                continue;
+            }
+
+            final Optional<ChargingSession> active = repository.findById(uuid)
+                    .filter(s -> s.getStatus() == StatusEnum.IN_PROGRESS);
+            if (!active.isPresent() || !seen.add(uuid)) {
+                countFailedStop(NOT_FOUND);
+                results[i] = ChargingSessionBatchResult.error(HttpStatus.NOT_FOUND, "No active session found with id: " + id);
+                continue;
+            }
+
+            final ChargingSession chargingSession = finishSession(active.get());
+            stopped.add(chargingSession);
+            stoppedStationIds.add(chargingSession.getStationId());
+            results[i] = ChargingSessionBatchResult.of(ChargingSessionResponse.from(chargingSession));
+        }
+
+        repository.saveAll(stopped);
+
+        chargingSessionStatisticsService.stopped(stoppedStationIds);
+
+        log.info("{} sessions are stopped in a batch of {}", stopped.size(), results.length);
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Stops the charging sessions of every given session id through the command executor,
+     * as one command, so the whole batch is applied by the same thread as single creates
+     * and stops.
+     *
+     * Operates at O(b) time complexity for a batch of b session ids.
+     *
+     * @param ids Session Ids, at most MAX_BATCH_SIZE
+     * @return Future result per session id, in order
+     * @throws IllegalArgumentException If the batch is empty or too large
+     */
+    public CompletableFuture<List<ChargingSessionBatchResult>> stopAllAsync(final List<String> ids) {
+
+        checkBatchSize(ids);
+
+        return commandExecutor.execute(stopAllCommand, ids);
+    }
+
+    /**
+     * Stops all active charging sessions of the given station, e.g. after a station reboot.
+     *
+     * Operates at O(k) time complexity, where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return Stopped charging sessions
+     */
+    public List<ChargingSessionResponse> stopAllByStation(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        final List<ChargingSessionResponse> stopped = repository.findByStationId(stationId)
+                .stream()
                 .filter(s -> s.getStatus() == StatusEnum.IN_PROGRESS)
-                .orElseThrow(() -> new ResourceNotFoundException("No active session found with id: " + id));
+                .map(this::stopSession)
+                .map(ChargingSessionResponse::from)
+                .collect(Collectors.toList());
+
+        log.info("{} sessions of station {} are stopped.", stopped.size(), stationId);
+
+        return stopped;
+    }
+
+    /**
+     * Stops all active charging sessions of the given station through the command
+     * executor, as one command, so no create or stop of the station interleaves with it.
+     *
+     * Operates at O(k) time complexity, where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return Future stopped charging sessions
+     */
+    public CompletableFuture<List<ChargingSessionResponse>> stopAllByStationAsync(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        return commandExecutor.execute(stopAllByStationCommand, stationId);
+    }
 
-        finishSession(chargingSession);
+    private ChargingSession stopSession(final ChargingSession activeSession) {
+
+        final ChargingSession chargingSession = finishSession(activeSession);
 
         repository.save(chargingSession);
 
-        chargingSessionStatisticsService.stopped(chargingSession.getStoppedAt());
+        chargingSessionStatisticsService.stopped(chargingSession.getStationId());
 
-        log.info("Session with id {} is stopped.", chargingSession.getId());
+        log.debug("Session with id {} is stopped.", chargingSession.getId());
 
-        return ChargingSessionResponse.from(chargingSession);
+        return chargingSession;
     }
 
-    private void finishSession(final ChargingSession chargingSession) {
+    /**
+     * Finishes a copy of the session, as the stored one may be shared with readers: the
+     * stop only becomes visible once the repository saves the copy, after logging it.
+     */
+    private ChargingSession finishSession(final ChargingSession activeSession) {
 
-        final LocalDateTime stoppedAt = LocalDateTime.now();
+        final long stoppedAt = clock.nanos();
 
+        final ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(activeSession.getId());
+        chargingSession.setStationId(activeSession.getStationId());
+        chargingSession.setStartedAtNanos(activeSession.getStartedAtNanos());
         chargingSession.setStatus(StatusEnum.FINISHED);
-        chargingSession.setUpdatedAt(stoppedAt);
-        chargingSession.setStoppedAt(stoppedAt);
+        chargingSession.setUpdatedAtNanos(stoppedAt);
+        chargingSession.setStoppedAtNanos(stoppedAt);
+
+        return chargingSession;
+    }
+
+    private void countFailedStop(final String reason) {
+
+        // looked up on failure only, so successful stops do not pay for the counter
+        meterRegistry.counter(FAILED_STOPS, "reason", reason).increment();
     }
 
     /**
@@ -114,4 +391,227 @@ public class ChargingSessionService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Gets all charging sessions of the given station.
+     *
+     * Operates at O(k) time complexity, where k is the number of sessions of the station.
+     *
+     * @param stationId Station Id
+     * @return List of charging sessions
+     */
+    public List<ChargingSessionResponse> getAllByStation(final String stationId) {
+
+        Objects.requireNonNull(stationId);
+
+        return repository.findByStationId(stationId)
+                .stream()
+                .map(ChargingSessionResponse::from)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets all charging sessions with the given status.
+     *
+     * Operates at O(a) time complexity for sessions in progress, where a is the number
+     * of active sessions, and at O(n) for finished sessions.
+     *
+     * @param status Session status
+     * @return List of charging sessions
+     */
+    public List<ChargingSessionResponse> getAllByStatus(final StatusEnum status) {
+
+        Objects.requireNonNull(status);
+
+        return repository.findAllByStatus(status)
+                .stream()
+                .map(ChargingSessionResponse::from)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets a page of charging sessions ordered by id, with the id of its last session as
+     * the cursor of the next page if there is one.
+     *
+     * Operates at O(log n + limit) time complexity.
+     *
+     * @param cursor Id of the last session of the previous page, or null for the first page
+     * @param limit  Page size, between 1 and MAX_PAGE_SIZE
+     * @return Page of charging sessions
+     */
+    public ChargingSessionPage getPage(final String cursor, final int limit) {
+
+        return getPage(cursor == null ? null : Uuids.parse(cursor), limit);
+    }
+
+    private ChargingSessionPage getPage(final UUID after, final int limit) {
+
+        checkLimit(limit);
+
+        return toPage(repository.findAll(after, limit + 1), chargingSession -> chargingSession.getId().toString(), limit);
+    }
+
+    /**
+     * Gets the first page of the charging sessions created since the given time, ordered
+     * by id. Later pages continue with getPage from its cursor.
+     *
+     * Operates at O(log n + limit) time complexity, as a range scan over the ids.
+     *
+     * @param since Creation time
+     * @param limit Page size, between 1 and MAX_PAGE_SIZE
+     * @return Page of charging sessions
+     * @throws IllegalArgumentException If session ids are not time ordered
+     */
+    public ChargingSessionPage getPageCreatedSince(final Instant since, final int limit) {
+
+        Objects.requireNonNull(since);
+
+        if (!idGenerator.isTimeOrdered()) {
+            throw new IllegalArgumentException("Session ids are not time ordered, set everon.session-id.type=time-ordered");
+        }
+
+        return getPage(idGenerator.createdBefore(since), limit);
+    }
+
+    /**
+     * Gets a page of the charging sessions started in the given range, or updated since
+     * the given time, which cannot be combined.
+     *
+     * Operates at O(log n + limit) time complexity with a time index in the repository.
+     *
+     * @param startedFrom  Inclusive start of the start times, or null
+     * @param startedTo    Exclusive end of the start times, or null
+     * @param updatedSince Inclusive update time, or null
+     * @param cursor       Next cursor of the previous page, or null for the first page
+     * @param limit        Page size, between 1 and MAX_PAGE_SIZE
+     * @return Page of charging sessions
+     */
+    public ChargingSessionPage getPageByTime(final LocalDateTime startedFrom, final LocalDateTime startedTo,
+                                             final LocalDateTime updatedSince, final String cursor, final int limit) {
+
+        if (updatedSince == null) {
+            return getPageStartedBetween(startedFrom, startedTo, cursor, limit);
+        }
+
+        if (startedFrom != null || startedTo != null) {
+            throw new IllegalArgumentException("updatedSince cannot be combined with startedFrom or startedTo");
+        }
+
+        return getPageUpdatedSince(updatedSince, cursor, limit);
+    }
+
+    /**
+     * Gets a page of the charging sessions started in the given range, ordered by start
+     * time and id.
+     *
+     * Operates at O(log n + limit) time complexity with a time index in the repository.
+     *
+     * @param from   Inclusive start of the range, or null for no start
+     * @param to     Exclusive end of the range, or null for no end
+     * @param cursor Next cursor of the previous page, or null for the first page
+     * @param limit  Page size, between 1 and MAX_PAGE_SIZE
+     * @return Page of charging sessions
+     */
+    public ChargingSessionPage getPageStartedBetween(final LocalDateTime from, final LocalDateTime to,
+                                                     final String cursor, final int limit) {
+
+        checkLimit(limit);
+
+        final TimeKey after = cursor == null
+                ? TimeKey.before(from == null ? Long.MIN_VALUE : EpochNanos.of(from))
+                : parseTimeCursor(cursor);
+        final long toNanos = to == null ? Long.MAX_VALUE : EpochNanos.of(to);
+
+        return toPage(repository.findStartedBetween(after, toNanos, limit + 1),
+                chargingSession -> formatTimeCursor(TimeKey.startedAt(chargingSession)), limit);
+    }
+
+    /**
+     * Gets a page of the charging sessions updated since the given time, ordered by update
+     * time and id. A session updated again after it was listed is listed again on a
+     * later page.
+     *
+     * Operates at O(log n + limit) time complexity with a time index in the repository.
+     *
+     * @param since  Inclusive update time
+     * @param cursor Next cursor of the previous page, or null for the first page
+     * @param limit  Page size, between 1 and MAX_PAGE_SIZE
+     * @return Page of charging sessions
+     */
+    public ChargingSessionPage getPageUpdatedSince(final LocalDateTime since, final String cursor, final int limit) {
+
+        Objects.requireNonNull(since);
+        checkLimit(limit);
+
+        final TimeKey after = cursor == null ? TimeKey.before(EpochNanos.of(since)) : parseTimeCursor(cursor);
+
+        return toPage(repository.findUpdatedAfter(after, limit + 1),
+                chargingSession -> formatTimeCursor(TimeKey.updatedAt(chargingSession)), limit);
+    }
+
+    // the sessions are read with one more than the limit, which tells whether a next page exists
+    private static ChargingSessionPage toPage(final List<ChargingSession> chargingSessions,
+                                              final Function<ChargingSession, String> cursor, final int limit) {
+
+        final int size = Math.min(chargingSessions.size(), limit);
+        final List<ChargingSessionResponse> sessions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sessions.add(ChargingSessionResponse.from(chargingSessions.get(i)));
+        }
+
+        final String nextCursor = chargingSessions.size() > limit ? cursor.apply(chargingSessions.get(limit - 1)) : null;
+
+        return new ChargingSessionPage(sessions, nextCursor);
+    }
+
+    private static String formatTimeCursor(final TimeKey key) {
+        return key.getEpochNanos() + TIME_CURSOR_SEPARATOR + key.getId();
+    }
+
+    private static TimeKey parseTimeCursor(final String cursor) {
+
+        final int separator = cursor.indexOf(TIME_CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        try {
+            return new TimeKey(Long.parseLong(cursor.substring(0, separator)), Uuids.parse(cursor.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static void checkLimit(final int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Streams all charging sessions without materializing them.
+     *
+     * Operates at O(n) time complexity and O(1) memory. The stream must be closed.
+     *
+     * @return Stream of charging sessions
+     */
+    public Stream<ChargingSessionResponse> streamAll() {
+
+        return repository.streamAll()
+                .map(ChargingSessionResponse::from);
+    }
+
+    /**
+     * Returns the modification version of the repository, to be read before the sessions
+     * so it never claims a newer state than they show.
+     *
+     * Operates at O(1) time complexity.
+     *
+     * @return Modification version of the charging sessions
+     */
+    public long getVersion() {
+
+        return repository.getVersion();
+    }
+
 }
@@ -1,91 +1,320 @@
 package com.evbox.everon.service;
 
+import com.evbox.everon.model.ChargingSession;
 import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.statistics.HierarchicalTimeWheel;
+import com.evbox.everon.statistics.StationWindowCounters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
 
 @Service
 @Slf4j
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "false", matchIfMissing = true)
 public class ChargingSessionStatisticsService {
 
-    private final Queue<LocalDateTime> startedQueue;
-    private final Queue<LocalDateTime> stoppedQueue;
+    private final HierarchicalTimeWheel startedCounter;
+    private final HierarchicalTimeWheel stoppedCounter;
+    private final StationWindowCounters stationCounters;
+    private final ChargingSessionRepository repository;
+    private final LongSupplier ticker;
+    private final long origin;
+    private final Timer evictionTimer;
 
+    private static final int SECONDS_IN_A_MINUTE = 60;
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1L);
     private static final Duration ONE_MINUTE = Duration.ofMinutes(1L);
+    private static final Duration ONE_DAY = Duration.ofDays(1L);
 
     /**
-     * PriorityBlockingQueue is used as a thread-safe Priority Queue implementation.
-     * Offers O(log n) time complexity for both offer and poll operations, O(1) for
-     * size.
+     * Events are counted in striped rings of one second, one minute and one hour buckets,
+     * covering the last minute, hour and day. Recording is O(1) and allocation-free, expired
+     * buckets are overwritten in place so no background sweep is needed. Time is measured
+     * with the monotonic System.nanoTime, so wall clock changes do not affect the windows.
+     *
+     * Every station additionally gets its own unstriped one minute ring, aligned with the
+     * global one.
+     *
+     * The number of active sessions is not windowed; it is read from the repository.
+     *
+     * Buckets start one day before construction, so the windows can be restored from
+     * sessions recovered by a persistent repository.
+     *
+     * The duration of the idle station eviction is timed in the meter registry.
+     */
+    @Autowired
+    public ChargingSessionStatisticsService(final ChargingSessionRepository repository, final MeterRegistry meterRegistry) {
+        this(repository, System::nanoTime, meterRegistry);
+    }
+
+    ChargingSessionStatisticsService(final ChargingSessionRepository repository, final LongSupplier ticker,
+                                     final MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.ticker = ticker;
+        this.evictionTimer = Timer.builder("everon.statistics.eviction")
+                .description("Duration of the idle station eviction")
+                .register(meterRegistry);
+
+        this.origin = ticker.getAsLong() - ONE_DAY.toNanos();
+        final int stripes = Runtime.getRuntime().availableProcessors();
+
+        startedCounter = new HierarchicalTimeWheel(stripes, ticker, origin);
+        stoppedCounter = new HierarchicalTimeWheel(stripes, ticker, origin);
+        stationCounters = new StationWindowCounters(SECONDS_IN_A_MINUTE, ONE_SECOND, ticker, origin);
+    }
+
+    /**
+     * Records a new started session event of the given station at the current time.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId Station Id
+     */
+    void started(final String stationId) {
+
+        startedCounter.increment();
+        stationCounters.started(stationId);
+
+        log.debug("Recorded started event for station {}", stationId);
+    }
+
+    /**
+     * Records a new stopped session event of the given station at the current time.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId Station Id
      */
-    public ChargingSessionStatisticsService() {
-        startedQueue = new PriorityBlockingQueue<>();
-        stoppedQueue = new PriorityBlockingQueue<>();
+    void stopped(final String stationId) {
+
+        stoppedCounter.increment();
+        stationCounters.stopped(stationId);
+
+        log.debug("Recorded stopped event for station {}", stationId);
     }
 
     /**
-     * Offers new started session event to queue.
+     * Records a started session event per given station id at the current time, adding
+     * each distinct station once with its number of events.
      *
-     * Time complexity is O(log n) by the nature of Priority Queue
+     * Time complexity is O(b) for b station ids.
      *
-     * @param localDateTime start time
+     * @param stationIds Station Ids, one per event
      */
-    void started(LocalDateTime localDateTime) {
+    void started(final List<String> stationIds) {
+
+        final long now = ticker.getAsLong();
 
-        startedQueue.offer(localDateTime);
+        startedCounter.add(now, stationIds.size());
+        countByStation(stationIds).forEach((stationId, count) -> stationCounters.started(stationId, now, count));
 
-        log.info("Offered started event {}", localDateTime);
+        log.debug("Recorded {} started events", stationIds.size());
     }
 
     /**
-     * Offers new stopped session event to queue.
+     * Records a stopped session event per given station id at the current time, adding
+     * each distinct station once with its number of events.
      *
-     * Time complexity is O(log n) by the nature of Priority Queue
+     * Time complexity is O(b) for b station ids.
      *
-     * @param localDateTime stopped time
+     * @param stationIds Station Ids, one per event
      */
-    void stopped(LocalDateTime localDateTime) {
+    void stopped(final List<String> stationIds) {
+
+        final long now = ticker.getAsLong();
+
+        stoppedCounter.add(now, stationIds.size());
+        countByStation(stationIds).forEach((stationId, count) -> stationCounters.stopped(stationId, now, count));
+
+        log.debug("Recorded {} stopped events", stationIds.size());
+    }
+
+    private static Map<String, Long> countByStation(final List<String> stationIds) {
+
+        final Map<String, Long> counts = new HashMap<>();
+        for (final String stationId : stationIds) {
+            counts.merge(stationId, 1L, Long::sum);
+        }
 
-        stoppedQueue.offer(localDateTime);
+        return counts;
+    }
 
-        log.info("Offered stopped event {}", localDateTime);
+    /**
+     * Restores the windows from the start and stop times of the sessions already in the
+     * repository, which is only non-empty on startup when sessions were recovered.
+     */
+    @PostConstruct
+    void restore() {
+        restore(LocalDateTime.now());
     }
 
     /**
-     * Retrieves statistics summary for the last minute.
+     * Records the start and stop of every session of the last day at their age relative
+     * to the given wall clock time.
+     *
+     * Time complexity is O(n).
+     *
+     * @param now Current wall clock time
+     */
+    void restore(final LocalDateTime now) {
+
+        final long tickerNow = ticker.getAsLong();
+        final LocalDateTime horizon = now.minus(ONE_DAY);
+
+        final long restored = repository.streamAll()
+                .mapToLong(chargingSession -> restore(chargingSession, horizon, now, tickerNow))
+                .sum();
+
+        if (restored > 0) {
+            log.info("Restored {} statistics events from the repository", restored);
+        }
+    }
+
+    private long restore(final ChargingSession chargingSession, final LocalDateTime horizon,
+                         final LocalDateTime now, final long tickerNow) {
+
+        long restored = 0L;
+
+        final LocalDateTime startedAt = chargingSession.getStartedAt();
+        if (startedAt != null && startedAt.isAfter(horizon)) {
+            final long at = tickerAt(startedAt, now, tickerNow);
+            startedCounter.add(at, 1L);
+            stationCounters.started(chargingSession.getStationId(), at);
+            restored++;
+        }
+
+        final LocalDateTime stoppedAt = chargingSession.getStoppedAt();
+        if (stoppedAt != null && stoppedAt.isAfter(horizon)) {
+            final long at = tickerAt(stoppedAt, now, tickerNow);
+            stoppedCounter.add(at, 1L);
+            stationCounters.stopped(chargingSession.getStationId(), at);
+            restored++;
+        }
+
+        return restored;
+    }
+
+    private static long tickerAt(final LocalDateTime time, final LocalDateTime now, final long tickerNow) {
+        return time.isAfter(now) ? tickerNow : tickerNow - Duration.between(time, now).toNanos();
+    }
+
+    /**
+     * Returns the number of elapsed one second buckets. Windows of every length only
+     * slide when it changes, as coarser buckets are aligned with the one second buckets.
      * Time complexity is O(1).
      *
+     * @return Current tick
+     */
+    public long getTick() {
+
+        return (ticker.getAsLong() - origin) / ONE_SECOND.toNanos();
+    }
+
+    /**
+     * Retrieves statistics summary for the last minute, which is bucket-granular: the
+     * partial current second plus the 59 full seconds before it.
+     * Time complexity is O(1), bounded by the number of buckets and stripes.
+     *
      * @return ChargingSessionsSummaryResponse
      */
     public ChargingSessionsSummaryResponse getSummary() {
 
-        return new ChargingSessionsSummaryResponse(startedQueue.size(), stoppedQueue.size());
+        return getSummary(ONE_MINUTE);
     }
 
     /**
-     * Background task that removes expired sessions from priority queue.
-     * Earliest session is at the head of the queue.
+     * Retrieves statistics summary for the given window, up to one day, along with
+     * the current number of active sessions.
+     * Windows are rounded up to whole seconds up to a minute, to whole minutes up to
+     * an hour and to whole hours above that.
+     * Time complexity is O(1), bounded by the number of buckets and stripes.
      *
+     * @param window Summary window
+     * @return ChargingSessionsSummaryResponse
      */
-    @Scheduled(fixedDelayString = "${statistics.task.delay.milis:1000}")
-    private void removeExpired() {
+    public ChargingSessionsSummaryResponse getSummary(final Duration window) {
 
-        LocalDateTime aMinuteAgo = LocalDateTime.now().minus(ONE_MINUTE);
+        Objects.requireNonNull(window);
 
-        while (!startedQueue.isEmpty() && startedQueue.peek().isBefore(aMinuteAgo)) {
-            log.debug("Removing started {}", startedQueue.peek());
-            startedQueue.remove();
-        }
+        return new ChargingSessionsSummaryResponse((int) startedCounter.sum(window), (int) stoppedCounter.sum(window),
+                repository.countActive());
+    }
+
+    /**
+     * Retrieves statistics summary of a single station.
+     * Stations are only tracked for the last minute.
+     * Time complexity is O(1).
+     *
+     * @param stationId Station Id
+     * @param window    Summary window, must be one minute
+     * @return ChargingSessionsSummaryResponse
+     */
+    public ChargingSessionsSummaryResponse getSummary(final String stationId, final Duration window) {
 
-        while (!stoppedQueue.isEmpty() && stoppedQueue.peek().isBefore(aMinuteAgo)) {
-            log.debug("Removing stopped {}", stoppedQueue.peek());
-            stoppedQueue.remove();
+        Objects.requireNonNull(stationId);
+
+        if (!ONE_MINUTE.equals(window)) {
+            throw new IllegalArgumentException("Station summaries are only available for " + ONE_MINUTE);
         }
+
+        return new ChargingSessionsSummaryResponse((int) stationCounters.getStartedCount(stationId),
+                (int) stationCounters.getStoppedCount(stationId));
+    }
+
+    /**
+     * Retrieves statistics summaries of every station with an event in the last minute.
+     * Time complexity is O(s), where s is the number of tracked stations.
+     *
+     * @return Summaries by station id
+     */
+    public Map<String, ChargingSessionsSummaryResponse> getStationSummaries() {
+
+        final Map<String, ChargingSessionsSummaryResponse> summaries = new HashMap<>();
+
+        stationCounters.forEach((stationId, startedCount, stoppedCount) -> {
+            if (startedCount + stoppedCount > 0) {
+                summaries.put(stationId, new ChargingSessionsSummaryResponse((int) startedCount, (int) stoppedCount));
+            }
+        });
+
+        return summaries;
+    }
+
+    /**
+     * Time complexity is O(1).
+     *
+     * @return Number of stations with counters
+     */
+    public int getStationCount() {
+
+        return stationCounters.size();
+    }
+
+    /**
+     * Background task that evicts the counters of stations without any event in the last minute.
+     * Evicted stations only hold expired buckets, so no count is lost.
+     */
+    @Scheduled(fixedDelayString = "${statistics.station.eviction.delay.millis:10000}")
+    void evictIdleStations() {
+
+        evictionTimer.record(() -> {
+            final int evicted = stationCounters.evictIdle();
+
+            log.debug("Evicted {} idle stations", evicted);
+        });
     }
 }
@@ -0,0 +1,122 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.cluster.ClusterCounters;
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+@Service
+@ConditionalOnProperty(name = "everon.cluster.enabled", havingValue = "true")
+public class ClusteredChargingSessionStatisticsService extends ChargingSessionStatisticsService {
+
+    private final ClusterCounters clusterCounters;
+    private final ChargingSessionRepository repository;
+    private final Clock clock;
+
+    /**
+     * Records every event in the local windows, as the default statistics service does,
+     * and in the cluster counters gossiped between the nodes. Summaries are computed from
+     * the cluster counters, so every node serves the events of all nodes. Station
+     * summaries stay local, as stations are tracked in the local windows only.
+     *
+     * Events are counted in the cluster counters first, so the version incremented by the
+     * local windows never runs ahead of them.
+     *
+     * Cluster counters are bucketed by wall clock second, so the clocks of the nodes are
+     * expected to be synchronized, e.g. with NTP.
+     */
+    @Autowired
+    public ClusteredChargingSessionStatisticsService(final ChargingSessionRepository repository,
+                                                     final MeterRegistry meterRegistry,
+                                                     final ClusterCounters clusterCounters, final Clock clock) {
+        this(repository, System::nanoTime, meterRegistry, clusterCounters, clock);
+    }
+
+    ClusteredChargingSessionStatisticsService(final ChargingSessionRepository repository, final LongSupplier ticker,
+                                              final MeterRegistry meterRegistry,
+                                              final ClusterCounters clusterCounters, final Clock clock) {
+        super(repository, ticker, meterRegistry);
+        this.clusterCounters = clusterCounters;
+        this.repository = repository;
+        this.clock = clock;
+    }
+
+    @Override
+    void started(final String stationId) {
+
+        clusterCounters.started(clock.instant().getEpochSecond(), 1L);
+        super.started(stationId);
+    }
+
+    @Override
+    void stopped(final String stationId) {
+
+        clusterCounters.stopped(clock.instant().getEpochSecond(), 1L);
+        super.stopped(stationId);
+    }
+
+    @Override
+    void started(final List<String> stationIds) {
+
+        clusterCounters.started(clock.instant().getEpochSecond(), stationIds.size());
+        super.started(stationIds);
+    }
+
+    @Override
+    void stopped(final List<String> stationIds) {
+
+        clusterCounters.stopped(clock.instant().getEpochSecond(), stationIds.size());
+        super.stopped(stationIds);
+    }
+
+    /**
+     * Returns the current wall clock second, as the cluster counters are bucketed by it.
+     *
+     * @return Current tick
+     */
+    @Override
+    public long getTick() {
+
+        return clock.instant().getEpochSecond();
+    }
+
+    /**
+     * Retrieves statistics summary of all nodes for the given window, up to the cluster
+     * retention, along with the active sessions of all nodes as last gossiped. The active
+     * sessions of this node are current.
+     * Windows are rounded up to whole seconds.
+     * Time complexity is O(m log r) for m nodes and r retained seconds.
+     *
+     * @param window Summary window
+     * @return ChargingSessionsSummaryResponse
+     * @throws IllegalArgumentException If the window exceeds the cluster retention
+     */
+    @Override
+    public ChargingSessionsSummaryResponse getSummary(final Duration window) {
+
+        Objects.requireNonNull(window);
+
+        final long seconds = window.getSeconds() + (window.getNano() > 0 ? 1L : 0L);
+        if (seconds > clusterCounters.getRetentionSeconds()) {
+            throw new IllegalArgumentException("Cluster summaries are only available up to "
+                    + Duration.ofSeconds(clusterCounters.getRetentionSeconds()));
+        }
+
+        clusterCounters.setActive(repository.countActive(), clock.millis());
+
+        final long now = clock.instant().getEpochSecond();
+        final long from = now - seconds + 1;
+
+        return new ChargingSessionsSummaryResponse((int) clusterCounters.getStartedCount(from, now),
+                (int) clusterCounters.getStoppedCount(from, now), clusterCounters.getActiveCount());
+    }
+}
@@ -0,0 +1,167 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.model.ETags;
+import com.evbox.everon.model.dto.BinaryCodec;
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class SummaryPublisher {
+
+    /**
+     * Window of the published summary, the default of the summary endpoint.
+     */
+    public static final Duration WINDOW = Duration.ofMinutes(1L);
+
+    private final ChargingSessionStatisticsService chargingSessionStatisticsService;
+    private final ChargingSessionRepository repository;
+    private final ObjectWriter summaryWriter;
+
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * Keeps the summary of the last minute serialized to JSON and to the binary encoding,
+     * together with the tick of the one second buckets and the repository version it was
+     * computed at. Events are counted in the buckets, so the summary is published once
+     * per tick and serves every request of that second, at most a second behind the
+     * counters; the repository version covers the active sessions. The first request
+     * that sees a newer tick or version computes and serializes the summary again.
+     * Nothing is computed while nobody asks.
+     *
+     * Entity tags are derived from the counts of a summary, not from the versions it was
+     * computed at, so a summary that did not change keeps its tag across ticks, e.g. on
+     * an idle node, and two summaries with the same tag have the same body.
+     *
+     * @param chargingSessionStatisticsService Statistics service
+     * @param repository                       Repository, whose version covers the active sessions
+     * @param objectMapper                     Object mapper of the application
+     */
+    public SummaryPublisher(final ChargingSessionStatisticsService chargingSessionStatisticsService,
+                            final ChargingSessionRepository repository, final ObjectMapper objectMapper) {
+
+        this.chargingSessionStatisticsService = chargingSessionStatisticsService;
+        this.repository = repository;
+        this.summaryWriter = objectMapper.writerFor(ChargingSessionsSummaryResponse.class);
+        this.snapshot = new AtomicReference<>();
+    }
+
+    /**
+     * Returns the serialized summary of the last minute, publishing a new one on a new
+     * tick or repository version. Requests that see the new versions together may each
+     * compute the summary without waiting on one another; the first to publish wins.
+     * Time complexity is O(1), bounded by the number of buckets and stripes.
+     *
+     * @return Current snapshot
+     */
+    public Snapshot getSnapshot() {
+
+        // versions first, so a snapshot is never tagged newer than its summary
+        final long tick = chargingSessionStatisticsService.getTick();
+        final long sessionsVersion = repository.getVersion();
+
+        final Snapshot current = snapshot.get();
+        if (current != null && current.isAt(tick, sessionsVersion)) {
+            return current;
+        }
+
+        final Snapshot published = build(tick, sessionsVersion);
+        if (snapshot.compareAndSet(current, published)) {
+            return published;
+        }
+
+        final Snapshot winner = snapshot.get();
+        return winner != null && winner.isAt(tick, sessionsVersion) ? winner : published;
+    }
+
+    /**
+     * Returns the entity tag of a summary, built from its counts, e.g. {@code "2-1-1"}
+     * for two started, one stopped and one active session. Summaries of every window and
+     * station are tagged alike.
+     * Time complexity is O(1).
+     *
+     * @param summary Summary
+     * @return Quoted entity tag
+     */
+    public static String eTagOf(final ChargingSessionsSummaryResponse summary) {
+
+        final Long activeCount = summary.getActiveCount();
+
+        return activeCount == null
+                ? ETags.of(summary.getStartedCount(), summary.getStoppedCount())
+                : ETags.of(summary.getStartedCount(), summary.getStoppedCount(), activeCount);
+    }
+
+    private Snapshot build(final long tick, final long sessionsVersion) {
+
+        final ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary(WINDOW);
+
+        final byte[] json;
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream(16);
+        try {
+            json = summaryWriter.writeValueAsBytes(summary);
+            BinaryCodec.writeSummary(binary, summary);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize summary", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode summary", e);
+        }
+
+        return new Snapshot(tick, sessionsVersion, summary, json, binary.toByteArray());
+    }
+
+    /**
+     * Summary serialized at a set of versions.
+     */
+    public static final class Snapshot {
+
+        private final long tick;
+        private final long sessionsVersion;
+        private final String eTag;
+        private final byte[] json;
+        private final byte[] binary;
+
+        public Snapshot(final long tick, final long sessionsVersion, final ChargingSessionsSummaryResponse summary,
+                        final byte[] json, final byte[] binary) {
+            this.tick = tick;
+            this.sessionsVersion = sessionsVersion;
+            this.eTag = eTagOf(summary);
+            this.json = json;
+            this.binary = binary;
+        }
+
+        /**
+         * @return Quoted entity tag of the summary
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return Summary as UTF-8 JSON, shared by every request and not to be modified
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return Summary in the binary encoding of BinaryCodec, shared like the JSON
+         */
+        public byte[] getBinary() {
+            return binary;
+        }
+
+        private boolean isAt(final long tick, final long sessionsVersion) {
+            return this.tick == tick && this.sessionsVersion == sessionsVersion;
+        }
+    }
+}
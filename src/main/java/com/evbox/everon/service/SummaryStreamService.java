@@ -0,0 +1,201 @@
+package com.evbox.everon.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class SummaryStreamService {
+
+    private final SummaryPublisher summaryPublisher;
+    private final int maxLagTicks;
+
+    private final Set<Subscription> subscriptions;
+
+    // written by the scheduler thread only
+    private volatile long tick;
+
+    /**
+     * Pushes the live summary to every subscriber on each tick. The frame is the JSON of
+     * the snapshot of SummaryPublisher, so the summary is computed and serialized at most
+     * once per tick for subscribers and requests together, and the same bytes are handed
+     * to every subscriber.
+     *
+     * Writes never block: a frame is only written to a subscriber whose connection can
+     * take it, otherwise it is kept as the latest frame, replacing an older one, and
+     * written once the connection drains. A stalled subscriber therefore never holds up
+     * the others. A subscriber whose connection has not taken a frame for more than the
+     * maximum lag in ticks is dropped and its connection closed.
+     *
+     * @param summaryPublisher Publisher of the serialized summary
+     * @param maxLagTicks      Ticks a connection may stay stalled before its subscriber is dropped
+     */
+    public SummaryStreamService(final SummaryPublisher summaryPublisher,
+                                @Value("${everon.summary.stream.max-lag-ticks:5}") final int maxLagTicks) {
+
+        this.summaryPublisher = summaryPublisher;
+        this.maxLagTicks = maxLagTicks;
+        this.subscriptions = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Registers a subscriber, which receives the summary from the next tick on.
+     * Time complexity is O(1).
+     *
+     * @param sink Receives the serialized summaries
+     * @return Subscription to cancel when the subscriber goes away
+     */
+    public Subscription subscribe(final SummarySink sink) {
+
+        final Subscription subscription = new Subscription(Objects.requireNonNull(sink), tick);
+        subscriptions.add(subscription);
+
+        log.debug("Summary stream subscribed, {} subscribers", subscriptions.size());
+
+        return subscription;
+    }
+
+    /**
+     * Offers the published summary of the last minute to every subscriber, without
+     * waiting on any of them. The summary is not computed without subscribers, and a
+     * tick without a published summary is skipped.
+     *
+     * Time complexity is O(s) for s subscribers.
+     */
+    @Scheduled(fixedRateString = "${everon.summary.stream.interval-millis:1000}")
+    public void broadcast() {
+
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        final SummaryPublisher.Snapshot snapshot = summaryPublisher.getSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+
+        final byte[] frame = snapshot.getJson();
+
+        final long now = ++tick;
+        for (final Subscription subscription : subscriptions) {
+            subscription.offer(frame, now);
+        }
+    }
+
+    /**
+     * @return Number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Ends the stream of every subscriber.
+     */
+    @PreDestroy
+    public void close() {
+        for (final Subscription subscription : subscriptions) {
+            subscription.drop();
+        }
+    }
+
+    /**
+     * Non-blocking receiver of the serialized summaries of one subscriber.
+     */
+    public interface SummarySink {
+
+        /**
+         * Tells whether a frame can be written without blocking. When it cannot, the sink
+         * calls {@link Subscription#ready()} once its connection has drained.
+         *
+         * @return Whether the connection can take a frame
+         */
+        boolean isReady();
+
+        /**
+         * Writes a summary without blocking, only called while the sink is ready.
+         *
+         * @param json Summary as UTF-8 JSON, shared by every subscriber and not to be modified
+         * @throws IOException If the subscriber is gone
+         */
+        void send(byte[] json) throws IOException;
+
+        /**
+         * Ends the stream and closes the connection of a subscriber that was dropped.
+         */
+        void close();
+    }
+
+    public final class Subscription {
+
+        private final SummarySink sink;
+
+        // guarded by this
+        private byte[] pending;
+        private long writeTick;
+
+        private Subscription(final SummarySink sink, final long tick) {
+            this.sink = sink;
+            this.writeTick = tick;
+        }
+
+        /**
+         * Stops sending summaries to the subscriber.
+         */
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Writes the latest frame that could not be written yet, called by the sink once
+         * its connection can take it.
+         */
+        public synchronized void ready() {
+            write(tick);
+        }
+
+        private synchronized void offer(final byte[] frame, final long now) {
+
+            pending = frame;
+            write(now);
+
+            if (pending != null && now - writeTick > maxLagTicks) {
+                log.info("Dropping summary stream subscriber stalled for {} ticks", now - writeTick);
+                drop();
+            }
+        }
+
+        private synchronized void drop() {
+            cancel();
+            pending = null;
+            sink.close();
+        }
+
+        // called with the lock held
+        private void write(final long now) {
+
+            if (pending == null || !sink.isReady()) {
+                return;
+            }
+
+            final byte[] frame = pending;
+            pending = null;
+            writeTick = now;
+
+            try {
+                sink.send(frame);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Summary stream subscriber is gone: {}", e.getMessage());
+                cancel();
+            }
+        }
+    }
+}
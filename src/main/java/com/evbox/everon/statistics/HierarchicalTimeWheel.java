@@ -0,0 +1,117 @@
+package com.evbox.everon.statistics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Event counter over multiple window resolutions: the last minute by second, the last
+ * hour by minute and the last day by hour.
+ *
+ * Each resolution is a SlidingWindowCounter with a fixed number of buckets, so memory is
+ * constant per resolution no matter how many events are recorded. Seconds roll into
+ * minutes and minutes into hours by writing every event through to all resolutions,
+ * which keeps recording lock-free instead of moving counts between rings.
+ *
+ * A window is answered by the finest resolution that covers it, so reads touch at most
+ * one ring and are accurate to one bucket of that resolution.
+ */
+public class HierarchicalTimeWheel {
+
+    private static final Resolution[] RESOLUTIONS = {
+            new Resolution(60, Duration.ofSeconds(1L)),
+            new Resolution(60, Duration.ofMinutes(1L)),
+            new Resolution(24, Duration.ofHours(1L))
+    };
+
+    private final SlidingWindowCounter[] levels;
+
+    /**
+     * @param stripes Number of independent stripes per resolution
+     * @param ticker  Monotonic nanosecond time source
+     * @param origin  Ticker reading of the start of the first bucket
+     */
+    public HierarchicalTimeWheel(final int stripes, final LongSupplier ticker, final long origin) {
+
+        Objects.requireNonNull(ticker);
+
+        levels = new SlidingWindowCounter[RESOLUTIONS.length];
+        for (int i = 0; i < RESOLUTIONS.length; i++) {
+            levels[i] = new SlidingWindowCounter(RESOLUTIONS[i].bucketCount, RESOLUTIONS[i].bucketSize,
+                    stripes, ticker, origin);
+        }
+    }
+
+    /**
+     * Counts one event at the current time on every resolution.
+     *
+     * Time complexity is O(1).
+     */
+    public void increment() {
+        for (final SlidingWindowCounter level : levels) {
+            level.increment();
+        }
+    }
+
+    /**
+     * Counts the given number of events at the given ticker time on every resolution
+     * that still covers it.
+     *
+     * @param tickerNanos Ticker reading the events happened at
+     * @param delta       Number of events
+     */
+    public void add(final long tickerNanos, final long delta) {
+        for (final SlidingWindowCounter level : levels) {
+            level.add(tickerNanos, delta);
+        }
+    }
+
+    /**
+     * Sums the events of the given window, rounded up to whole buckets of the finest
+     * resolution covering it. The current partial bucket is included.
+     *
+     * Time complexity is O(1), bounded by the bucket count of a single resolution.
+     *
+     * @param window Window size, at most one day
+     * @return Number of events in the window
+     */
+    public long sum(final Duration window) {
+
+        Objects.requireNonNull(window);
+
+        if (window.isNegative() || window.isZero() || window.compareTo(getMaxWindow()) > 0) {
+            throw new IllegalArgumentException("Window must be positive and at most " + getMaxWindow());
+        }
+
+        for (final SlidingWindowCounter level : levels) {
+            if (window.compareTo(level.getWindow()) <= 0) {
+                return level.sum(bucketsOf(window, level.getBucketSize()));
+            }
+        }
+
+        throw new IllegalStateException("No resolution covers " + window);
+    }
+
+    /**
+     * @return Largest supported window
+     */
+    public Duration getMaxWindow() {
+        return levels[levels.length - 1].getWindow();
+    }
+
+    private static int bucketsOf(final Duration window, final Duration bucketSize) {
+        final long bucketNanos = bucketSize.toNanos();
+        return (int) ((window.toNanos() + bucketNanos - 1) / bucketNanos);
+    }
+
+    private static final class Resolution {
+
+        private final int bucketCount;
+        private final Duration bucketSize;
+
+        private Resolution(final int bucketCount, final Duration bucketSize) {
+            this.bucketCount = bucketCount;
+            this.bucketSize = bucketSize;
+        }
+    }
+}
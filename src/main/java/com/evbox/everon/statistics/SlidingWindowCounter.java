@@ -0,0 +1,227 @@
+package com.evbox.everon.statistics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free event counter over a sliding time window.
+ *
+ * The window is a ring of fixed size time buckets. Every bucket slot holds a single
+ * packed long: the upper 32 bits are the absolute index of the bucket it currently
+ * counts for, the lower 32 bits are the count. A slot that still carries an older
+ * bucket index is simply overwritten, so expired buckets never need to be swept.
+ *
+ * The ring is striped to spread concurrent writers over different cache lines;
+ * reads sum the matching bucket of every stripe.
+ *
+ * Time is taken from a monotonic ticker (nanoseconds), never from the wall clock.
+ */
+public class SlidingWindowCounter {
+
+    private static final int LONGS_PER_CACHE_LINE = 8;
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final LongSupplier ticker;
+    private final long origin;
+    private final long bucketNanos;
+    private final int bucketCount;
+    private final int stripeMask;
+    private final int stripeStride;
+    private final AtomicLongArray cells;
+
+    /**
+     * Creates a counter striped by the number of available processors.
+     *
+     * @param bucketCount Number of buckets in the window
+     * @param bucketSize  Time span of a single bucket
+     * @param ticker      Monotonic nanosecond time source
+     */
+    public SlidingWindowCounter(final int bucketCount, final Duration bucketSize, final LongSupplier ticker) {
+        this(bucketCount, bucketSize, Runtime.getRuntime().availableProcessors(), ticker);
+    }
+
+    /**
+     * Creates a counter with the given number of stripes, rounded up to a power of two.
+     *
+     * @param bucketCount Number of buckets in the window
+     * @param bucketSize  Time span of a single bucket
+     * @param stripes     Number of independent stripes
+     * @param ticker      Monotonic nanosecond time source
+     */
+    public SlidingWindowCounter(final int bucketCount, final Duration bucketSize, final int stripes,
+                                final LongSupplier ticker) {
+        this(bucketCount, bucketSize, stripes, ticker, ticker.getAsLong());
+    }
+
+    /**
+     * Creates a counter whose buckets are aligned to the given ticker origin, so that
+     * counters sharing an origin have the same bucket boundaries.
+     *
+     * @param bucketCount Number of buckets in the window
+     * @param bucketSize  Time span of a single bucket
+     * @param stripes     Number of independent stripes
+     * @param ticker      Monotonic nanosecond time source
+     * @param origin      Ticker reading of the start of the first bucket
+     */
+    public SlidingWindowCounter(final int bucketCount, final Duration bucketSize, final int stripes,
+                                final LongSupplier ticker, final long origin) {
+
+        if (bucketCount < 1 || stripes < 1 || bucketSize.isNegative() || bucketSize.isZero()) {
+            throw new IllegalArgumentException("Bucket count, bucket size and stripes must be positive");
+        }
+
+        this.ticker = Objects.requireNonNull(ticker);
+        this.origin = origin;
+        this.bucketNanos = bucketSize.toNanos();
+        this.bucketCount = bucketCount;
+        this.stripeMask = nextPowerOfTwo(stripes) - 1;
+        this.stripeStride = paddedStride(bucketCount, stripes);
+        this.cells = new AtomicLongArray(stripeStride * (stripeMask + 1));
+    }
+
+    /**
+     * Counts one event at the current time.
+     *
+     * Time complexity is O(1), no allocation.
+     */
+    public void increment() {
+        addToBucket(bucketAt(ticker.getAsLong()), 1L);
+    }
+
+    /**
+     * Counts the given number of events at the given ticker time. Events that are
+     * already outside of the window are ignored.
+     *
+     * @param tickerNanos Ticker reading the events happened at
+     * @param delta       Number of events
+     */
+    public void add(final long tickerNanos, final long delta) {
+        addToBucket(bucketAt(tickerNanos), delta);
+    }
+
+    /**
+     * Sums the events of the whole window, including the current partial bucket. The
+     * window is bucket-granular: the partial current bucket plus the full buckets before
+     * it, so it spans between one bucket less than the window and the whole window.
+     *
+     * Time complexity is O(buckets * stripes).
+     *
+     * @return Number of events in the window
+     */
+    public long sum() {
+        return sum(bucketCount);
+    }
+
+    /**
+     * Sums the events of the most recent buckets: the current partial bucket and the
+     * full buckets before it. Events drop out a whole bucket at a time.
+     *
+     * @param buckets Number of buckets to sum, at most the bucket count of the window
+     * @return Number of events in the given buckets
+     */
+    public long sum(final int buckets) {
+
+        if (buckets < 1 || buckets > bucketCount) {
+            throw new IllegalArgumentException("Buckets must be between 1 and " + bucketCount);
+        }
+
+        final long current = bucketAt(ticker.getAsLong());
+
+        long total = 0L;
+        for (long bucket = current - buckets + 1; bucket <= current; bucket++) {
+            total += count(bucket);
+        }
+
+        return total;
+    }
+
+    /**
+     * @return Time span covered by the window
+     */
+    public Duration getWindow() {
+        return Duration.ofNanos(bucketNanos * bucketCount);
+    }
+
+    /**
+     * @return Time span of a single bucket
+     */
+    public Duration getBucketSize() {
+        return Duration.ofNanos(bucketNanos);
+    }
+
+    /**
+     * @return Number of buckets in the window
+     */
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    long count(final long bucket) {
+
+        if (bucket < 0) {
+            return 0L;
+        }
+
+        final int offset = (int) (bucket % bucketCount);
+
+        long total = 0L;
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            final long cell = cells.get(stripe * stripeStride + offset);
+            if ((cell >>> 32) == bucket) {
+                total += cell & COUNT_MASK;
+            }
+        }
+
+        return total;
+    }
+
+    long bucketAt(final long tickerNanos) {
+        return (tickerNanos - origin) / bucketNanos;
+    }
+
+    private void addToBucket(final long bucket, final long delta) {
+
+        if (bucket < 0) {
+            return;
+        }
+
+        final int slot = stripe() * stripeStride + (int) (bucket % bucketCount);
+
+        long cell;
+        long next;
+        do {
+            cell = cells.get(slot);
+            final long cellBucket = cell >>> 32;
+
+            if (cellBucket == bucket) {
+                next = cell + delta;
+            } else if (cellBucket < bucket) {
+                next = (bucket << 32) | (delta & COUNT_MASK);
+            } else {
+                // the slot has already moved on to a newer bucket, the event is outside the window
+                return;
+            }
+        } while (!cells.compareAndSet(slot, cell, next));
+    }
+
+    private int stripe() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & stripeMask;
+    }
+
+    private static int paddedStride(final int bucketCount, final int stripes) {
+
+        if (stripes == 1) {
+            return bucketCount;
+        }
+
+        final int lines = (bucketCount + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE;
+        return (lines + 1) * LONGS_PER_CACHE_LINE;
+    }
+
+    private static int nextPowerOfTwo(final int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
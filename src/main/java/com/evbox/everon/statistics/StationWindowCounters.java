@@ -0,0 +1,249 @@
+package com.evbox.everon.statistics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Started and stopped sliding window counters per station.
+ *
+ * Stations are kept in a ConcurrentHashMap, so recording an event for one station never
+ * blocks readers or writers of another one. A station that had no event for a whole
+ * window only holds empty buckets, so it can be evicted without losing any count; this
+ * keeps memory bounded by the number of stations active within the window.
+ */
+public class StationWindowCounters {
+
+    private static final int SINGLE_STRIPE = 1;
+
+    private final ConcurrentMap<String, Station> stations;
+    private final int bucketCount;
+    private final Duration bucketSize;
+    private final long bucketNanos;
+    private final LongSupplier ticker;
+    private final long origin;
+
+    /**
+     * @param bucketCount Number of buckets in the window
+     * @param bucketSize  Time span of a single bucket
+     * @param ticker      Monotonic nanosecond time source
+     * @param origin      Ticker reading of the start of the first bucket
+     */
+    public StationWindowCounters(final int bucketCount, final Duration bucketSize,
+                                 final LongSupplier ticker, final long origin) {
+        this.stations = new ConcurrentHashMap<>();
+        this.bucketCount = bucketCount;
+        this.bucketSize = bucketSize;
+        this.bucketNanos = bucketSize.toNanos();
+        this.ticker = Objects.requireNonNull(ticker);
+        this.origin = origin;
+    }
+
+    /**
+     * Counts a started event for the given station at the current time.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId Station Id
+     */
+    public void started(final String stationId) {
+        started(stationId, ticker.getAsLong());
+    }
+
+    /**
+     * Counts a started event for the given station at the given ticker time.
+     * Events older than the window are ignored.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId   Station Id
+     * @param tickerNanos Ticker reading the event happened at
+     */
+    public void started(final String stationId, final long tickerNanos) {
+        started(stationId, tickerNanos, 1L);
+    }
+
+    /**
+     * Counts the given number of started events for the given station at the given
+     * ticker time. Events older than the window are ignored.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId   Station Id
+     * @param tickerNanos Ticker reading the events happened at
+     * @param count       Number of events
+     */
+    public void started(final String stationId, final long tickerNanos, final long count) {
+        touch(stationId, tickerNanos).started.add(tickerNanos, count);
+    }
+
+    /**
+     * Counts a stopped event for the given station at the current time.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId Station Id
+     */
+    public void stopped(final String stationId) {
+        stopped(stationId, ticker.getAsLong());
+    }
+
+    /**
+     * Counts a stopped event for the given station at the given ticker time.
+     * Events older than the window are ignored.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId   Station Id
+     * @param tickerNanos Ticker reading the event happened at
+     */
+    public void stopped(final String stationId, final long tickerNanos) {
+        stopped(stationId, tickerNanos, 1L);
+    }
+
+    /**
+     * Counts the given number of stopped events for the given station at the given
+     * ticker time. Events older than the window are ignored.
+     *
+     * Time complexity is O(1).
+     *
+     * @param stationId   Station Id
+     * @param tickerNanos Ticker reading the events happened at
+     * @param count       Number of events
+     */
+    public void stopped(final String stationId, final long tickerNanos, final long count) {
+        touch(stationId, tickerNanos).stopped.add(tickerNanos, count);
+    }
+
+    /**
+     * @param stationId Station Id
+     * @return Number of started events of the station in the window
+     */
+    public long getStartedCount(final String stationId) {
+        final Station station = stations.get(Objects.requireNonNull(stationId));
+        return station == null ? 0L : station.started.sum();
+    }
+
+    /**
+     * @param stationId Station Id
+     * @return Number of stopped events of the station in the window
+     */
+    public long getStoppedCount(final String stationId) {
+        final Station station = stations.get(Objects.requireNonNull(stationId));
+        return station == null ? 0L : station.stopped.sum();
+    }
+
+    /**
+     * Visits every tracked station with its started and stopped counts.
+     * Stations are visited in no particular order and without blocking writers.
+     *
+     * @param consumer Station visitor
+     */
+    public void forEach(final StationCountsConsumer consumer) {
+        stations.forEach((stationId, station) ->
+                consumer.accept(stationId, station.started.sum(), station.stopped.sum()));
+    }
+
+    /**
+     * Removes the stations that had no event for a whole window.
+     *
+     * Time complexity is O(stations).
+     *
+     * @return Number of evicted stations
+     */
+    public int evictIdle() {
+
+        final long idleBefore = bucketAt(ticker.getAsLong()) - bucketCount;
+
+        int evicted = 0;
+        for (final Map.Entry<String, Station> entry : stations.entrySet()) {
+            final Station station = entry.getValue();
+            if (station.retireIfIdle(idleBefore) && stations.remove(entry.getKey(), station)) {
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * @return Number of tracked stations
+     */
+    public int size() {
+        return stations.size();
+    }
+
+    private Station touch(final String stationId, final long now) {
+
+        Objects.requireNonNull(stationId);
+
+        final long bucket = bucketAt(now);
+
+        for (;;) {
+            Station station = stations.get(stationId);
+            if (station == null) {
+                station = stations.computeIfAbsent(stationId, id -> new Station(bucket));
+            }
+
+            if (station.touch(bucket)) {
+                return station;
+            }
+
+            // lost the race against eviction, register the station again
+            stations.remove(stationId, station);
+        }
+    }
+
+    private long bucketAt(final long tickerNanos) {
+        return (tickerNanos - origin) / bucketNanos;
+    }
+
+    /**
+     * Receives the counts of a single station.
+     */
+    @FunctionalInterface
+    public interface StationCountsConsumer {
+
+        void accept(String stationId, long startedCount, long stoppedCount);
+    }
+
+    private final class Station {
+
+        private static final long RETIRED = Long.MIN_VALUE;
+
+        private final SlidingWindowCounter started;
+        private final SlidingWindowCounter stopped;
+
+        /**
+         * Last bucket with an event, or RETIRED once the station has been evicted.
+         */
+        private final AtomicLong lastActiveBucket;
+
+        private Station(final long bucket) {
+            started = new SlidingWindowCounter(bucketCount, bucketSize, SINGLE_STRIPE, ticker, origin);
+            stopped = new SlidingWindowCounter(bucketCount, bucketSize, SINGLE_STRIPE, ticker, origin);
+            lastActiveBucket = new AtomicLong(bucket);
+        }
+
+        private boolean touch(final long bucket) {
+            for (;;) {
+                final long last = lastActiveBucket.get();
+                if (last == RETIRED) {
+                    return false;
+                }
+                if (last >= bucket || lastActiveBucket.compareAndSet(last, bucket)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean retireIfIdle(final long idleBefore) {
+            final long last = lastActiveBucket.get();
+            return last != RETIRED && last < idleBefore && lastActiveBucket.compareAndSet(last, RETIRED);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.evbox.everon.cluster;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ClusterCountersTest {
+
+    private static final long NOW = 1_560_000_000L;
+
+    private ClusterCounters first;
+    private ClusterCounters second;
+
+    @BeforeEach
+    public void init() {
+        first = new ClusterCounters("first", 3600L, 30L);
+        second = new ClusterCounters("second", 3600L, 30L);
+    }
+
+    @Test
+    @DisplayName("Merge should add the counts of the other node")
+    public void shouldSumNodes() {
+
+        //given
+        first.started(NOW, 2L);
+        second.started(NOW, 3L);
+        second.stopped(NOW - 10, 1L);
+
+        //when
+        first.merge(second.encode(), NOW);
+
+        //then
+        assertThat(first.getStartedCount(NOW - 59, NOW), equalTo(5L));
+        assertThat(first.getStoppedCount(NOW - 59, NOW), equalTo(1L));
+        assertThat(first.getStoppedCount(NOW - 5, NOW), equalTo(0L));
+        assertThat(first.getNodeCount(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("Merging the same state twice should count it once")
+    public void shouldMergeIdempotently() {
+
+        //given
+        second.started(NOW, 3L);
+        final byte[] state = second.encode();
+
+        //when
+        first.merge(state, NOW);
+        first.merge(state, NOW);
+
+        //then
+        assertThat(first.getStartedCount(NOW, NOW), equalTo(3L));
+    }
+
+    @Test
+    @DisplayName("Nodes merging each other in any order should converge")
+    public void shouldMergeCommutatively() {
+
+        //given
+        first.started(NOW, 1L);
+        second.started(NOW, 4L);
+        second.stopped(NOW, 2L);
+        final byte[] firstState = first.encode();
+        final byte[] secondState = second.encode();
+
+        //when
+        second.merge(firstState, NOW);
+        first.merge(secondState, NOW);
+
+        //then
+        assertThat(first.getStartedCount(NOW, NOW), equalTo(second.getStartedCount(NOW, NOW)));
+        assertThat(first.getStoppedCount(NOW, NOW), equalTo(second.getStoppedCount(NOW, NOW)));
+    }
+
+    @Test
+    @DisplayName("Stale copy of the own counts should not reset them")
+    public void shouldIgnoreStaleOwnCounts() {
+
+        //given
+        first.started(NOW, 1L);
+        second.merge(first.encode(), NOW);
+        first.started(NOW, 1L);
+
+        //when
+        first.merge(second.encode(), NOW);
+
+        //then
+        assertThat(first.getStartedCount(NOW, NOW), equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("Active count should keep the newest version of every node")
+    public void shouldKeepNewestActiveCount() {
+
+        //given
+        first.setActive(4L, NOW * 1000L + 10L);
+        second.setActive(7L, NOW * 1000L + 20L);
+        final byte[] stale = second.encode();
+        second.setActive(5L, NOW * 1000L + 30L);
+        first.merge(second.encode(), NOW);
+
+        //when
+        first.merge(stale, NOW);
+
+        //then
+        assertThat(first.getActiveCount(), equalTo(9L));
+    }
+
+    @Test
+    @DisplayName("Expired buckets should neither be summed nor revived by a merge")
+    public void shouldExpireBuckets() {
+
+        //given
+        second.started(NOW - 4000, 1L);
+        second.started(NOW, 1L);
+        first.started(NOW - 4000, 1L);
+
+        //when
+        first.expire(NOW);
+        first.merge(second.encode(), NOW);
+
+        //then
+        assertThat(first.getStartedCount(NOW - 5000, NOW), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("Node that stopped gossiping should lose its active count, then be forgotten with its buckets")
+    public void shouldForgetExpiredNodes() {
+
+        //given
+        second.setActive(3L, NOW * 1000L);
+        second.started(NOW, 1L);
+        final byte[] state = second.encode();
+        first.merge(state, NOW);
+
+        //when
+        first.expire(NOW + 31);
+
+        //then
+        assertThat(first.getActiveCount(), equalTo(0L));
+        assertThat(first.getNodeCount(), equalTo(2));
+
+        //when
+        first.expire(NOW + 3601);
+        first.merge(state, NOW + 3601);
+
+        //then
+        assertThat(first.getNodeCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Merge should ignore the active count of a node older than the node timeout")
+    public void shouldIgnoreExpiredActiveCount() {
+
+        //given
+        second.setActive(3L, (NOW - 60) * 1000L);
+
+        //when
+        first.merge(second.encode(), NOW);
+
+        //then
+        assertThat(first.getActiveCount(), equalTo(0L));
+        assertThat(first.getNodeCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Merge should reject a state that cannot be decoded")
+    public void shouldRejectInvalidState() {
+
+        //when
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new byte[]{1, 2, 3}, NOW));
+    }
+}
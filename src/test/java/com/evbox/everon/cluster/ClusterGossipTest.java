@@ -0,0 +1,165 @@
+package com.evbox.everon.cluster;
+
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClusterGossipTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2019-06-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private static final long NOW = CLOCK.instant().getEpochSecond();
+
+    private Map<String, ClusterGossip> nodes;
+
+    private GossipTransport inMemoryTransport;
+
+    @BeforeEach
+    public void init() {
+        nodes = new HashMap<>();
+        inMemoryTransport = (peer, state) -> nodes.get(peer).receive(state);
+    }
+
+    @Test
+    @DisplayName("Nodes gossiping in one JVM should converge to the counts of all nodes")
+    public void shouldConvergeInMemory() {
+
+        //given
+        final ClusterCounters a = node("a", 1L, inMemoryTransport, "b", "c");
+        final ClusterCounters b = node("b", 2L, inMemoryTransport, "a", "c");
+        final ClusterCounters c = node("c", 3L, inMemoryTransport, "a", "b");
+        a.started(NOW, 1L);
+        b.started(NOW, 2L);
+        c.started(NOW, 4L);
+        c.stopped(NOW, 1L);
+
+        //when
+        for (int round = 0; round < 2; round++) {
+            nodes.values().forEach(ClusterGossip::gossip);
+        }
+
+        //then
+        for (final ClusterCounters counters : Arrays.asList(a, b, c)) {
+            assertThat(counters.getStartedCount(NOW, NOW), equalTo(7L));
+            assertThat(counters.getStoppedCount(NOW, NOW), equalTo(1L));
+            assertThat(counters.getActiveCount(), equalTo(6L));
+            assertThat(counters.getNodeCount(), equalTo(3));
+        }
+    }
+
+    @Test
+    @DisplayName("Nodes gossiping over HTTP on localhost should exchange their counts")
+    public void shouldExchangeOverHttp() throws IOException {
+
+        //given
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        final String address = "localhost:" + server.getAddress().getPort();
+        server.createContext(ClusterController.GOSSIP_PATH, exchange -> {
+            final byte[] response = nodes.get(address).receive(readAll(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        try {
+            final HttpGossipTransport transport = new HttpGossipTransport(1000);
+            final ClusterCounters local = node("local", 1L, transport, address);
+            final ClusterCounters remote = node(address, 2L, transport);
+            local.started(NOW, 1L);
+            remote.started(NOW, 2L);
+
+            //when
+            nodes.get("local").gossip();
+
+            //then
+            assertThat(local.getStartedCount(NOW, NOW), equalTo(3L));
+            assertThat(remote.getStartedCount(NOW, NOW), equalTo(3L));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Unreachable peer should be skipped")
+    public void shouldSkipUnreachablePeer() {
+
+        //given
+        final ClusterCounters a = node("a", 1L, (peer, state) -> {
+            throw new IOException("Connection refused");
+        }, "b");
+        a.started(NOW, 1L);
+
+        //when
+        nodes.get("a").gossip();
+
+        //then
+        assertThat(a.getStartedCount(NOW, NOW), equalTo(1L));
+        assertThat(a.getActiveCount(), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("Only the addresses of the configured peers should be allowed to gossip")
+    public void shouldOnlyAcceptPeers() throws UnknownHostException {
+
+        //given
+        node("a", 1L, inMemoryTransport, "127.0.0.1:8081", "[::1]:8082");
+
+        //when
+        final ClusterGossip gossip = nodes.get("a");
+
+        //then
+        assertThat(gossip.isPeer(InetAddress.getByName("127.0.0.1")), equalTo(true));
+        assertThat(gossip.isPeer(InetAddress.getByName("::1")), equalTo(true));
+        assertThat(gossip.isPeer(InetAddress.getByName("10.0.0.1")), equalTo(false));
+    }
+
+    private ClusterCounters node(final String id, final long active, final GossipTransport transport,
+                                 final String... peers) {
+
+        final ChargingSessionRepository repository = mock(ChargingSessionRepository.class);
+        when(repository.countActive()).thenReturn(active);
+
+        final ClusterCounters counters = new ClusterCounters(id, 3600L, 30L);
+        final List<String> peerList = peers.length == 0 ? Collections.emptyList() : Arrays.asList(peers);
+        nodes.put(id, new ClusterGossip(counters, transport, repository, CLOCK, peerList));
+
+        return counters;
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+
+        return bytes.toByteArray();
+    }
+}
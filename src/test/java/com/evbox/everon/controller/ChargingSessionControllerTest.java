@@ -1,11 +1,18 @@
 package com.evbox.everon.controller;
 
+import com.evbox.everon.config.BinaryHttpMessageConverter;
+import com.evbox.everon.errorhandling.ResourceNotFoundException;
 import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.dto.BinaryCodec;
+import com.evbox.everon.model.dto.ChargingSessionBatchResult;
+import com.evbox.everon.model.dto.ChargingSessionPage;
 import com.evbox.everon.model.dto.ChargingSessionRequest;
 import com.evbox.everon.model.dto.ChargingSessionResponse;
 import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
 import com.evbox.everon.service.ChargingSessionService;
 import com.evbox.everon.service.ChargingSessionStatisticsService;
+import com.evbox.everon.service.SummaryPublisher;
+import com.evbox.everon.service.SummaryStreamService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
@@ -15,24 +22,46 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static com.evbox.everon.DateTimeUtils.format;
 import static java.time.LocalDateTime.now;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 public class ChargingSessionControllerTest {
@@ -43,14 +72,25 @@ public class ChargingSessionControllerTest {
     @MockBean
     private ChargingSessionStatisticsService chargingSessionStatisticsService;
 
+    @MockBean
+    private SummaryPublisher summaryPublisher;
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private SummaryStreamService summaryStreamService;
+
     private static final String STATION_ID = "EV-1234";
 
+    private static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+
     @Test
     @DisplayName("POST /chargingSessions - 200_OK")
     void shouldCreateChargingSession() throws Exception {
@@ -60,12 +100,16 @@ public class ChargingSessionControllerTest {
 
         ChargingSessionResponse expectedResponse = createSessionResponse(StatusEnum.IN_PROGRESS);
 
-        Mockito.doReturn(expectedResponse).when(chargingSessionService).create(anyString());
+        Mockito.doReturn(completedFuture(expectedResponse)).when(chargingSessionService).createAsync(anyString());
 
         //when
-        mockMvc.perform(post("/chargingSessions")
+        MvcResult mvcResult = mockMvc.perform(post("/chargingSessions")
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(valueAsString(request)))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
         //then
                             .andExpect(status().isOk())
                             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
@@ -91,6 +135,81 @@ public class ChargingSessionControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("PUT /chargingSessions/{id} - 404_Not_Found")
+    void shouldReturnNotFoundIfSessionIsNotActive() throws Exception {
+
+        //given
+        CompletableFuture<ChargingSessionResponse> notFound = new CompletableFuture<>();
+        notFound.completeExceptionally(new ResourceNotFoundException("No active session found"));
+
+        Mockito.doReturn(notFound).when(chargingSessionService).stopAsync(anyString());
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(put("/chargingSessions/{id}", UUID.randomUUID()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                //then
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("POST /chargingSessions/batch - 200_OK")
+    void shouldCreateChargingSessionsInBatch() throws Exception {
+
+        //given
+        ChargingSessionResponse expectedResponse = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(completedFuture(asList(ChargingSessionBatchResult.of(expectedResponse),
+                ChargingSessionBatchResult.error(HttpStatus.BAD_REQUEST, "stationId, must not be blank"))))
+                .when(chargingSessionService).createAllAsync(asList(STATION_ID, null));
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(post("/chargingSessions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(valueAsString(asList(new ChargingSessionRequest(STATION_ID), new ChargingSessionRequest(null)))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", equalTo(200)))
+                .andExpect(jsonPath("$[0].session.id", equalTo(expectedResponse.getId().toString())))
+                .andExpect(jsonPath("$[1].status", equalTo(400)))
+                .andExpect(jsonPath("$[1].session").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("PUT /chargingSessions/batch/stop - 200_OK")
+    void shouldStopChargingSessionsInBatch() throws Exception {
+
+        //given
+        ChargingSessionResponse expectedResponse = createSessionResponse(StatusEnum.FINISHED);
+        String id = expectedResponse.getId().toString();
+
+        Mockito.doReturn(completedFuture(singletonList(ChargingSessionBatchResult.of(expectedResponse))))
+                .when(chargingSessionService).stopAllAsync(singletonList(id));
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(put("/chargingSessions/batch/stop")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(valueAsString(singletonList(id))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", equalTo(200)))
+                .andExpect(jsonPath("$[0].session.status", equalTo(StatusEnum.FINISHED.toString())));
+    }
+
     @Test
     @DisplayName("PUT /chargingSessions/{id} - 200_OK")
     void shouldStopChargingSessionById() throws Exception {
@@ -98,10 +217,14 @@ public class ChargingSessionControllerTest {
         //given
         ChargingSessionResponse expectedResponse = createSessionResponse(StatusEnum.FINISHED);
 
-        Mockito.doReturn(expectedResponse).when(chargingSessionService).stop(anyString());
+        Mockito.doReturn(completedFuture(expectedResponse)).when(chargingSessionService).stopAsync(anyString());
 
         //when
-        mockMvc.perform(put("/chargingSessions/{id}", expectedResponse.getId()))
+        MvcResult mvcResult = mockMvc.perform(put("/chargingSessions/{id}", expectedResponse.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 //then
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
@@ -117,7 +240,7 @@ public class ChargingSessionControllerTest {
     void shouldGetEmptyArrayIfNoChargingSessions() throws Exception {
 
         //given
-        Mockito.doReturn(emptyList()).when(chargingSessionService).getAll();
+        Mockito.doReturn(new ChargingSessionPage(emptyList(), null)).when(chargingSessionService).getPage(null, 100);
 
         //when
         mockMvc.perform(get("/chargingSessions"))
@@ -135,7 +258,7 @@ public class ChargingSessionControllerTest {
         //given
         ChargingSessionResponse session = createSessionResponse(StatusEnum.FINISHED);
 
-        Mockito.doReturn(asList(session)).when(chargingSessionService).getAll();
+        Mockito.doReturn(new ChargingSessionPage(asList(session), null)).when(chargingSessionService).getPage(null, 100);
 
         //when
         mockMvc.perform(get("/chargingSessions"))
@@ -158,7 +281,7 @@ public class ChargingSessionControllerTest {
         ChargingSessionResponse session1 = createSessionResponse(StatusEnum.FINISHED);
         ChargingSessionResponse session2 = createSessionResponse(StatusEnum.IN_PROGRESS);
 
-        Mockito.doReturn(asList(session1, session2)).when(chargingSessionService).getAll();
+        Mockito.doReturn(new ChargingSessionPage(asList(session1, session2), null)).when(chargingSessionService).getPage(null, 100);
 
         //when
         mockMvc.perform(get("/chargingSessions"))
@@ -177,28 +300,524 @@ public class ChargingSessionControllerTest {
                 .andExpect(jsonPath("$[1].status", equalTo(session2.getStatus().toString())));
     }
 
+    @Test
+    @DisplayName("GET /chargingSessions?status=IN_PROGRESS - 200_OK")
+    void shouldGetActiveChargingSessions() throws Exception {
+
+        //given
+        ChargingSessionResponse session = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(asList(session)).when(chargingSessionService).getAllByStatus(StatusEnum.IN_PROGRESS);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("status", "IN_PROGRESS"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", equalTo(session.getId().toString())))
+                .andExpect(jsonPath("$[0].status", equalTo(StatusEnum.IN_PROGRESS.toString())));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?status= - 400_Bad_Request")
+    void shouldReturnBadRequestIfStatusIsUnknown() throws Exception {
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("status", "PAUSED"))
+                //then
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?status=&limit= - 400_Bad_Request instead of ignoring the limit")
+    void shouldReturnBadRequestIfStatusIsPaged() throws Exception {
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("status", "FINISHED").param("limit", "10"))
+                //then
+                .andExpect(status().isBadRequest());
+
+        verify(chargingSessionService, never()).getAllByStatus(any());
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?createdSince=&startedFrom= - 400_Bad_Request instead of ignoring one of them")
+    void shouldReturnBadRequestIfCreatedSinceIsCombinedWithTimeFilter() throws Exception {
+
+        //when
+        mockMvc.perform(get("/chargingSessions")
+                .param("createdSince", "2019-06-01T10:00:00Z")
+                .param("startedFrom", "2019-06-01T10:00:00"))
+                //then
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?limit= - 200_OK Full Page")
+    void shouldGetPageWithNextCursor() throws Exception {
+
+        //given
+        ChargingSessionResponse session1 = createSessionResponse(StatusEnum.FINISHED);
+        ChargingSessionResponse session2 = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(new ChargingSessionPage(asList(session1, session2), session2.getId().toString()))
+                .when(chargingSessionService).getPage(null, 2);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("limit", "2"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().string("X-Next-Cursor", session2.getId().toString()))
+
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", equalTo(session1.getId().toString())))
+                .andExpect(jsonPath("$[1].id", equalTo(session2.getId().toString())));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?cursor= - 200_OK Last Page")
+    void shouldGetLastPageWithoutNextCursor() throws Exception {
+
+        //given
+        String cursor = UUID.randomUUID().toString();
+        ChargingSessionResponse session = createSessionResponse(StatusEnum.FINISHED);
+
+        Mockito.doReturn(new ChargingSessionPage(asList(session), null)).when(chargingSessionService).getPage(cursor, 100);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("cursor", cursor))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", equalTo(session.getId().toString())));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?createdSince= - 200_OK First Page Created Since")
+    void shouldGetPageCreatedSince() throws Exception {
+
+        //given
+        Instant since = Instant.parse("2019-06-01T10:15:30Z");
+        ChargingSessionResponse session = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(new ChargingSessionPage(asList(session), null)).when(chargingSessionService).getPageCreatedSince(since, 100);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("createdSince", "2019-06-01T10:15:30Z"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", equalTo(session.getId().toString())));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?startedFrom=&startedTo= - 200_OK Page Of Time Range")
+    void shouldGetPageStartedBetween() throws Exception {
+
+        //given
+        LocalDateTime from = LocalDateTime.of(2019, 6, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2019, 6, 1, 11, 0);
+        ChargingSessionResponse session = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(new ChargingSessionPage(singletonList(session), "next"))
+                .when(chargingSessionService).getPageByTime(from, to, null, null, 1);
+
+        //when
+        mockMvc.perform(get("/chargingSessions")
+                .param("startedFrom", "2019-06-01T10:00:00")
+                .param("startedTo", "2019-06-01T11:00:00")
+                .param("limit", "1"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", equalTo(session.getId().toString())));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions?updatedSince= - 200_OK Last Page Updated Since")
+    void shouldGetPageUpdatedSince() throws Exception {
+
+        //given
+        LocalDateTime since = LocalDateTime.of(2019, 6, 1, 10, 0);
+
+        Mockito.doReturn(new ChargingSessionPage(emptyList(), null))
+                .when(chargingSessionService).getPageByTime(null, null, since, null, 100);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").param("updatedSince", "2019-06-01T10:00:00"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions stream+json - 200_OK")
+    void shouldStreamChargingSessions() throws Exception {
+
+        //given
+        ChargingSessionResponse session1 = createSessionResponse(StatusEnum.FINISHED);
+        ChargingSessionResponse session2 = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(Stream.of(session1, session2)).when(chargingSessionService).streamAll();
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(get("/chargingSessions").accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(content().string(valueAsString(session1) + "\n" + valueAsString(session2)));
+    }
+
     @Test
     @DisplayName("GET /chargingSessions/summary - 200_OK")
     void shouldGetSummary() throws Exception {
 
         //given
-        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(2,3);
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(2,3, 4L);
 
-        Mockito.doReturn(summary).when(chargingSessionStatisticsService).getSummary();
+        Mockito.doReturn(new SummaryPublisher.Snapshot(100L, 7L, summary, objectMapper.writeValueAsBytes(summary), new byte[0]))
+                .when(summaryPublisher).getSnapshot();
 
         //when
         mockMvc.perform(get("/chargingSessions/summary"))
                 //then
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().string("ETag", "\"2-3-4\""))
 
                 .andExpect(jsonPath("$.startedCount", equalTo(2)))
                 .andExpect(jsonPath("$.stoppedCount", equalTo(3)))
-                .andExpect(jsonPath("$.totalCount", equalTo(5)));
+                .andExpect(jsonPath("$.totalCount", equalTo(5)))
+                .andExpect(jsonPath("$.activeCount", equalTo(4)));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary - 200_OK in the binary encoding from the snapshot")
+    void shouldGetBinarySummary() throws Exception {
+
+        //given
+        byte[] binary = {2, 3, 5};
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(2, 3, 5L);
+
+        Mockito.doReturn(new SummaryPublisher.Snapshot(100L, 7L, summary, objectMapper.writeValueAsBytes(summary), binary))
+                .when(summaryPublisher).getSnapshot();
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary").accept(BinaryHttpMessageConverter.MEDIA_TYPE))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(header().string("ETag", "\"2-3-5-bin\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().bytes(binary));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions - 200_OK in the binary encoding")
+    void shouldGetAllChargingSessionsInBinary() throws Exception {
+
+        //given
+        List<ChargingSessionResponse> sessions = asList(createSessionResponse(StatusEnum.IN_PROGRESS),
+                createSessionResponse(StatusEnum.FINISHED));
+
+        Mockito.doReturn(new ChargingSessionPage(sessions, null)).when(chargingSessionService).getPage(null, 100);
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(get("/chargingSessions").accept(BinaryHttpMessageConverter.MEDIA_TYPE))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+
+        byte[] body = mvcResult.getResponse().getContentAsByteArray();
+        assertThat(BinaryCodec.readSessions(new ByteArrayInputStream(body)), equalTo(sessions));
+    }
+
+    @Test
+    @DisplayName("POST /chargingSessions/batch - 200_OK with a binary request and response")
+    void shouldCreateChargingSessionsInBinary() throws Exception {
+
+        //given
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        BinaryCodec.writeRequests(request, asList(new ChargingSessionRequest(STATION_ID), new ChargingSessionRequest(null)));
+
+        List<ChargingSessionBatchResult> results = asList(
+                ChargingSessionBatchResult.of(createSessionResponse(StatusEnum.IN_PROGRESS)),
+                ChargingSessionBatchResult.error(HttpStatus.BAD_REQUEST, "stationId must not be blank"));
+
+        Mockito.doReturn(completedFuture(results)).when(chargingSessionService).createAllAsync(asList(STATION_ID, null));
+
+        //when
+        MvcResult asyncResult = mockMvc.perform(post("/chargingSessions/batch")
+                .contentType(BinaryHttpMessageConverter.MEDIA_TYPE)
+                .accept(BinaryHttpMessageConverter.MEDIA_TYPE)
+                .content(request.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                //then
+                .andExpect(status().isOk())
+                .andReturn();
+
+        byte[] body = mvcResult.getResponse().getContentAsByteArray();
+        assertThat(BinaryCodec.readBatchResults(new ByteArrayInputStream(body)), equalTo(results));
+    }
+
+    @Test
+    @DisplayName("POST /chargingSessions - 400_Bad_Request for a truncated binary request")
+    void shouldReturnBadRequestForMalformedBinary() throws Exception {
+
+        //when
+        mockMvc.perform(post("/chargingSessions")
+                .contentType(BinaryHttpMessageConverter.MEDIA_TYPE)
+                .content(new byte[]{5, 'E', 'V'}))
+                //then
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("PUT /chargingSessions/{id} - 404_Not_Found in JSON when only the binary encoding is accepted")
+    void shouldReturnJsonErrorToBinaryClient() throws Exception {
+
+        //given
+        CompletableFuture<ChargingSessionResponse> notFound = new CompletableFuture<>();
+        notFound.completeExceptionally(new ResourceNotFoundException("No active session found"));
+
+        Mockito.doReturn(notFound).when(chargingSessionService).stopAsync(anyString());
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(put("/chargingSessions/{id}", UUID.randomUUID())
+                .accept(BinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                //then
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.errors[0]", equalTo("No active session found")));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/stations - 200_OK in JSON when any type is accepted")
+    void shouldPreferJson() throws Exception {
+
+        //given
+        Mockito.doReturn(singletonMap(STATION_ID, new ChargingSessionsSummaryResponse(1, 0)))
+                .when(chargingSessionStatisticsService).getStationSummaries();
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary/stations").accept(MediaType.ALL))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$['" + STATION_ID + "'].startedCount", equalTo(1)));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions - 304_NOT_MODIFIED with the ETag of the current version")
+    void shouldNotListUnmodifiedChargingSessions() throws Exception {
+
+        //given
+        Mockito.doReturn(42L).when(chargingSessionService).getVersion();
+
+        //when
+        mockMvc.perform(get("/chargingSessions").header("If-None-Match", "\"2a\""))
+                //then
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2a\""))
+                .andExpect(content().string(""));
+
+        verify(chargingSessionService, never()).getPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions - 200_OK with a new ETag after a change")
+    void shouldListModifiedChargingSessions() throws Exception {
+
+        //given
+        Mockito.doReturn(43L).when(chargingSessionService).getVersion();
+        Mockito.doReturn(new ChargingSessionPage(emptyList(), null)).when(chargingSessionService).getPage(null, 100);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").header("If-None-Match", "\"2a\""))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2b\""));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions - 200_OK in the binary encoding for the ETag of the JSON")
+    void shouldNotValidateJsonETagForBinary() throws Exception {
+
+        //given
+        Mockito.doReturn(42L).when(chargingSessionService).getVersion();
+        Mockito.doReturn(new ChargingSessionPage(emptyList(), null)).when(chargingSessionService).getPage(null, 100);
+
+        //when
+        mockMvc.perform(get("/chargingSessions").accept(BinaryHttpMessageConverter.MEDIA_TYPE).header("If-None-Match", "\"2a\""))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2a-bin\""));
+
+        mockMvc.perform(get("/chargingSessions").accept(BinaryHttpMessageConverter.MEDIA_TYPE).header("If-None-Match", "\"2a-bin\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary - 304_NOT_MODIFIED across ticks while the summary is unchanged")
+    void shouldNotWriteUnmodifiedSummary() throws Exception {
+
+        //given an idle node publishing the same summary on the next tick
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(0, 0, 3L);
+        byte[] json = objectMapper.writeValueAsBytes(summary);
+
+        Mockito.doReturn(new SummaryPublisher.Snapshot(100L, 7L, summary, json, new byte[0]),
+                new SummaryPublisher.Snapshot(101L, 7L, summary, json, new byte[0]))
+                .when(summaryPublisher).getSnapshot();
+
+        String eTag = mockMvc.perform(get("/chargingSessions/summary"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary").header("If-None-Match", eTag))
+                //then
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary?window= - 304_NOT_MODIFIED with the ETag of the computed summary")
+    void shouldNotWriteUnmodifiedWindowSummary() throws Exception {
+
+        //given
+        Mockito.doReturn(new ChargingSessionsSummaryResponse(2, 1, 3L))
+                .when(chargingSessionStatisticsService).getSummary(Duration.ofHours(1));
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary").param("window", "PT1H").header("If-None-Match", "\"2-1-3\""))
+                //then
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary?stationId= - 200_OK")
+    void shouldGetStationSummary() throws Exception {
+
+        //given
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(1,1);
+
+        Mockito.doReturn(summary).when(chargingSessionStatisticsService).getSummary(STATION_ID, ONE_MINUTE);
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary").param("stationId", STATION_ID))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$.startedCount", equalTo(1)))
+                .andExpect(jsonPath("$.stoppedCount", equalTo(1)))
+                .andExpect(jsonPath("$.totalCount", equalTo(2)));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary?window= - 200_OK")
+    void shouldGetSummaryOfWindow() throws Exception {
+
+        //given
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(7,4);
+
+        Mockito.doReturn(summary).when(chargingSessionStatisticsService).getSummary(Duration.ofHours(1));
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary").param("window", "PT1H"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$.startedCount", equalTo(7)))
+                .andExpect(jsonPath("$.stoppedCount", equalTo(4)))
+                .andExpect(jsonPath("$.totalCount", equalTo(11)));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary?window= - 400_Bad_Request")
+    void shouldReturnBadRequestIfWindowIsInvalid() throws Exception {
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary").param("window", "an hour"))
+                //then
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary/stations - 200_OK")
+    void shouldGetStationSummaries() throws Exception {
+
+        //given
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(2,1);
+
+        Mockito.doReturn(singletonMap(STATION_ID, summary)).when(chargingSessionStatisticsService).getStationSummaries();
+
+        //when
+        mockMvc.perform(get("/chargingSessions/summary/stations"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$['" + STATION_ID + "'].startedCount", equalTo(2)))
+                .andExpect(jsonPath("$['" + STATION_ID + "'].stoppedCount", equalTo(1)))
+                .andExpect(jsonPath("$['" + STATION_ID + "'].totalCount", equalTo(3)));
+    }
+
+    @Test
+    @DisplayName("GET /chargingSessions/summary/stream - 200_OK")
+    void shouldStreamSummary() throws Exception {
+
+        //given
+        ChargingSessionsSummaryResponse summary = new ChargingSessionsSummaryResponse(2, 1, 1L);
+
+        Mockito.doReturn(new SummaryPublisher.Snapshot(100L, 7L, summary, objectMapper.writeValueAsBytes(summary), new byte[0]))
+                .when(summaryPublisher).getSnapshot();
+
+        //when the scheduled broadcast pushes the snapshot
+        FluxExchangeResult<String> result = webTestClient.get().uri("/chargingSessions/summary/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                //then
+                .expectStatus().isOk()
+                .returnResult(String.class);
+
+        try {
+            assertThat(result.getResponseHeaders().getContentType().toString(), startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+            assertThat(result.getResponseBody().blockFirst(Duration.ofSeconds(5)), equalTo(valueAsString(summary)));
+        } finally {
+            // ends the stream before the mocked snapshot is reset
+            summaryStreamService.close();
+        }
     }
 
     private ChargingSessionResponse createSessionResponse(StatusEnum status) {
-        return new ChargingSessionResponse(UUID.randomUUID(), STATION_ID,  now(), status);
+        // millisecond precision, like the clock of the sessions
+        return new ChargingSessionResponse(UUID.randomUUID(), STATION_ID,  now().truncatedTo(ChronoUnit.MILLIS), status);
     }
 
     private String valueAsString(final Object obj) {
@@ -0,0 +1,130 @@
+package com.evbox.everon.controller;
+
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.dto.ChargingSessionRequest;
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+public class ReactiveChargingSessionControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private static final String STATION_ID = "EV-1234";
+
+    @Test
+    @DisplayName("Reactive charging session should be started, stopped, listed and appear in summary")
+    void shouldCreateStopAndListChargingSession() {
+
+        //start a new session
+        ChargingSessionResponse created = webTestClient.post().uri("/chargingSessions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody(new ChargingSessionRequest(STATION_ID))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ChargingSessionResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(created.getStatus(), equalTo(StatusEnum.IN_PROGRESS));
+
+        //stop the session
+        webTestClient.put().uri("/chargingSessions/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(StatusEnum.FINISHED.toString());
+
+        //should be listed
+        webTestClient.get().uri("/chargingSessions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(created.getId().toString());
+
+        //should appear in summary
+        webTestClient.get().uri("/chargingSessions/summary")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.startedCount").isEqualTo(1)
+                .jsonPath("$.stoppedCount").isEqualTo(1)
+                .jsonPath("$.activeCount").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Reactive list and summary should answer a matching If-None-Match with 304")
+    void shouldReturnNotModified() {
+
+        String listETag = webTestClient.get().uri("/chargingSessions")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/chargingSessions")
+                .header("If-None-Match", listETag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        String summaryETag = webTestClient.get().uri("/chargingSessions/summary")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        //a new session changes both
+        webTestClient.post().uri("/chargingSessions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody(new ChargingSessionRequest(STATION_ID))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/chargingSessions")
+                .header("If-None-Match", listETag)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/chargingSessions/summary")
+                .header("If-None-Match", summaryETag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("Reactive errors should map to the same statuses as the MVC profile")
+    void shouldReturnErrorStatuses() {
+
+        webTestClient.post().uri("/chargingSessions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody(new ChargingSessionRequest(null))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.put().uri("/chargingSessions/{id}", UUID.randomUUID())
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.get().uri("/chargingSessions/summary?window=forever")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,112 @@
+package com.evbox.everon.controller;
+
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.dto.ChargingSessionResponse;
+import com.evbox.everon.service.ChargingSessionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static com.evbox.everon.DateTimeUtils.format;
+import static java.time.LocalDateTime.now;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class StationControllerTest {
+
+    @MockBean
+    private ChargingSessionService chargingSessionService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String STATION_ID = "EV-1234";
+
+    @Test
+    @DisplayName("GET /stations/{stationId}/chargingSessions - 200_OK")
+    void shouldGetChargingSessionsOfStation() throws Exception {
+
+        //given
+        ChargingSessionResponse session1 = createSessionResponse(StatusEnum.FINISHED);
+        ChargingSessionResponse session2 = createSessionResponse(StatusEnum.IN_PROGRESS);
+
+        Mockito.doReturn(asList(session1, session2)).when(chargingSessionService).getAllByStation(STATION_ID);
+
+        //when
+        mockMvc.perform(get("/stations/{stationId}/chargingSessions", STATION_ID))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", equalTo(session1.getId().toString())))
+                .andExpect(jsonPath("$[0].stationId", equalTo(STATION_ID)))
+                .andExpect(jsonPath("$[0].updatedAt", equalTo(format(session1.getUpdatedAt()))))
+                .andExpect(jsonPath("$[0].status", equalTo(session1.getStatus().toString())))
+                .andExpect(jsonPath("$[1].id", equalTo(session2.getId().toString())));
+    }
+
+    @Test
+    @DisplayName("GET /stations/{stationId}/chargingSessions - 200_OK Empty")
+    void shouldGetEmptyArrayIfStationHasNoChargingSessions() throws Exception {
+
+        //given
+        Mockito.doReturn(emptyList()).when(chargingSessionService).getAllByStation(STATION_ID);
+
+        //when
+        mockMvc.perform(get("/stations/{stationId}/chargingSessions", STATION_ID))
+                //then
+                .andExpect(status().isOk())
+
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    @DisplayName("PUT /stations/{stationId}/chargingSessions - 200_OK")
+    void shouldStopAllChargingSessionsOfStation() throws Exception {
+
+        //given
+        ChargingSessionResponse session = createSessionResponse(StatusEnum.FINISHED);
+
+        Mockito.doReturn(completedFuture(asList(session))).when(chargingSessionService).stopAllByStationAsync(STATION_ID);
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(put("/stations/{stationId}/chargingSessions", STATION_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", equalTo(session.getId().toString())))
+                .andExpect(jsonPath("$[0].status", equalTo(StatusEnum.FINISHED.toString())));
+    }
+
+    private ChargingSessionResponse createSessionResponse(StatusEnum status) {
+        return new ChargingSessionResponse(UUID.randomUUID(), STATION_ID, now(), status);
+    }
+}
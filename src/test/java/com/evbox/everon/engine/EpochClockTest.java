@@ -0,0 +1,77 @@
+package com.evbox.everon.engine;
+
+import com.evbox.everon.model.EpochNanos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EpochClockTest {
+
+    private static final ZoneId AMSTERDAM = ZoneId.of("Europe/Amsterdam");
+
+    @Test
+    @DisplayName("Should read the local date-time of the clock")
+    public void shouldReadLocalDateTime() {
+
+        //given
+        EpochClock clock = new EpochClock(Clock.fixed(Instant.parse("2019-06-01T10:15:30.123Z"), AMSTERDAM));
+
+        //when
+        long actual = clock.nanos();
+
+        //then
+        assertThat(EpochNanos.toLocalDateTime(actual), equalTo(LocalDateTime.of(2019, 6, 1, 12, 15, 30, 123_000_000)));
+    }
+
+    @Test
+    @DisplayName("Should follow the clock over a daylight saving time transition and back")
+    public void shouldFollowOffsetTransitions() {
+
+        //given
+        MutableClock source = new MutableClock(Instant.parse("2019-03-31T00:59:59Z"));
+        EpochClock clock = new EpochClock(source);
+
+        //when
+        long beforeTransition = clock.nanos();
+        source.instant = Instant.parse("2019-03-31T01:00:00Z");
+        long afterTransition = clock.nanos();
+        source.instant = Instant.parse("2019-03-30T12:00:00Z");
+        long wentBack = clock.nanos();
+
+        //then
+        assertThat(EpochNanos.toLocalDateTime(beforeTransition), equalTo(LocalDateTime.of(2019, 3, 31, 1, 59, 59)));
+        assertThat(EpochNanos.toLocalDateTime(afterTransition), equalTo(LocalDateTime.of(2019, 3, 31, 3, 0)));
+        assertThat(EpochNanos.toLocalDateTime(wentBack), equalTo(LocalDateTime.of(2019, 3, 30, 13, 0)));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return AMSTERDAM;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.evbox.everon.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleWriterCommandExecutorTest {
+
+    private SingleWriterCommandExecutor executor;
+
+    @BeforeEach
+    public void init() {
+        executor = new SingleWriterCommandExecutor(4);
+    }
+
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Commands of many callers should be applied by a single thread")
+    public void shouldApplyCommandsOnSingleThread() throws Exception {
+
+        //given
+        Set<String> threads = new HashSet<>();
+        List<Integer> applied = new ArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+
+        //when
+        List<Future<CompletableFuture<Integer>>> submitted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            submitted.add(callers.submit(() -> executor.execute(v -> {
+                threads.add(Thread.currentThread().getName());
+                applied.add(v);
+                return v * 2;
+            }, value)));
+        }
+
+        long sum = 0L;
+        for (Future<CompletableFuture<Integer>> future : submitted) {
+            sum += future.get().get();
+        }
+        callers.shutdown();
+
+        //then
+        assertThat(threads, contains("session-writer"));
+        assertThat(applied.size(), equalTo(1000));
+        assertThat(sum, equalTo(999L * 1000L));
+    }
+
+    @Test
+    @DisplayName("A failing command should complete its future exceptionally")
+    public void shouldCompleteExceptionallyIfCommandFails() {
+
+        //when
+        CompletableFuture<Object> result = executor.execute(v -> {
+            throw new IllegalStateException(v);
+        }, "failed");
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+        assertThat(executor.execute(v -> v, "next").join(), equalTo("next"));
+    }
+
+    @Test
+    @DisplayName("Commands after close should be rejected")
+    public void shouldRejectCommandsAfterClose() throws InterruptedException {
+
+        //given
+        executor.close();
+
+        //when
+        CompletableFuture<String> result = executor.execute(v -> v, "rejected");
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertThat(exception.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+
+    @Test
+    @DisplayName("Callers waiting on a full ring while the executor closes should complete")
+    public void shouldCompleteWaitingCallersOnClose() throws Exception {
+
+        //given a writer held by a command and callers waiting for a free entry
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(v -> {
+            await(release);
+            return v;
+        }, "blocking");
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        List<Future<CompletableFuture<Integer>>> submitted = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            final int value = i;
+            submitted.add(callers.submit(() -> executor.execute(v -> v, value)));
+        }
+
+        //when
+        Thread closing = new Thread(() -> {
+            try {
+                executor.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closing.start();
+        release.countDown();
+        closing.join(TimeUnit.SECONDS.toMillis(5));
+
+        //then every caller returns and every future completes, applied or rejected
+        for (Future<CompletableFuture<Integer>> future : submitted) {
+            CompletableFuture<Integer> result = future.get(5, TimeUnit.SECONDS);
+            try {
+                result.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+            }
+        }
+        callers.shutdown();
+        assertThat(closing.isAlive(), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("An Error should stop the writer and reject the pending commands")
+    public void shouldRejectCommandsAfterError() {
+
+        //when
+        CompletableFuture<Object> failed = executor.execute(v -> {
+            throw new AssertionError(v);
+        }, "error");
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), instanceOf(RejectedExecutionException.class));
+
+        ExecutionException next = assertThrows(ExecutionException.class,
+                () -> executor.execute(v -> v, "next").get(5, TimeUnit.SECONDS));
+        assertThat(next.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
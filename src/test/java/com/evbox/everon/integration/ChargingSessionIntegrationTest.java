@@ -17,7 +17,9 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.UUID;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -44,9 +46,10 @@ public class ChargingSessionIntegrationTest {
         ChargingSessionRequest request = new ChargingSessionRequest(STATION_ID);
 
         //start a new session
-        mockMvc.perform(post("/chargingSessions")
+        mockMvc.perform(asyncDispatch(mockMvc.perform(post("/chargingSessions")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andReturn()))
                 //then
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
@@ -62,7 +65,8 @@ public class ChargingSessionIntegrationTest {
 
                 .andExpect(jsonPath("$.startedCount", equalTo(1)))
                 .andExpect(jsonPath("$.stoppedCount", equalTo(0)))
-                .andExpect(jsonPath("$.totalCount", equalTo(1)));
+                .andExpect(jsonPath("$.totalCount", equalTo(1)))
+                .andExpect(jsonPath("$.activeCount", equalTo(1)));
     }
 
     @Test
@@ -72,9 +76,10 @@ public class ChargingSessionIntegrationTest {
         ChargingSessionRequest request = new ChargingSessionRequest(STATION_ID);
 
         //start a new session
-        MvcResult mvcResult = mockMvc.perform(post("/chargingSessions")
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(mockMvc.perform(post("/chargingSessions")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andReturn()))
                 //then
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
@@ -86,7 +91,8 @@ public class ChargingSessionIntegrationTest {
         ChargingSessionResponse chargingSession = read(mvcResult, ChargingSessionResponse.class);
 
         //stop the session
-        mockMvc.perform(put("/chargingSessions/{id}", chargingSession.getId()))
+        mockMvc.perform(asyncDispatch(mockMvc.perform(put("/chargingSessions/{id}", chargingSession.getId()))
+                .andReturn()))
                 //then
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
@@ -103,9 +109,38 @@ public class ChargingSessionIntegrationTest {
 
                 .andExpect(jsonPath("$.startedCount", equalTo(1)))
                 .andExpect(jsonPath("$.stoppedCount", equalTo(1)))
-                .andExpect(jsonPath("$.totalCount", equalTo(2)));
+                .andExpect(jsonPath("$.totalCount", equalTo(2)))
+                .andExpect(jsonPath("$.activeCount", equalTo(0)));
     }
 
+    @Test
+    @DisplayName("Request latencies, sizes and failed stops should be exposed to Prometheus")
+    void shouldExposeMetricsToPrometheus() throws Exception {
+
+        ChargingSessionRequest request = new ChargingSessionRequest(STATION_ID);
+
+        mockMvc.perform(asyncDispatch(mockMvc.perform(post("/chargingSessions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andReturn()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(mockMvc.perform(put("/chargingSessions/{id}", UUID.randomUUID()))
+                .andReturn()))
+                .andExpect(status().isNotFound());
+
+        //should be scraped
+        mockMvc.perform(get("/actuator/prometheus"))
+                //then
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{application=\"everon\",exception=\"None\",method=\"POST\",outcome=\"SUCCESS\",status=\"200\",uri=\"/chargingSessions\"")))
+                .andExpect(content().string(containsString("everon_sessions{application=\"everon\",} 1.0")))
+                .andExpect(content().string(containsString("everon_sessions_active{application=\"everon\",} 1.0")))
+                .andExpect(content().string(containsString("everon_statistics_stations{application=\"everon\",} 1.0")))
+                .andExpect(content().string(containsString("everon_engine_pending{application=\"everon\",} 0.0")))
+                .andExpect(content().string(containsString("everon_sessions_stop_failed_total{application=\"everon\",reason=\"not_found\",} 1.0")))
+                .andExpect(content().string(containsString("everon_statistics_eviction_seconds_count")));
+    }
 
     private <T> T read(MvcResult startResponse, Class<T> theClass) throws UnsupportedEncodingException {
         return deserialize(startResponse.getResponse().getContentAsString(), theClass);
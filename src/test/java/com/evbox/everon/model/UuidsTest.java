@@ -0,0 +1,100 @@
+package com.evbox.everon.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UuidsTest {
+
+    @Test
+    @DisplayName("Random should create version 4 UUIDs of the IETF variant")
+    public void shouldCreateRandomUuid() {
+
+        //when
+        UUID actual = Uuids.random();
+
+        //then
+        assertThat(actual.version(), equalTo(4));
+        assertThat(actual.variant(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("TimeOrdered should create version 7 UUIDs ordered by their time")
+    public void shouldCreateTimeOrderedUuids() {
+
+        //given
+        long millis = Instant.parse("2019-06-01T10:15:30Z").toEpochMilli();
+
+        //when
+        UUID earlier = Uuids.timeOrdered(millis);
+        UUID later = Uuids.timeOrdered(millis + 1);
+
+        //then
+        assertThat(earlier.version(), equalTo(7));
+        assertThat(earlier.variant(), equalTo(2));
+        assertThat(earlier.getMostSignificantBits() >>> 16, equalTo(millis));
+        assertThat(earlier.compareTo(later), lessThan(0));
+    }
+
+    @Test
+    @DisplayName("TimeOrderedBefore should separate the ids created before the time from the others")
+    public void shouldBoundTimeOrderedUuids() {
+
+        //given
+        long millis = Instant.parse("2019-06-01T10:15:30Z").toEpochMilli();
+        UUID bound = Uuids.timeOrderedBefore(millis);
+
+        //when
+        UUID before = new UUID((millis - 1) << 16 | 0x7FFFL, -1L);
+        UUID at = new UUID(millis << 16 | 0x7000L, Long.MIN_VALUE);
+
+        //then
+        assertThat(before.compareTo(bound), lessThan(0));
+        assertThat(at.compareTo(bound), greaterThan(0));
+    }
+
+    @Test
+    @DisplayName("Parse should read the canonical form like UUID.fromString")
+    public void shouldParseCanonicalForm() {
+
+        //given
+        UUID expected = UUID.randomUUID();
+
+        //when
+        UUID lowerCase = Uuids.parse(expected.toString());
+        UUID upperCase = Uuids.parse(expected.toString().toUpperCase());
+
+        //then
+        assertThat(lowerCase, equalTo(expected));
+        assertThat(upperCase, equalTo(expected));
+    }
+
+    @Test
+    @DisplayName("Parse should pass other forms to UUID.fromString")
+    public void shouldParseOtherForms() {
+
+        //when
+        UUID actual = Uuids.parse("1-2-3-4-5");
+
+        //then
+        assertThat(actual, equalTo(UUID.fromString("1-2-3-4-5")));
+    }
+
+    @Test
+    @DisplayName("Parse should throw IllegalArgumentException for invalid digits")
+    public void shouldThrowIllegalArgumentExceptionForInvalidDigits() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> Uuids.parse("123e4567-e89b-12d3-a456-42665544000g")
+        );
+    }
+}
@@ -0,0 +1,165 @@
+package com.evbox.everon.model.dto;
+
+import com.evbox.everon.model.StatusEnum;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryCodecTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2019, 6, 1, 10, 15, 30, 123_000_000);
+
+    @Test
+    @DisplayName("Sessions should round-trip, including null fields and times before the epoch")
+    public void shouldRoundTripSessions() throws IOException {
+
+        //given
+        List<ChargingSessionResponse> sessions = Arrays.asList(
+                new ChargingSessionResponse(UUID.randomUUID(), "EV-1234", UPDATED_AT, StatusEnum.IN_PROGRESS),
+                new ChargingSessionResponse(UUID.randomUUID(), "EV-ünïcödé", LocalDateTime.of(1960, 1, 1, 0, 0), StatusEnum.FINISHED),
+                new ChargingSessionResponse(UUID.randomUUID(), null, null, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        BinaryCodec.writeSessions(out, sessions);
+
+        //then
+        assertThat(BinaryCodec.readSessions(new ByteArrayInputStream(out.toByteArray())), equalTo(sessions));
+    }
+
+    @Test
+    @DisplayName("A session should take 31 bytes, a third of its JSON")
+    public void shouldEncodeSessionCompactly() throws IOException {
+
+        //given
+        ChargingSessionResponse session = new ChargingSessionResponse(UUID.randomUUID(), "EV-1234", UPDATED_AT, StatusEnum.IN_PROGRESS);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        BinaryCodec.writeSession(out, session);
+
+        //then 16 bytes id, 8 bytes station, 6 bytes time, 1 byte status
+        assertThat(out.size(), equalTo(31));
+    }
+
+    @Test
+    @DisplayName("Times should be truncated to millis, the precision of the session clock")
+    public void shouldTruncateTimesToMillis() throws IOException {
+
+        //given
+        ChargingSessionResponse session = new ChargingSessionResponse(UUID.randomUUID(), "EV-1234",
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999), StatusEnum.FINISHED);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        BinaryCodec.writeSession(out, session);
+
+        //then
+        assertThat(BinaryCodec.readSession(new ByteArrayInputStream(out.toByteArray())).getUpdatedAt(),
+                equalTo(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000)));
+    }
+
+    @Test
+    @DisplayName("Summaries and batch results should round-trip")
+    public void shouldRoundTripSummariesAndBatchResults() throws IOException {
+
+        //given
+        Map<String, ChargingSessionsSummaryResponse> summaries = new HashMap<>();
+        summaries.put("EV-1", new ChargingSessionsSummaryResponse(2, 3, 4L));
+        summaries.put("EV-2", new ChargingSessionsSummaryResponse(200_000, 0));
+
+        List<ChargingSessionBatchResult> results = Arrays.asList(
+                ChargingSessionBatchResult.of(new ChargingSessionResponse(UUID.randomUUID(), "EV-1", UPDATED_AT, StatusEnum.FINISHED)),
+                new ChargingSessionBatchResult(404, null, "Charging session not found"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        BinaryCodec.writeSummaries(out, summaries);
+        BinaryCodec.writeBatchResults(out, results);
+
+        //then
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertThat(BinaryCodec.readSummaries(in), equalTo(summaries));
+        assertThat(BinaryCodec.readBatchResults(in), equalTo(results));
+        assertThat(in.available(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("Requests and strings should round-trip")
+    public void shouldRoundTripRequests() throws IOException {
+
+        //given
+        List<ChargingSessionRequest> requests = Arrays.asList(new ChargingSessionRequest("EV-1"), new ChargingSessionRequest(null));
+        List<String> ids = Arrays.asList(UUID.randomUUID().toString(), "not-a-uuid", null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        BinaryCodec.writeRequests(out, requests);
+        BinaryCodec.writeStrings(out, ids);
+
+        //then
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertThat(BinaryCodec.readRequests(in), equalTo(requests));
+        assertThat(BinaryCodec.readStrings(in), equalTo(ids));
+    }
+
+    @Test
+    @DisplayName("Varints should take one byte up to 127 and round-trip every long")
+    public void shouldRoundTripVarints() throws IOException {
+
+        for (long value : new long[]{0L, 1L, 127L, 128L, 300L, Long.MAX_VALUE, -1L, Long.MIN_VALUE}) {
+
+            //given
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            //when
+            BinaryCodec.writeVarint(out, value);
+
+            //then
+            assertThat(BinaryCodec.readVarint(new ByteArrayInputStream(out.toByteArray())), equalTo(value));
+            if (value >= 0L && value < 128L) {
+                assertThat(out.size(), equalTo(1));
+            } else {
+                assertThat(out.size(), lessThan(11));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A truncated or malformed payload should fail to decode")
+    public void shouldRejectMalformedPayloads() throws IOException {
+
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCodec.writeSession(out, new ChargingSessionResponse(UUID.randomUUID(), "EV-1", UPDATED_AT, StatusEnum.FINISHED));
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+
+        byte[] invalidStatus = out.toByteArray();
+        invalidStatus[invalidStatus.length - 1] = 9;
+
+        //when //then
+        assertThrows(EOFException.class, () -> BinaryCodec.readSession(new ByteArrayInputStream(truncated)));
+        assertThrows(IOException.class, () -> BinaryCodec.readSession(new ByteArrayInputStream(invalidStatus)));
+        assertThrows(IOException.class, () -> BinaryCodec.readStrings(new ByteArrayInputStream(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F})));
+    }
+}
@@ -1,20 +1,26 @@
 package com.evbox.everon.repository;
 
 import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
 import com.evbox.everon.model.StatusEnum;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.time.LocalDateTime.now;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -136,10 +142,305 @@ public class InMemoryChargingSessionRepositoryTest {
         assertThat(all, hasSize(2));
     }
 
+    @Test
+    @DisplayName("FindAll page should return sessions ordered by id up to the limit")
+    public void shouldReturnFirstPageOrderedById() {
+
+        //given
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        repository.save(createChargingSession(third));
+        repository.save(createChargingSession(first));
+        repository.save(createChargingSession(second));
+
+        //when
+        List<ChargingSession> page = repository.findAll(null, 2);
+
+        //then
+        assertThat(page, hasSize(2));
+        assertThat(page.get(0).getId(), equalTo(first));
+        assertThat(page.get(1).getId(), equalTo(second));
+    }
+
+    @Test
+    @DisplayName("FindAll page should continue after the given id")
+    public void shouldReturnPageAfterCursor() {
+
+        //given
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        repository.save(createChargingSession(first));
+        repository.save(createChargingSession(second));
+        repository.save(createChargingSession(third));
+
+        //when
+        List<ChargingSession> page = repository.findAll(second, 2);
+
+        //then
+        assertThat(page, hasSize(1));
+        assertThat(page.get(0).getId(), equalTo(third));
+    }
+
+    @Test
+    @DisplayName("FindAll page should not repeat updated sessions")
+    public void shouldNotRepeatUpdatedSessionsInPage() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        chargingSession.setStatus(StatusEnum.FINISHED);
+        repository.save(chargingSession);
+
+        //when
+        List<ChargingSession> page = repository.findAll(null, 10);
+
+        //then
+        assertThat(page, hasSize(1));
+        assertThat(page.get(0).getStatus(), equalTo(StatusEnum.FINISHED));
+    }
+
+    @Test
+    @DisplayName("StreamAll should stream every session")
+    public void shouldStreamAllSessions() {
+
+        //given
+        repository.save(createChargingSession(UUID.randomUUID()));
+        repository.save(createChargingSession(UUID.randomUUID()));
+
+        //when
+        long count = repository.streamAll().count();
+
+        //then
+        assertThat(count, equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("FindByStationId should return only sessions of the station")
+    public void shouldFindByStationId() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        repository.save(createChargingSession(UUID.randomUUID(), "EV-5678"));
+
+        //when
+        List<ChargingSession> stationSessions = repository.findByStationId("EV-1234");
+
+        //then
+        assertThat(stationSessions, hasSize(1));
+        assertThat(stationSessions.get(0), equalTo(chargingSession));
+    }
+
+    @Test
+    @DisplayName("FindByStationId should return empty list for unknown station")
+    public void shouldReturnEmptyListForUnknownStation() {
+
+        //given
+        repository.save(createChargingSession(UUID.randomUUID()));
+
+        //when
+        List<ChargingSession> stationSessions = repository.findByStationId("EV-5678");
+
+        //then
+        assertThat(stationSessions, empty());
+    }
+
+    @Test
+    @DisplayName("FindByStationId should follow a session saved with another station")
+    public void shouldReindexSessionSavedWithAnotherStation() {
+
+        //given
+        UUID id = UUID.randomUUID();
+        repository.save(createChargingSession(id));
+        repository.save(createChargingSession(id, "EV-5678"));
+
+        //when, then
+        assertThat(repository.findByStationId("EV-1234"), empty());
+        assertThat(repository.findByStationId("EV-5678"), hasSize(1));
+    }
+
+    @Test
+    @DisplayName("FindAllByStatus should return sessions in progress from the active set")
+    public void shouldFindActiveSessions() {
+
+        //given
+        ChargingSession active = createChargingSession(UUID.randomUUID());
+        ChargingSession stopped = createChargingSession(UUID.randomUUID());
+        repository.save(active);
+        repository.save(stopped);
+        stopped.setStatus(StatusEnum.FINISHED);
+        repository.save(stopped);
+
+        //when
+        List<ChargingSession> activeSessions = repository.findAllByStatus(StatusEnum.IN_PROGRESS);
+        List<ChargingSession> finishedSessions = repository.findAllByStatus(StatusEnum.FINISHED);
+
+        //then
+        assertThat(activeSessions, hasSize(1));
+        assertThat(activeSessions.get(0), equalTo(active));
+        assertThat(finishedSessions, hasSize(1));
+        assertThat(finishedSessions.get(0), equalTo(stopped));
+    }
+
+    @Test
+    @DisplayName("CountActive should count only sessions in progress")
+    public void shouldCountActiveSessions() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        repository.save(createChargingSession(UUID.randomUUID()));
+        chargingSession.setStatus(StatusEnum.FINISHED);
+        repository.save(chargingSession);
+
+        //when
+        long activeCount = repository.countActive();
+
+        //then
+        assertThat(activeCount, equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("CountActive should not drift when sessions are created while their station is stopped")
+    public void shouldCountActiveSessionsUnderConcurrentStationStops() throws InterruptedException {
+
+        //given
+        int sessions = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean creating = new AtomicBoolean(true);
+
+        Thread creator = new Thread(() -> {
+            awaitQuietly(start);
+            for (int i = 0; i < sessions; i++) {
+                repository.save(createChargingSession(UUID.randomUUID()));
+            }
+            creating.set(false);
+        });
+        Thread stopper = new Thread(() -> {
+            awaitQuietly(start);
+            while (creating.get()) {
+                for (ChargingSession session : repository.findByStationId("EV-1234")) {
+                    if (session.getStatus() == StatusEnum.IN_PROGRESS) {
+                        repository.save(finishedCopyOf(session));
+                    }
+                }
+            }
+        });
+        creator.start();
+        stopper.start();
+
+        //when
+        start.countDown();
+        creator.join();
+        stopper.join();
+
+        //then
+        long inProgress = repository.findAll().stream()
+                .filter(session -> session.getStatus() == StatusEnum.IN_PROGRESS)
+                .count();
+        assertThat(repository.countActive(), equalTo(inProgress));
+        assertThat(repository.findAllByStatus(StatusEnum.IN_PROGRESS), hasSize((int) inProgress));
+    }
+
+    @Test
+    @DisplayName("FindStartedBetween should return sessions of the range ordered by start time")
+    public void shouldFindStartedBetween() {
+
+        //given
+        LocalDateTime t0 = LocalDateTime.of(2019, 6, 1, 10, 0);
+        ChargingSession before = createChargingSession(UUID.randomUUID(), t0.minusNanos(1));
+        ChargingSession first = createChargingSession(UUID.randomUUID(), t0);
+        ChargingSession second = createChargingSession(UUID.randomUUID(), t0.plusMinutes(1));
+        ChargingSession last = createChargingSession(UUID.randomUUID(), t0.plusMinutes(2));
+        repository.save(last);
+        repository.save(second);
+        repository.save(first);
+        repository.save(before);
+
+        //when
+        List<ChargingSession> firstPage = repository.findStartedBetween(TimeKey.before(EpochNanos.of(t0)),
+                EpochNanos.of(t0.plusMinutes(2)), 1);
+        List<ChargingSession> secondPage = repository.findStartedBetween(TimeKey.startedAt(firstPage.get(0)),
+                EpochNanos.of(t0.plusMinutes(2)), 10);
+
+        //then
+        assertThat(firstPage, contains(first));
+        assertThat(secondPage, contains(second));
+    }
+
+    @Test
+    @DisplayName("FindUpdatedAfter should move a session to its new update time")
+    public void shouldFindUpdatedAfter() {
+
+        //given
+        LocalDateTime t0 = LocalDateTime.of(2019, 6, 1, 10, 0);
+        ChargingSession stopped = createChargingSession(UUID.randomUUID(), t0);
+        ChargingSession active = createChargingSession(UUID.randomUUID(), t0.plusMinutes(1));
+        repository.save(stopped);
+        repository.save(active);
+
+        stopped.setStatus(StatusEnum.FINISHED);
+        stopped.setUpdatedAt(t0.plusMinutes(2));
+        repository.save(stopped);
+
+        //when
+        List<ChargingSession> all = repository.findUpdatedAfter(TimeKey.before(EpochNanos.of(t0)), 10);
+        List<ChargingSession> since = repository.findUpdatedAfter(TimeKey.before(EpochNanos.of(t0.plusMinutes(2))), 10);
+
+        //then
+        assertThat(all, contains(active, stopped));
+        assertThat(since, contains(stopped));
+    }
+
+    @Test
+    @DisplayName("Every save should increase the version")
+    public void shouldIncreaseVersionOnSave() {
+
+        //given
+        ChargingSession chargingSession = repository.save(createChargingSession(UUID.randomUUID()));
+        long created = repository.getVersion();
+        chargingSession.setStatus(StatusEnum.FINISHED);
+
+        //when
+        repository.save(chargingSession);
+
+        //then
+        assertThat(created, greaterThan(0L));
+        assertThat(repository.getVersion(), greaterThan(created));
+    }
+
+    private ChargingSession finishedCopyOf(ChargingSession session) {
+        ChargingSession finished = createChargingSession(session.getId(), session.getStationId());
+        finished.setStartedAt(session.getStartedAt());
+        finished.setStatus(StatusEnum.FINISHED);
+        return finished;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ChargingSession createChargingSession(UUID id, LocalDateTime startedAt) {
+        ChargingSession chargingSession = createChargingSession(id);
+        chargingSession.setStartedAt(startedAt);
+        chargingSession.setUpdatedAt(startedAt);
+        return chargingSession;
+    }
+
     private ChargingSession createChargingSession(UUID id) {
+        return createChargingSession(id, "EV-1234");
+    }
+
+    private ChargingSession createChargingSession(UUID id, String stationId) {
         ChargingSession chargingSession = new ChargingSession();
         chargingSession.setId(id);
-        chargingSession.setStationId("EV-1234");
+        chargingSession.setStationId(stationId);
         chargingSession.setStartedAt(now());
         chargingSession.setStatus(StatusEnum.IN_PROGRESS);
         return chargingSession;
@@ -0,0 +1,408 @@
+package com.evbox.everon.repository.columnar;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.TimeKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.time.LocalDateTime.now;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnarChargingSessionRepositoryTest {
+
+    private ChargingSessionRepository repository;
+
+    @BeforeEach
+    public void init() {
+        repository = new ColumnarChargingSessionRepository();
+    }
+
+    @Test
+    @DisplayName("Save should save charging session")
+    public void shouldSaveChargingSession() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+
+        //when
+        ChargingSession actual = repository.save(chargingSession);
+
+        //then
+        assertThat(actual, equalTo(chargingSession));
+    }
+
+    @Test
+    @DisplayName("Save should throw Exception if charging session is null")
+    public void shouldThrowNullPointerExceptionWhenNull() {
+
+        // when, then
+        assertThrows(NullPointerException.class,
+                () -> repository.save(null)
+        );
+    }
+
+    @Test
+    @DisplayName("FindById Should find charging session by id")
+    public void shouldFindById() {
+
+        //given
+        UUID id = UUID.randomUUID();
+
+        ChargingSession chargingSession = createChargingSession(id);
+        repository.save(chargingSession);
+
+        //when
+        Optional<ChargingSession> actual = repository.findById(id);
+
+        //then
+        assertThat("isPresent", actual.isPresent());
+        assertThat(actual.get(), equalTo(chargingSession));
+    }
+
+    @Test
+    @DisplayName("FindById should return empty optional if given id is not present")
+    public void shouldReturnEmptyOptionalIfIdIsNotPresent() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+
+        //when
+        Optional<ChargingSession> actual = repository.findById(UUID.randomUUID());
+
+        //then
+        assertThat(actual, is(Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("FindById should throw Exception if id is null")
+    public void shouldThrowNullPointerExceptionIfIdIsNull() {
+
+        // when, then
+        assertThrows(NullPointerException.class,
+                () -> repository.findById(null)
+        );
+    }
+
+    @Test
+    @DisplayName("FindAll should return empty list when repository is empty")
+    public void shouldReturnEmptyListIfRepoIsEmpty() {
+
+        //when
+        List<ChargingSession> all = repository.findAll();
+
+        //then
+        assertThat(all, empty());
+    }
+
+    @Test
+    @DisplayName("FindAll should return one item list when repository holds one item")
+    public void shouldReturnOneItemListIfRepoHasOneItem() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+
+        //when
+        List<ChargingSession> all = repository.findAll();
+
+        //then
+        assertThat(all, hasSize(1));
+        assertThat(all.get(0), equalTo(chargingSession));
+    }
+
+    @Test
+    @DisplayName("FindAll should return two items when repository holds two items")
+    public void shouldReturnTwoItemsIfRepoHasTwoItems() {
+
+        //given
+        repository.save(createChargingSession(UUID.randomUUID()));
+        repository.save(createChargingSession(UUID.randomUUID()));
+
+        //when
+        List<ChargingSession> all = repository.findAll();
+
+        //then
+        assertThat(all, hasSize(2));
+    }
+
+    @Test
+    @DisplayName("FindAll page should return sessions ordered by id up to the limit")
+    public void shouldReturnFirstPageOrderedById() {
+
+        //given
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        repository.save(createChargingSession(third));
+        repository.save(createChargingSession(first));
+        repository.save(createChargingSession(second));
+
+        //when
+        List<ChargingSession> page = repository.findAll(null, 2);
+
+        //then
+        assertThat(page, hasSize(2));
+        assertThat(page.get(0).getId(), equalTo(first));
+        assertThat(page.get(1).getId(), equalTo(second));
+    }
+
+    @Test
+    @DisplayName("FindAll page should continue after the given id")
+    public void shouldReturnPageAfterCursor() {
+
+        //given
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        repository.save(createChargingSession(first));
+        repository.save(createChargingSession(second));
+        repository.save(createChargingSession(third));
+
+        //when
+        List<ChargingSession> page = repository.findAll(second, 2);
+
+        //then
+        assertThat(page, hasSize(1));
+        assertThat(page.get(0).getId(), equalTo(third));
+    }
+
+    @Test
+    @DisplayName("FindAll page should not repeat updated sessions")
+    public void shouldNotRepeatUpdatedSessionsInPage() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        chargingSession.setStatus(StatusEnum.FINISHED);
+        repository.save(chargingSession);
+
+        //when
+        List<ChargingSession> page = repository.findAll(null, 10);
+
+        //then
+        assertThat(page, hasSize(1));
+        assertThat(page.get(0).getStatus(), equalTo(StatusEnum.FINISHED));
+    }
+
+    @Test
+    @DisplayName("StreamAll should stream every session")
+    public void shouldStreamAllSessions() {
+
+        //given
+        repository.save(createChargingSession(UUID.randomUUID()));
+        repository.save(createChargingSession(UUID.randomUUID()));
+
+        //when
+        long count = repository.streamAll().count();
+
+        //then
+        assertThat(count, equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("FindByStationId should return only sessions of the station")
+    public void shouldFindByStationId() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        repository.save(createChargingSession(UUID.randomUUID(), "EV-5678"));
+
+        //when
+        List<ChargingSession> stationSessions = repository.findByStationId("EV-1234");
+
+        //then
+        assertThat(stationSessions, hasSize(1));
+        assertThat(stationSessions.get(0), equalTo(chargingSession));
+    }
+
+    @Test
+    @DisplayName("FindByStationId should return empty list for unknown station")
+    public void shouldReturnEmptyListForUnknownStation() {
+
+        //given
+        repository.save(createChargingSession(UUID.randomUUID()));
+
+        //when
+        List<ChargingSession> stationSessions = repository.findByStationId("EV-5678");
+
+        //then
+        assertThat(stationSessions, empty());
+    }
+
+    @Test
+    @DisplayName("FindByStationId should follow a session saved with another station")
+    public void shouldReindexSessionSavedWithAnotherStation() {
+
+        //given
+        UUID id = UUID.randomUUID();
+        repository.save(createChargingSession(id));
+        repository.save(createChargingSession(id, "EV-5678"));
+
+        //when, then
+        assertThat(repository.findByStationId("EV-1234"), empty());
+        assertThat(repository.findByStationId("EV-5678"), hasSize(1));
+    }
+
+    @Test
+    @DisplayName("FindAllByStatus should return sessions with the given status")
+    public void shouldFindActiveSessions() {
+
+        //given
+        ChargingSession active = createChargingSession(UUID.randomUUID());
+        ChargingSession stopped = createChargingSession(UUID.randomUUID());
+        repository.save(active);
+        repository.save(stopped);
+        stopped.setStatus(StatusEnum.FINISHED);
+        repository.save(stopped);
+
+        //when
+        List<ChargingSession> activeSessions = repository.findAllByStatus(StatusEnum.IN_PROGRESS);
+        List<ChargingSession> finishedSessions = repository.findAllByStatus(StatusEnum.FINISHED);
+
+        //then
+        assertThat(activeSessions, hasSize(1));
+        assertThat(activeSessions.get(0), equalTo(active));
+        assertThat(finishedSessions, hasSize(1));
+        assertThat(finishedSessions.get(0), equalTo(stopped));
+    }
+
+    @Test
+    @DisplayName("CountActive should count only sessions in progress")
+    public void shouldCountActiveSessions() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        repository.save(createChargingSession(UUID.randomUUID()));
+        chargingSession.setStatus(StatusEnum.FINISHED);
+        repository.save(chargingSession);
+
+        //when
+        long activeCount = repository.countActive();
+
+        //then
+        assertThat(activeCount, equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("FindById should return a copy that only changes on save")
+    public void shouldReturnCopies() {
+
+        //given
+        ChargingSession chargingSession = createChargingSession(UUID.randomUUID());
+        repository.save(chargingSession);
+        ChargingSession found = repository.findById(chargingSession.getId()).get();
+
+        //when
+        found.setStatus(StatusEnum.FINISHED);
+
+        //then
+        assertThat(repository.findById(chargingSession.getId()).get().getStatus(), equalTo(StatusEnum.IN_PROGRESS));
+        assertThat(repository.countActive(), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("FindAll pages should return every session once in id order across chunks")
+    public void shouldPageAcrossChunks() {
+
+        //given
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            repository.save(createChargingSession(id, "EV-" + (i % 100)));
+        }
+        Collections.sort(ids);
+
+        //when
+        List<UUID> paged = new ArrayList<>();
+        List<ChargingSession> page = repository.findAll(null, 1000);
+        while (!page.isEmpty()) {
+            page.forEach(chargingSession -> paged.add(chargingSession.getId()));
+            page = repository.findAll(page.get(page.size() - 1).getId(), 1000);
+        }
+
+        //then
+        assertThat(paged, equalTo(ids));
+        assertThat(repository.findByStationId("EV-7"), hasSize(200));
+    }
+
+    @Test
+    @DisplayName("FindStartedBetween should scan for sessions of the range ordered by start time")
+    public void shouldFindStartedBetween() {
+
+        //given
+        LocalDateTime t0 = LocalDateTime.of(2019, 6, 1, 10, 0);
+        ChargingSession first = createChargingSession(UUID.randomUUID(), t0);
+        ChargingSession second = createChargingSession(UUID.randomUUID(), t0.plusMinutes(1));
+        ChargingSession last = createChargingSession(UUID.randomUUID(), t0.plusMinutes(2));
+        repository.save(last);
+        repository.save(second);
+        repository.save(first);
+
+        //when
+        List<ChargingSession> actual = repository.findStartedBetween(TimeKey.before(EpochNanos.of(t0)),
+                EpochNanos.of(t0.plusMinutes(2)), 10);
+
+        //then
+        assertThat(actual, contains(first, second));
+    }
+
+    @Test
+    @DisplayName("Every save should increase the version")
+    public void shouldIncreaseVersionOnSave() {
+
+        //given
+        ChargingSession chargingSession = repository.save(createChargingSession(UUID.randomUUID()));
+        long created = repository.getVersion();
+        chargingSession.setStatus(StatusEnum.FINISHED);
+
+        //when
+        repository.save(chargingSession);
+
+        //then
+        assertThat(created, greaterThan(0L));
+        assertThat(repository.getVersion(), greaterThan(created));
+    }
+
+    private ChargingSession createChargingSession(UUID id, LocalDateTime startedAt) {
+        ChargingSession chargingSession = createChargingSession(id);
+        chargingSession.setStartedAt(startedAt);
+        chargingSession.setUpdatedAt(startedAt);
+        return chargingSession;
+    }
+
+    private ChargingSession createChargingSession(UUID id) {
+        return createChargingSession(id, "EV-1234");
+    }
+
+    private ChargingSession createChargingSession(UUID id, String stationId) {
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(id);
+        chargingSession.setStationId(stationId);
+        chargingSession.setStartedAt(now());
+        chargingSession.setStatus(StatusEnum.IN_PROGRESS);
+        return chargingSession;
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.evbox.everon.repository.sharded;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.TimeKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+public class ShardedChargingSessionRepositoryTest {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 10, 0);
+
+    private ShardedChargingSessionRepository repository;
+
+    @BeforeEach
+    public void init() {
+        repository = new ShardedChargingSessionRepository(4, 2);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("Save should keep the sessions of a station in a single shard")
+    public void shouldKeepStationInSingleShard() {
+
+        //given
+        ChargingSession first = createChargingSession("EV-1", 0);
+        ChargingSession second = createChargingSession("EV-1", 1);
+
+        //when
+        repository.save(first);
+        repository.save(second);
+
+        //then
+        assertThat(repository.shardOf("EV-1").findByStationId("EV-1"), containsInAnyOrder(first, second));
+        assertThat(repository.findByStationId("EV-1"), containsInAnyOrder(first, second));
+    }
+
+    @Test
+    @DisplayName("FindById should find sessions of every shard")
+    public void shouldFindByIdInAnyShard() {
+
+        //given
+        List<ChargingSession> chargingSessions = saveSessionsOfStations(100);
+
+        //when
+        List<ChargingSession> found = new ArrayList<>();
+        for (ChargingSession chargingSession : chargingSessions) {
+            repository.findById(chargingSession.getId()).ifPresent(found::add);
+        }
+        Optional<ChargingSession> missing = repository.findById(UUID.randomUUID());
+
+        //then
+        assertThat(found, equalTo(chargingSessions));
+        assertThat("isPresent", !missing.isPresent());
+    }
+
+    @Test
+    @DisplayName("Save with another station should move the session to the shard of that station")
+    public void shouldMoveSessionToShardOfNewStation() {
+
+        //given
+        String otherStation = "EV-2";
+        for (int i = 3; repository.shardOf(otherStation) == repository.shardOf("EV-1"); i++) {
+            otherStation = "EV-" + i;
+        }
+        ChargingSession chargingSession = repository.save(createChargingSession("EV-1", 0));
+        ChargingSession moved = createChargingSession(otherStation, 0);
+        moved.setId(chargingSession.getId());
+
+        //when
+        repository.save(moved);
+
+        //then
+        assertThat(repository.findById(moved.getId()).get().getStationId(), equalTo(otherStation));
+        assertThat(repository.findByStationId("EV-1"), empty());
+        assertThat(repository.count(), equalTo(1L));
+        assertThat(repository.countActive(), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("FindAll and counts should cover every shard")
+    public void shouldFanOutOverEveryShard() {
+
+        //given
+        List<ChargingSession> chargingSessions = saveSessionsOfStations(100);
+        chargingSessions.get(0).setStatus(StatusEnum.FINISHED);
+        repository.save(chargingSessions.get(0));
+
+        //when
+        List<ChargingSession> all = repository.findAll();
+        List<ChargingSession> finished = repository.findAllByStatus(StatusEnum.FINISHED);
+
+        //then
+        assertThat(all, containsInAnyOrder(chargingSessions.toArray()));
+        assertThat(finished, contains(chargingSessions.get(0)));
+        assertThat(repository.count(), equalTo(100L));
+        assertThat(repository.countActive(), equalTo(99L));
+    }
+
+    @Test
+    @DisplayName("FindAll pages should merge the shards in id order")
+    public void shouldMergePagesInIdOrder() {
+
+        //given
+        List<ChargingSession> chargingSessions = saveSessionsOfStations(100);
+        chargingSessions.sort(Comparator.comparing(ChargingSession::getId));
+
+        //when
+        List<ChargingSession> firstPage = repository.findAll(null, 60);
+        List<ChargingSession> lastPage = repository.findAll(firstPage.get(59).getId(), 60);
+
+        //then
+        assertThat(firstPage, equalTo(chargingSessions.subList(0, 60)));
+        assertThat(lastPage, equalTo(chargingSessions.subList(60, 100)));
+    }
+
+    @Test
+    @DisplayName("FindStartedBetween should merge the time indexes of the shards")
+    public void shouldMergeTimeIndexes() {
+
+        //given
+        List<ChargingSession> chargingSessions = saveSessionsOfStations(100);
+
+        //when
+        List<ChargingSession> actual = repository.findStartedBetween(TimeKey.before(EpochNanos.of(STARTED_AT.plusSeconds(10))),
+                EpochNanos.of(STARTED_AT.plusSeconds(20)), 100);
+        List<ChargingSession> none = repository.findUpdatedAfter(TimeKey.before(EpochNanos.of(STARTED_AT.plusDays(1))), 100);
+
+        //then
+        assertThat(actual, equalTo(chargingSessions.subList(10, 20)));
+        assertThat(none, empty());
+    }
+
+    @Test
+    @DisplayName("StreamAll should stream the sessions of every shard")
+    public void shouldStreamEveryShard() {
+
+        //given
+        saveSessionsOfStations(100);
+
+        //when
+        long streamed = repository.streamAll().count();
+
+        //then
+        assertThat(streamed, equalTo(100L));
+        assertThat(repository.findAll(), hasSize(100));
+    }
+
+    private List<ChargingSession> saveSessionsOfStations(int stations) {
+
+        List<ChargingSession> chargingSessions = new ArrayList<>();
+        for (int i = 0; i < stations; i++) {
+            chargingSessions.add(repository.save(createChargingSession("EV-" + i, i)));
+        }
+
+        return chargingSessions;
+    }
+
+    private ChargingSession createChargingSession(String stationId, int second) {
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(UUID.randomUUID());
+        chargingSession.setStationId(stationId);
+        chargingSession.setStartedAt(STARTED_AT.plusSeconds(second));
+        chargingSession.setUpdatedAt(chargingSession.getStartedAt());
+        chargingSession.setStatus(StatusEnum.IN_PROGRESS);
+        return chargingSession;
+    }
+}
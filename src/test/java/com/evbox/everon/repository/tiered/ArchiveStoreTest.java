@@ -0,0 +1,163 @@
+package com.evbox.everon.repository.tiered;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.wal.WriteAheadLogTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class ArchiveStoreTest {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    private Path directory;
+
+    private ArchiveStore archiveStore;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("archive");
+        archiveStore = new ArchiveStore(directory, 4096, 16, 2);
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        archiveStore.close();
+        WriteAheadLogTest.delete(directory);
+    }
+
+    @Test
+    @DisplayName("Find by id should read archived sessions across blocks and segments")
+    public void shouldFindArchivedSessions() throws IOException {
+
+        //given
+        List<ChargingSession> sessions = createChargingSessions("EV-1234", 500);
+        archiveStore.append(sessions);
+
+        //when
+        List<ChargingSession> found = sessions.stream()
+                .map(s -> archiveStore.findById(s.getId()).orElse(null))
+                .collect(Collectors.toList());
+
+        //then
+        assertThat(found, equalTo(sessions));
+        assertThat(archiveStore.size(), equalTo(500));
+        assertThat(archiveStore.findById(UUID.randomUUID()), equalTo(Optional.empty()));
+        assertThat(segments(), greaterThan(1L));
+    }
+
+    @Test
+    @DisplayName("Find by station id should return the archived sessions of the station")
+    public void shouldFindArchivedSessionsByStationId() {
+
+        //given
+        List<ChargingSession> first = createChargingSessions("EV-1234", 20);
+        List<ChargingSession> second = createChargingSessions("EV-5678", 20);
+        archiveStore.append(first);
+        archiveStore.append(second);
+
+        //when
+        List<ChargingSession> found = archiveStore.findByStationId("EV-5678");
+
+        //then
+        assertThat(found, equalTo(second));
+    }
+
+    @Test
+    @DisplayName("Find all should return pages of archived sessions ordered by id")
+    public void shouldPageArchivedSessionsById() {
+
+        //given
+        List<ChargingSession> sessions = createChargingSessions("EV-1234", 50);
+        archiveStore.append(sessions);
+        sessions.sort(Comparator.comparing(ChargingSession::getId));
+
+        //when
+        List<ChargingSession> paged = new ArrayList<>();
+        UUID after = null;
+        List<ChargingSession> page;
+        while (!(page = archiveStore.findAll(after, 7)).isEmpty()) {
+            paged.addAll(page);
+            after = page.get(page.size() - 1).getId();
+        }
+
+        //then
+        assertThat(paged, equalTo(sessions));
+    }
+
+    @Test
+    @DisplayName("An id archived again should replace its previous copy")
+    public void shouldReplaceSessionArchivedAgain() {
+
+        //given
+        ChargingSession chargingSession = createChargingSessions("EV-1234", 1).get(0);
+        archiveStore.append(Arrays.asList(chargingSession));
+
+        ChargingSession moved = copyOf(chargingSession);
+        moved.setStationId("EV-5678");
+        archiveStore.append(Arrays.asList(moved));
+
+        //when
+        List<ChargingSession> streamed = archiveStore.stream().collect(Collectors.toList());
+
+        //then
+        assertThat(streamed, contains(moved));
+        assertThat(archiveStore.findById(chargingSession.getId()), equalTo(Optional.of(moved)));
+        assertThat(archiveStore.findByStationId("EV-1234"), equalTo(new ArrayList<>()));
+        assertThat(archiveStore.findByStationId("EV-5678"), containsInAnyOrder(moved));
+        assertThat(archiveStore.size(), equalTo(1));
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static ChargingSession copyOf(ChargingSession chargingSession) {
+        ChargingSession copy = new ChargingSession();
+        copy.setId(chargingSession.getId());
+        copy.setStationId(chargingSession.getStationId());
+        copy.setStartedAt(chargingSession.getStartedAt());
+        copy.setStoppedAt(chargingSession.getStoppedAt());
+        copy.setUpdatedAt(chargingSession.getUpdatedAt());
+        copy.setStatus(chargingSession.getStatus());
+        return copy;
+    }
+
+    private static List<ChargingSession> createChargingSessions(String stationId, int count) {
+        List<ChargingSession> chargingSessions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChargingSession chargingSession = new ChargingSession();
+            chargingSession.setId(UUID.randomUUID());
+            chargingSession.setStationId(stationId);
+            chargingSession.setStartedAt(STARTED_AT.plusSeconds(i));
+            chargingSession.setStoppedAt(STARTED_AT.plusHours(1).plusSeconds(i));
+            chargingSession.setUpdatedAt(chargingSession.getStoppedAt());
+            chargingSession.setStatus(StatusEnum.FINISHED);
+            chargingSessions.add(chargingSession);
+        }
+        return chargingSessions;
+    }
+}
@@ -0,0 +1,176 @@
+package com.evbox.everon.repository.tiered;
+
+import com.evbox.everon.engine.EpochClock;
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.wal.WriteAheadLogTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+
+public class TieredChargingSessionRepositoryTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2019-06-01T10:15:30Z"), ZoneOffset.UTC);
+
+    private static final LocalDateTime NOW = LocalDateTime.now(CLOCK);
+
+    private Path directory;
+
+    private TieredChargingSessionRepository repository;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("archive");
+        repository = new TieredChargingSessionRepository(directory.toString(), 4096, 4, 2,
+                Duration.ofHours(1), 100, new EpochClock(CLOCK));
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        repository.close();
+        WriteAheadLogTest.delete(directory);
+    }
+
+    @Test
+    @DisplayName("Archive should move only finished sessions stopped before the archive age")
+    public void shouldArchiveOldFinishedSessions() {
+
+        //given
+        ChargingSession active = createChargingSession("EV-1234", null);
+        ChargingSession recent = createChargingSession("EV-1234", NOW.minusMinutes(10));
+        ChargingSession old = createChargingSession("EV-1234", NOW.minusHours(2));
+        repository.save(active);
+        repository.save(recent);
+        repository.save(old);
+
+        //when
+        repository.archive();
+
+        //then
+        assertThat(repository.findById(old.getId()).get(), equalTo(old));
+        assertThat(repository.findAll(), containsInAnyOrder(active, recent, old));
+        assertThat(repository.findByStationId("EV-1234"), containsInAnyOrder(active, recent, old));
+        assertThat(repository.findAllByStatus(StatusEnum.FINISHED), containsInAnyOrder(recent, old));
+        assertThat(repository.findAllByStatus(StatusEnum.IN_PROGRESS), contains(active));
+        assertThat(repository.countActive(), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("Archive should move the oldest finished sessions while over the hot budget")
+    public void shouldArchiveOverBudget() {
+
+        //given
+        List<ChargingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            ChargingSession chargingSession = createChargingSession("EV-" + i, NOW.minusMinutes(30).plusSeconds(i));
+            sessions.add(repository.save(chargingSession));
+        }
+
+        //when
+        repository.archive();
+        ChargingSession resaved = sessions.get(0);
+        resaved.setUpdatedAt(NOW);
+        repository.save(resaved);
+
+        //then
+        assertThat(repository.findAll(), hasSize(150));
+        assertThat(repository.findById(resaved.getId()).get(), equalTo(resaved));
+        assertThat(repository.findByStationId("EV-0"), contains(resaved));
+    }
+
+    @Test
+    @DisplayName("Archive should compare stop times with the archive age of the clock")
+    public void shouldArchiveByClock() {
+
+        //given
+        ChargingSession atAge = createChargingSession("EV-1234", NOW.minusHours(1));
+        ChargingSession pastAge = createChargingSession("EV-1234", NOW.minusHours(1).minusNanos(1));
+        repository.save(atAge);
+        repository.save(pastAge);
+
+        //when
+        repository.archive();
+
+        //then
+        assertThat(repository.streamAll().collect(Collectors.toList()), contains(pastAge, atAge));
+    }
+
+    @Test
+    @DisplayName("Stream all should list a session found in both tiers once, from the hot tier")
+    public void shouldStreamSessionInBothTiersOnce() {
+
+        //given
+        ChargingSession active = repository.save(createChargingSession("EV-1234", null));
+        ChargingSession archived = repository.save(createChargingSession("EV-1234", NOW.minusHours(2)));
+        ChargingSession resaved = repository.save(createChargingSession("EV-1234", NOW.minusHours(2)));
+        repository.archive();
+        resaved.setUpdatedAt(NOW);
+        repository.save(resaved);
+
+        //when
+        List<ChargingSession> streamed = repository.streamAll().collect(Collectors.toList());
+
+        //then
+        assertThat(streamed, hasSize(3));
+        assertThat(streamed, containsInAnyOrder(active, archived, resaved));
+        assertThat(streamed.get(streamed.indexOf(resaved)).getUpdatedAt(), equalTo(NOW));
+    }
+
+    @Test
+    @DisplayName("Find all should merge the pages of both tiers ordered by id")
+    public void shouldPageAcrossTiers() {
+
+        //given
+        List<ChargingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            sessions.add(repository.save(createChargingSession("EV-1234",
+                    i % 2 == 0 ? NOW.minusHours(2) : null)));
+        }
+        repository.archive();
+        sessions.sort(Comparator.comparing(ChargingSession::getId));
+
+        //when
+        List<ChargingSession> paged = new ArrayList<>();
+        UUID after = null;
+        List<ChargingSession> page;
+        while (!(page = repository.findAll(after, 4)).isEmpty()) {
+            paged.addAll(page);
+            after = page.get(page.size() - 1).getId();
+        }
+
+        //then
+        assertThat(paged, equalTo(sessions));
+    }
+
+    private ChargingSession createChargingSession(String stationId, LocalDateTime stoppedAt) {
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(UUID.randomUUID());
+        chargingSession.setStationId(stationId);
+        chargingSession.setStartedAt(NOW.minusHours(3));
+        chargingSession.setStoppedAt(stoppedAt);
+        chargingSession.setUpdatedAt(stoppedAt == null ? chargingSession.getStartedAt() : stoppedAt);
+        chargingSession.setStatus(stoppedAt == null ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED);
+        return chargingSession;
+    }
+}
@@ -0,0 +1,141 @@
+package com.evbox.everon.repository.wal;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+
+public class DurableChargingSessionRepositoryTest {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    private Path directory;
+
+    private DurableChargingSessionRepository repository;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("wal");
+        repository = open();
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        repository.close();
+        WriteAheadLogTest.delete(directory);
+    }
+
+    @Test
+    @DisplayName("Reopened repository should recover saved sessions")
+    public void shouldRecoverSessions() {
+
+        //given
+        ChargingSession active = createChargingSession(UUID.randomUUID(), "EV-1234");
+        ChargingSession finished = createChargingSession(UUID.randomUUID(), "EV-5678");
+        repository.save(active);
+        repository.save(finished);
+        finished.setStatus(StatusEnum.FINISHED);
+        finished.setStoppedAt(STARTED_AT.plusHours(1));
+        finished.setUpdatedAt(STARTED_AT.plusHours(1));
+        repository.save(finished);
+
+        //when
+        repository.close();
+        repository = open();
+
+        //then
+        assertThat(repository.findAll(), hasSize(2));
+        assertThat(repository.findById(active.getId()).get(), equalTo(active));
+        assertThat(repository.findById(finished.getId()).get(), equalTo(finished));
+        assertThat(repository.countActive(), equalTo(1L));
+        assertThat(repository.findByStationId("EV-5678"), hasSize(1));
+    }
+
+    @Test
+    @DisplayName("Session saved already finished should be recovered as finished")
+    public void shouldRecoverSessionSavedFinished() {
+
+        //given
+        ChargingSession finished = createChargingSession(UUID.randomUUID(), "EV-1234");
+        finished.setStatus(StatusEnum.FINISHED);
+        finished.setStoppedAt(STARTED_AT.plusMinutes(5));
+        finished.setUpdatedAt(STARTED_AT.plusMinutes(5));
+        repository.save(finished);
+
+        //when
+        repository.close();
+        repository = open();
+
+        //then
+        assertThat(repository.findById(finished.getId()).get(), equalTo(finished));
+        assertThat(repository.countActive(), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("Snapshot should truncate the log and recover with the log written after it")
+    public void shouldRecoverFromSnapshotAndLog() throws IOException {
+
+        //given
+        List<ChargingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sessions.add(repository.save(createChargingSession(UUID.randomUUID(), "EV-" + i)));
+        }
+        long segments = countSegments();
+
+        repository.snapshot();
+
+        ChargingSession finished = sessions.get(0);
+        finished.setStatus(StatusEnum.FINISHED);
+        finished.setStoppedAt(STARTED_AT.plusHours(1));
+        finished.setUpdatedAt(STARTED_AT.plusHours(1));
+        repository.save(finished);
+        ChargingSession created = repository.save(createChargingSession(UUID.randomUUID(), "EV-1234"));
+
+        //when
+        repository.close();
+        repository = open();
+
+        //then
+        assertThat(countSegments(), lessThan(segments));
+        assertThat(repository.findAll(), hasSize(201));
+        assertThat(repository.findById(finished.getId()).get(), equalTo(finished));
+        assertThat(repository.findById(created.getId()).get(), equalTo(created));
+        assertThat(repository.countActive(), equalTo(200L));
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private DurableChargingSessionRepository open() {
+        return new DurableChargingSessionRepository(directory.toString(), 4096, 1L, 1024L, true, 0L, 60_000L);
+    }
+
+    private ChargingSession createChargingSession(UUID id, String stationId) {
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(id);
+        chargingSession.setStationId(stationId);
+        chargingSession.setStartedAt(STARTED_AT);
+        chargingSession.setUpdatedAt(STARTED_AT);
+        chargingSession.setStatus(StatusEnum.IN_PROGRESS);
+        return chargingSession;
+    }
+}
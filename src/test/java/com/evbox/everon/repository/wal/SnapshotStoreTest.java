@@ -0,0 +1,117 @@
+package com.evbox.everon.repository.wal;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+public class SnapshotStoreTest {
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    private Path directory;
+
+    private SnapshotStore snapshotStore;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+        snapshotStore = new SnapshotStore(directory);
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        WriteAheadLogTest.delete(directory);
+    }
+
+    @Test
+    @DisplayName("Load should return the sessions and position of the latest snapshot")
+    public void shouldLoadLatestSnapshot() throws IOException {
+
+        //given
+        ChargingSession active = createChargingSession("EV-1234", null);
+        ChargingSession finished = createChargingSession("EV-5678", STARTED_AT.plusHours(1));
+        snapshotStore.write(10L, Arrays.asList(active).iterator());
+        snapshotStore.write(20L, Arrays.asList(active, finished).iterator());
+
+        //when
+        List<ChargingSession> loaded = new ArrayList<>();
+        long lsn = snapshotStore.load(loaded::add);
+
+        //then
+        assertThat(lsn, equalTo(20L));
+        assertThat(loaded, contains(active, finished));
+        assertThat(snapshots(), hasSize(1));
+    }
+
+    @Test
+    @DisplayName("Load should return no sessions without a snapshot")
+    public void shouldLoadNothingWithoutSnapshot() {
+
+        //when
+        List<ChargingSession> loaded = new ArrayList<>();
+        long lsn = snapshotStore.load(loaded::add);
+
+        //then
+        assertThat(lsn, equalTo(0L));
+        assertThat(loaded, empty());
+    }
+
+    @Test
+    @DisplayName("Load should ignore a corrupt snapshot")
+    public void shouldIgnoreCorruptSnapshot() throws IOException {
+
+        //given
+        snapshotStore.write(10L, Arrays.asList(createChargingSession("EV-1234", null)).iterator());
+        try (FileChannel channel = FileChannel.open(snapshots().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), 20L);
+        }
+
+        //when
+        List<ChargingSession> loaded = new ArrayList<>();
+        long lsn = snapshotStore.load(loaded::add);
+
+        //then
+        assertThat(lsn, equalTo(0L));
+        assertThat(loaded, empty());
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private ChargingSession createChargingSession(String stationId, LocalDateTime stoppedAt) {
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(UUID.randomUUID());
+        chargingSession.setStationId(stationId);
+        chargingSession.setStartedAt(STARTED_AT);
+        chargingSession.setStoppedAt(stoppedAt);
+        chargingSession.setUpdatedAt(stoppedAt == null ? STARTED_AT : stoppedAt);
+        chargingSession.setStatus(stoppedAt == null ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED);
+        return chargingSession;
+    }
+}
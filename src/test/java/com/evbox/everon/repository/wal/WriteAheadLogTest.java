@@ -0,0 +1,217 @@
+package com.evbox.everon.repository.wal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WriteAheadLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final LocalDateTime STARTED_AT = LocalDateTime.of(2019, 6, 1, 12, 0, 0, 123_456_789);
+
+    private Path directory;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("wal");
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        delete(directory);
+    }
+
+    @Test
+    @DisplayName("Reopened log should replay records in append order")
+    public void shouldReplayRecords() {
+
+        //given
+        UUID id = UUID.randomUUID();
+        try (WriteAheadLog log = open(new RecordingHandler())) {
+            log.appendCreated(id, "EV-1234", STARTED_AT);
+            log.appendStopped(id, STARTED_AT.plusHours(1));
+        }
+
+        //when
+        RecordingHandler handler = new RecordingHandler();
+        open(handler).close();
+
+        //then
+        assertThat(handler.records, contains(
+                "created " + id + " EV-1234 " + STARTED_AT,
+                "stopped " + id + " " + STARTED_AT.plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("Appends should roll over to new segments and replay across them")
+    public void shouldRollSegments() throws IOException {
+
+        //given
+        int records = 500;
+        try (WriteAheadLog log = open(new RecordingHandler())) {
+            for (int i = 0; i < records; i++) {
+                log.appendCreated(UUID.randomUUID(), "EV-" + i, STARTED_AT);
+            }
+        }
+
+        //when
+        RecordingHandler handler = new RecordingHandler();
+        open(handler).close();
+
+        //then
+        assertThat(segments().size(), greaterThan(1));
+        assertThat(handler.records, hasSize(records));
+    }
+
+    @Test
+    @DisplayName("Torn record should end the log and be overwritten by the next append")
+    public void shouldTruncateTornRecord() throws IOException {
+
+        //given
+        UUID id = UUID.randomUUID();
+        long end;
+        try (WriteAheadLog log = open(new RecordingHandler())) {
+            log.appendCreated(id, "EV-1234", STARTED_AT);
+            end = log.appendStopped(id, STARTED_AT.plusHours(1));
+        }
+        corrupt(segments().get(0), (int) end - 1);
+
+        //when
+        RecordingHandler recovered = new RecordingHandler();
+        try (WriteAheadLog log = open(recovered)) {
+            log.appendStopped(id, STARTED_AT.plusHours(2));
+        }
+        RecordingHandler handler = new RecordingHandler();
+        open(handler).close();
+
+        //then
+        assertThat(recovered.records, hasSize(1));
+        assertThat(handler.records, contains(
+                "created " + id + " EV-1234 " + STARTED_AT,
+                "stopped " + id + " " + STARTED_AT.plusHours(2)));
+    }
+
+    @Test
+    @DisplayName("Records after a torn record should not replay once a new record ends where they start")
+    public void shouldClearRecordsAfterTornRecord() throws IOException {
+
+        //given stop records of equal size, so a new one ends exactly where the next old one starts
+        UUID id = UUID.randomUUID();
+        long tornAt;
+        try (WriteAheadLog log = open(new RecordingHandler())) {
+            tornAt = log.appendCreated(id, "EV-1234", STARTED_AT);
+            log.appendStopped(UUID.randomUUID(), STARTED_AT.plusHours(1));
+            log.appendStopped(UUID.randomUUID(), STARTED_AT.plusHours(1));
+        }
+        corrupt(segments().get(0), (int) tornAt + 8);
+
+        //when
+        try (WriteAheadLog log = open(new RecordingHandler())) {
+            log.appendStopped(id, STARTED_AT.plusHours(2));
+        }
+        RecordingHandler handler = new RecordingHandler();
+        open(handler).close();
+
+        //then
+        assertThat(handler.records, contains(
+                "created " + id + " EV-1234 " + STARTED_AT,
+                "stopped " + id + " " + STARTED_AT.plusHours(2)));
+    }
+
+    @Test
+    @DisplayName("Await durable should fail instead of acknowledging a record the closed log never forced")
+    public void shouldNotAcknowledgeAfterClose() {
+
+        //given
+        WriteAheadLog log = open(new RecordingHandler());
+        long lsn = log.appendCreated(UUID.randomUUID(), "EV-1234", STARTED_AT);
+        log.close();
+
+        //when //then
+        log.awaitDurable(lsn);
+        assertThrows(IllegalStateException.class, () -> log.awaitDurable(lsn + 1));
+    }
+
+    @Test
+    @DisplayName("Await durable should return once the record is forced")
+    public void shouldAwaitDurable() {
+
+        //given
+        try (WriteAheadLog log = new WriteAheadLog(directory, SEGMENT_SIZE, Duration.ofHours(1), Long.MAX_VALUE,
+                new RecordingHandler())) {
+
+            long lsn = log.appendCreated(UUID.randomUUID(), "EV-1234", STARTED_AT);
+
+            //when
+            log.awaitDurable(lsn);
+
+            //then
+            assertThat(log.getDurableLsn(), greaterThanOrEqualTo(lsn));
+            assertThat(log.getAppendedLsn(), equalTo(lsn));
+        }
+    }
+
+    private WriteAheadLog open(WriteAheadLog.RecordHandler handler) {
+        return new WriteAheadLog(directory, SEGMENT_SIZE, Duration.ofMillis(1), 1024, handler);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void corrupt(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), position);
+        }
+    }
+
+    public static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static class RecordingHandler implements WriteAheadLog.RecordHandler {
+
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void created(UUID id, String stationId, LocalDateTime startedAt) {
+            records.add("created " + id + " " + stationId + " " + startedAt);
+        }
+
+        @Override
+        public void stopped(UUID id, LocalDateTime stoppedAt) {
+            records.add("stopped " + id + " " + stoppedAt);
+        }
+    }
+}
@@ -1,33 +1,57 @@
 package com.evbox.everon.service;
 
+import com.evbox.everon.engine.DirectCommandExecutor;
+import com.evbox.everon.engine.EpochClock;
+import com.evbox.everon.engine.RandomSessionIdGenerator;
+import com.evbox.everon.engine.SessionIdGenerator;
+import com.evbox.everon.engine.TimeOrderedSessionIdGenerator;
 import com.evbox.everon.errorhandling.ResourceNotFoundException;
 import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.EpochNanos;
 import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.model.Uuids;
+import com.evbox.everon.model.dto.ChargingSessionBatchResult;
+import com.evbox.everon.model.dto.ChargingSessionPage;
 import com.evbox.everon.model.dto.ChargingSessionResponse;
 import com.evbox.everon.repository.ChargingSessionRepository;
+import com.evbox.everon.repository.TimeKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static com.evbox.everon.model.dto.ChargingSessionResponse.from;
 import static java.time.LocalDateTime.now;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +66,18 @@ public class ChargingSessionServiceTest {
     @Mock
     private ChargingSessionStatisticsService statisticsService;
 
+    @Spy
+    private DirectCommandExecutor commandExecutor;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private EpochClock clock = new EpochClock(Clock.fixed(Instant.parse("2019-06-01T10:15:30Z"), ZoneOffset.UTC));
+
+    @Spy
+    private SessionIdGenerator idGenerator = new TimeOrderedSessionIdGenerator(Clock.fixed(Instant.parse("2019-06-01T10:15:30Z"), ZoneOffset.UTC));
+
     private static final String STATION_ID = "EV-1234";
 
     @Test
@@ -59,7 +95,25 @@ public class ChargingSessionServiceTest {
 
         //then
         assertThat(actual, equalTo(from(chargingSession)));
-        verify(statisticsService).started(chargingSession.getStartedAt());
+        verify(statisticsService).started(STATION_ID);
+    }
+
+    @Test
+    @DisplayName("Create should stamp the session with the time of the clock")
+    public void shouldStampSessionWithClock() {
+
+        //given
+        LocalDateTime now = LocalDateTime.of(2019, 6, 1, 10, 15, 30);
+        doReturn(createSession(StatusEnum.IN_PROGRESS))
+                .when(repository)
+                .save(any(ChargingSession.class));
+
+        //when
+        chargingSessionService.create(STATION_ID);
+
+        //then
+        verify(repository).save(argThat(s -> now.equals(s.getStartedAt()) && now.equals(s.getUpdatedAt())
+                && s.getStoppedAt() == null && s.getId().version() == 7));
     }
 
     @Test
@@ -88,7 +142,41 @@ public class ChargingSessionServiceTest {
 
         //then
         assertThat(actual.getStatus(), equalTo(StatusEnum.FINISHED));
-        verify(statisticsService).stopped(actual.getUpdatedAt());
+        verify(statisticsService).stopped(STATION_ID);
+
+        // the stored session only changes by saving, after the log record
+        assertThat(chargingSession.getStatus(), equalTo(StatusEnum.IN_PROGRESS));
+        verify(repository).save(argThat(saved -> isFinishedCopyOf(saved, chargingSession)));
+    }
+
+    @Test
+    @DisplayName("StopAsync should complete with the stopped session through the executor")
+    public void shouldStopChargingSessionAsync() {
+
+        //given
+        ChargingSession chargingSession = createSession(StatusEnum.IN_PROGRESS);
+        doReturn(Optional.of(chargingSession))
+                .when(repository)
+                .findById(any(UUID.class));
+
+        //when
+        ChargingSessionResponse actual = chargingSessionService.stopAsync(chargingSession.getId().toString()).join();
+
+        //then
+        assertThat(actual.getStatus(), equalTo(StatusEnum.FINISHED));
+        verify(commandExecutor).execute(any(), eq(chargingSession.getId().toString()));
+    }
+
+    @Test
+    @DisplayName("StopAsync should complete exceptionally if entity is not present")
+    public void shouldFailStopAsyncIfIdIsNotPresent() {
+
+        //when
+        CompletableFuture<ChargingSessionResponse> actual = chargingSessionService.stopAsync(UUID.randomUUID().toString());
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class, actual::get);
+        assertThat(exception.getCause(), instanceOf(ResourceNotFoundException.class));
     }
 
     @Test
@@ -109,6 +197,19 @@ public class ChargingSessionServiceTest {
         assertThrows(ResourceNotFoundException.class,
                 () -> chargingSessionService.stop(UUID.randomUUID().toString())
         );
+        assertThat(failedStops(ChargingSessionService.NOT_FOUND), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("Stop should throw IllegalArgumentException and count a failed stop if id is invalid")
+    public void shouldCountFailedStopIfIdIsInvalid() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.stop("not-an-id")
+        );
+        assertThat(failedStops(ChargingSessionService.INVALID_ID), equalTo(1.0));
+        assertThat(failedStops(ChargingSessionService.NOT_FOUND), equalTo(0.0));
     }
 
     @Test
@@ -127,6 +228,62 @@ public class ChargingSessionServiceTest {
         );
     }
 
+    @Test
+    @DisplayName("CreateAll should create a session per valid station id and fail blank ones")
+    public void shouldCreateChargingSessionsInBatch() {
+
+        //when
+        List<ChargingSessionBatchResult> results = chargingSessionService.createAll(asList(STATION_ID, " ", STATION_ID));
+
+        //then
+        assertThat(results, hasSize(3));
+        assertThat(results.get(0).getSession().getStationId(), equalTo(STATION_ID));
+        assertThat(results.get(1).getStatus(), equalTo(400));
+        assertThat(results.get(2).getStatus(), equalTo(200));
+        verify(repository).saveAll(argThat(sessions -> sessions.size() == 2));
+        verify(statisticsService).started(asList(STATION_ID, STATION_ID));
+    }
+
+    @Test
+    @DisplayName("CreateAll should throw IllegalArgumentException if batch is too large")
+    public void shouldThrowIllegalArgumentExceptionIfBatchIsTooLarge() {
+
+        //given
+        List<String> stationIds = Collections.nCopies(ChargingSessionService.MAX_BATCH_SIZE + 1, STATION_ID);
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.createAll(stationIds)
+        );
+    }
+
+    @Test
+    @DisplayName("StopAll should stop active sessions and fail invalid, unknown and repeated ids")
+    public void shouldStopChargingSessionsInBatch() {
+
+        //given
+        ChargingSession chargingSession = createSession(StatusEnum.IN_PROGRESS);
+        String id = chargingSession.getId().toString();
+        doReturn(Optional.of(chargingSession))
+                .when(repository)
+                .findById(chargingSession.getId());
+
+        //when
+        List<ChargingSessionBatchResult> results = chargingSessionService.stopAll(
+                asList(id, "not-an-id", UUID.randomUUID().toString(), id));
+
+        //then
+        assertThat(results.get(0).getSession().getStatus(), equalTo(StatusEnum.FINISHED));
+        assertThat(results.get(1).getStatus(), equalTo(400));
+        assertThat(results.get(2).getStatus(), equalTo(404));
+        assertThat(results.get(3).getStatus(), equalTo(404));
+        verify(repository).saveAll(argThat(saved -> saved.size() == 1 && isFinishedCopyOf(saved.get(0), chargingSession)));
+        assertThat(chargingSession.getStatus(), equalTo(StatusEnum.IN_PROGRESS));
+        verify(statisticsService).stopped(singletonList(STATION_ID));
+        assertThat(failedStops(ChargingSessionService.INVALID_ID), equalTo(1.0));
+        assertThat(failedStops(ChargingSessionService.NOT_FOUND), equalTo(2.0));
+    }
+
     @Test
     @DisplayName("GetAll should return empty list when repository is empty")
     public void shouldReturnEmptyListIfRepoIsEmpty() {
@@ -158,6 +315,214 @@ public class ChargingSessionServiceTest {
         assertThat(all.get(0), equalTo(from(chargingSession)));
     }
 
+    @Test
+    @DisplayName("StopAllByStation should stop only active sessions of the station")
+    public void shouldStopAllActiveSessionsOfStation() {
+
+        //given
+        ChargingSession active = createSession(StatusEnum.IN_PROGRESS);
+        ChargingSession finished = createSession(StatusEnum.FINISHED);
+        doReturn(asList(active, finished)).when(repository).findByStationId(STATION_ID);
+
+        //when
+        List<ChargingSessionResponse> stopped = chargingSessionService.stopAllByStation(STATION_ID);
+
+        //then
+        assertThat(stopped, hasSize(1));
+        assertThat(stopped.get(0).getId(), equalTo(active.getId()));
+        assertThat(stopped.get(0).getStatus(), equalTo(StatusEnum.FINISHED));
+        verify(repository).save(argThat(saved -> isFinishedCopyOf(saved, active)));
+        verify(statisticsService).stopped(STATION_ID);
+    }
+
+    @Test
+    @DisplayName("StopAllByStationAsync should stop the sessions of the station as one executor command")
+    public void shouldStopAllSessionsOfStationAsync() {
+
+        //given
+        ChargingSession active = createSession(StatusEnum.IN_PROGRESS);
+        doReturn(singletonList(active)).when(repository).findByStationId(STATION_ID);
+
+        //when
+        List<ChargingSessionResponse> stopped = chargingSessionService.stopAllByStationAsync(STATION_ID).join();
+
+        //then
+        assertThat(stopped, hasSize(1));
+        assertThat(stopped.get(0).getStatus(), equalTo(StatusEnum.FINISHED));
+        verify(commandExecutor).execute(any(), eq(STATION_ID));
+    }
+
+    @Test
+    @DisplayName("CreateAllAsync should throw IllegalArgumentException before submitting a too large batch")
+    public void shouldRejectTooLargeBatchBeforeSubmitting() {
+
+        //given
+        List<String> stationIds = Collections.nCopies(ChargingSessionService.MAX_BATCH_SIZE + 1, STATION_ID);
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.createAllAsync(stationIds)
+        );
+        verify(commandExecutor, never()).execute(any(), any());
+    }
+
+    @Test
+    @DisplayName("GetAllByStation should return sessions of the station")
+    public void shouldReturnSessionsOfStation() {
+
+        //given
+        ChargingSession chargingSession = createSession(StatusEnum.IN_PROGRESS);
+        doReturn(asList(chargingSession)).when(repository).findByStationId(STATION_ID);
+
+        //when
+        List<ChargingSessionResponse> all = chargingSessionService.getAllByStation(STATION_ID);
+
+        //then
+        assertThat(all, hasSize(1));
+        assertThat(all.get(0), equalTo(from(chargingSession)));
+    }
+
+    @Test
+    @DisplayName("GetPage should return the repository page after the cursor")
+    public void shouldReturnPageAfterCursor() {
+
+        //given
+        ChargingSession chargingSession = createSession(StatusEnum.FINISHED);
+        UUID cursor = UUID.randomUUID();
+        doReturn(asList(chargingSession)).when(repository).findAll(cursor, 11);
+
+        //when
+        ChargingSessionPage page = chargingSessionService.getPage(cursor.toString(), 10);
+
+        //then
+        assertThat(page.getSessions(), equalTo(singletonList(from(chargingSession))));
+        assertThat(page.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    @DisplayName("GetPage should only return a next cursor if more sessions follow the page")
+    public void shouldReturnNextCursorIfMoreSessionsExist() {
+
+        //given
+        ChargingSession first = createSession(StatusEnum.FINISHED);
+        ChargingSession second = createSession(StatusEnum.IN_PROGRESS);
+        doReturn(asList(first, second)).when(repository).findAll(null, 2);
+        doReturn(singletonList(second)).when(repository).findAll(first.getId(), 2);
+
+        //when
+        ChargingSessionPage firstPage = chargingSessionService.getPage(null, 1);
+        ChargingSessionPage lastPage = chargingSessionService.getPage(firstPage.getNextCursor(), 1);
+
+        //then
+        assertThat(firstPage.getSessions(), equalTo(singletonList(from(first))));
+        assertThat(firstPage.getNextCursor(), equalTo(first.getId().toString()));
+        assertThat(lastPage.getSessions(), equalTo(singletonList(from(second))));
+        assertThat(lastPage.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    @DisplayName("GetPage should throw IllegalArgumentException if limit is out of range")
+    public void shouldThrowIllegalArgumentExceptionIfLimitIsOutOfRange() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.getPage(null, ChargingSessionService.MAX_PAGE_SIZE + 1)
+        );
+    }
+
+    @Test
+    @DisplayName("GetPage should throw IllegalArgumentException if cursor is not an id")
+    public void shouldThrowIllegalArgumentExceptionIfCursorIsInvalid() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.getPage("not-an-id", 10)
+        );
+    }
+
+    @Test
+    @DisplayName("GetPageCreatedSince should scan the ids from the lower bound of the time")
+    public void shouldGetPageCreatedSince() {
+
+        //given
+        Instant since = Instant.parse("2019-06-01T10:00:00Z");
+        UUID after = Uuids.timeOrderedBefore(since.toEpochMilli());
+        ChargingSession chargingSession = createSession(StatusEnum.IN_PROGRESS);
+        doReturn(asList(chargingSession)).when(repository).findAll(after, 11);
+
+        //when
+        ChargingSessionPage page = chargingSessionService.getPageCreatedSince(since, 10);
+
+        //then
+        assertThat(page.getSessions(), equalTo(singletonList(from(chargingSession))));
+    }
+
+    @Test
+    @DisplayName("GetPageCreatedSince should throw IllegalArgumentException if ids are random")
+    public void shouldThrowIllegalArgumentExceptionIfIdsAreRandom() {
+
+        //given
+        ChargingSessionService service = new ChargingSessionService(repository, statisticsService, commandExecutor,
+                meterRegistry, clock, new RandomSessionIdGenerator());
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getPageCreatedSince(Instant.now(), 10)
+        );
+    }
+
+    @Test
+    @DisplayName("GetPageByTime should continue after the cursor of a full page")
+    public void shouldGetPageStartedBetweenWithCursor() {
+
+        //given
+        LocalDateTime from = LocalDateTime.of(2019, 6, 1, 10, 0);
+        LocalDateTime to = from.plusHours(1);
+        ChargingSession chargingSession = createSession(StatusEnum.IN_PROGRESS);
+        ChargingSession next = createSession(StatusEnum.IN_PROGRESS);
+        doReturn(asList(chargingSession, next))
+                .when(repository)
+                .findStartedBetween(TimeKey.before(EpochNanos.of(from)), EpochNanos.of(to), 2);
+        doReturn(singletonList(next))
+                .when(repository)
+                .findStartedBetween(TimeKey.startedAt(chargingSession), EpochNanos.of(to), 2);
+
+        //when
+        ChargingSessionPage firstPage = chargingSessionService.getPageByTime(from, to, null, null, 1);
+        ChargingSessionPage lastPage = chargingSessionService.getPageByTime(from, to, null, firstPage.getNextCursor(), 1);
+
+        //then
+        assertThat(firstPage.getSessions(), equalTo(singletonList(from(chargingSession))));
+        assertThat(lastPage.getSessions(), equalTo(singletonList(from(next))));
+        assertThat(lastPage.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    @DisplayName("GetPageByTime should throw IllegalArgumentException if updatedSince is combined with a start range")
+    public void shouldThrowIllegalArgumentExceptionIfTimeFiltersAreCombined() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.getPageByTime(now(), null, now(), null, 10)
+        );
+    }
+
+    @Test
+    @DisplayName("GetPageByTime should throw IllegalArgumentException if cursor is invalid")
+    public void shouldThrowIllegalArgumentExceptionIfTimeCursorIsInvalid() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionService.getPageByTime(null, null, now(), "not-a-cursor", 10)
+        );
+    }
+
+    private static boolean isFinishedCopyOf(ChargingSession saved, ChargingSession active) {
+        return saved != active && saved.getId().equals(active.getId())
+                && saved.getStartedAtNanos() == active.getStartedAtNanos()
+                && saved.getStatus() == StatusEnum.FINISHED;
+    }
+
     private ChargingSession createSession(StatusEnum status) {
 
         final LocalDateTime startedAt = now();
@@ -171,4 +536,8 @@ public class ChargingSessionServiceTest {
 
         return chargingSession;
     }
+
+    private double failedStops(String reason) {
+        return meterRegistry.counter(ChargingSessionService.FAILED_STOPS, "reason", reason).count();
+    }
 }
@@ -1,25 +1,50 @@
 package com.evbox.everon.service;
 
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
 import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.time.LocalDateTime.now;
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 public class ChargingSessionStatisticsServiceTest {
 
     private ChargingSessionStatisticsService chargingSessionStatisticsService;
 
+    private AtomicLong ticker;
+
+    private ChargingSessionRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private static final String STATION_ID = "EV-1234";
+
+    private static final String OTHER_STATION_ID = "EV-5678";
+
+    private static final Duration ONE_MINUTE = Duration.ofMinutes(1);
 
     @BeforeEach
     public void init() {
-        chargingSessionStatisticsService = new ChargingSessionStatisticsService();
+        ticker = new AtomicLong();
+        repository = mock(ChargingSessionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        chargingSessionStatisticsService = new ChargingSessionStatisticsService(repository, ticker::get, meterRegistry);
     }
 
     @Test
@@ -27,7 +52,7 @@ public class ChargingSessionStatisticsServiceTest {
     public void shouldStoreStartEvent() {
 
         //given
-        chargingSessionStatisticsService.started(now());
+        chargingSessionStatisticsService.started(STATION_ID);
 
         //when
         ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
@@ -44,7 +69,7 @@ public class ChargingSessionStatisticsServiceTest {
     public void shouldStoreStopEvent() {
 
         //given
-        chargingSessionStatisticsService.stopped(now());
+        chargingSessionStatisticsService.stopped(STATION_ID);
 
         //when
         ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
@@ -75,12 +100,12 @@ public class ChargingSessionStatisticsServiceTest {
     public void shouldExpireEvents() {
 
         //given
-        LocalDateTime moreThanOneMinuteAgo = now().minusMinutes(1).minusSeconds(1);
-        chargingSessionStatisticsService.stopped(moreThanOneMinuteAgo);
-        chargingSessionStatisticsService.started(moreThanOneMinuteAgo);
-        chargingSessionStatisticsService.started(now());
+        chargingSessionStatisticsService.stopped(STATION_ID);
+        chargingSessionStatisticsService.started(STATION_ID);
+
+        advance(61);
 
-        ReflectionTestUtils.invokeMethod(chargingSessionStatisticsService, "removeExpired");
+        chargingSessionStatisticsService.started(STATION_ID);
 
         //when
         ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
@@ -97,9 +122,9 @@ public class ChargingSessionStatisticsServiceTest {
     public void shouldNotExpireNewEvents() {
 
         //given
-        chargingSessionStatisticsService.started(now());
+        chargingSessionStatisticsService.started(STATION_ID);
 
-        ReflectionTestUtils.invokeMethod(chargingSessionStatisticsService, "removeExpired");
+        advance(59);
 
         //when
         ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
@@ -110,4 +135,235 @@ public class ChargingSessionStatisticsServiceTest {
         assertThat(summary.getStoppedCount(), equalTo(0));
         assertThat(summary.getTotalCount(), equalTo(1));
     }
+
+    @Test
+    @DisplayName("Events should be counted in their own second of the window")
+    public void shouldExpireEventsSecondBySecond() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(30);
+        chargingSessionStatisticsService.started(STATION_ID);
+        chargingSessionStatisticsService.stopped(STATION_ID);
+        advance(30);
+
+        //when
+        ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
+
+        //then
+        assertThat(summary.getStartedCount(), equalTo(1));
+        assertThat(summary.getStoppedCount(), equalTo(1));
+        assertThat(summary.getTotalCount(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("Summary should contain the number of active sessions")
+    public void shouldContainActiveCount() {
+
+        //given
+        doReturn(3L).when(repository).countActive();
+
+        //when
+        ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary();
+
+        //then
+        assertThat(summary.getActiveCount(), equalTo(3L));
+    }
+
+    @Test
+    @DisplayName("Station summary should only contain events of that station")
+    public void shouldFilterSummaryByStation() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        chargingSessionStatisticsService.started(OTHER_STATION_ID);
+        chargingSessionStatisticsService.stopped(OTHER_STATION_ID);
+
+        //when
+        ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary(STATION_ID, ONE_MINUTE);
+
+        //then
+        assertThat(summary.getStartedCount(), equalTo(1));
+        assertThat(summary.getStoppedCount(), equalTo(0));
+        assertThat(summary.getTotalCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Unknown station should have an empty summary")
+    public void shouldGetEmptyStationSummary() {
+
+        //when
+        ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary(STATION_ID, ONE_MINUTE);
+
+        //then
+        assertThat(summary.getTotalCount(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("Station summaries should contain every station with events in the window")
+    public void shouldGetStationSummaries() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(61);
+        chargingSessionStatisticsService.started(OTHER_STATION_ID);
+        chargingSessionStatisticsService.stopped(OTHER_STATION_ID);
+
+        //when
+        Map<String, ChargingSessionsSummaryResponse> summaries = chargingSessionStatisticsService.getStationSummaries();
+
+        //then
+        assertThat(summaries.size(), equalTo(1));
+        assertThat(summaries.get(OTHER_STATION_ID).getTotalCount(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("Idle stations should be evicted without losing counts of active ones")
+    public void shouldEvictIdleStations() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(61);
+        chargingSessionStatisticsService.started(OTHER_STATION_ID);
+        advance(1);
+
+        //when
+        chargingSessionStatisticsService.evictIdleStations();
+        chargingSessionStatisticsService.started(STATION_ID);
+
+        //then
+        assertThat(chargingSessionStatisticsService.getSummary(STATION_ID, ONE_MINUTE).getStartedCount(), equalTo(1));
+        assertThat(chargingSessionStatisticsService.getSummary(OTHER_STATION_ID, ONE_MINUTE).getStartedCount(), equalTo(1));
+        assertThat(chargingSessionStatisticsService.getSummary().getStartedCount(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("Idle station eviction should be timed and stations should be counted")
+    public void shouldTimeEvictionAndCountStations() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(61);
+        chargingSessionStatisticsService.started(OTHER_STATION_ID);
+        advance(1);
+
+        //when
+        chargingSessionStatisticsService.evictIdleStations();
+
+        //then
+        assertThat(meterRegistry.timer("everon.statistics.eviction").count(), equalTo(1L));
+        assertThat(chargingSessionStatisticsService.getStationCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Hourly summary should count events of the last hour")
+    public void shouldGetHourlySummary() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(600);
+        chargingSessionStatisticsService.started(STATION_ID);
+        chargingSessionStatisticsService.stopped(STATION_ID);
+        advance(120);
+
+        //when
+        ChargingSessionsSummaryResponse hourly = chargingSessionStatisticsService.getSummary(Duration.ofHours(1));
+        ChargingSessionsSummaryResponse fiveMinutes = chargingSessionStatisticsService.getSummary(Duration.ofMinutes(5));
+        ChargingSessionsSummaryResponse lastMinute = chargingSessionStatisticsService.getSummary();
+
+        //then
+        assertThat(hourly.getStartedCount(), equalTo(2));
+        assertThat(hourly.getStoppedCount(), equalTo(1));
+        assertThat(fiveMinutes.getStartedCount(), equalTo(1));
+        assertThat(fiveMinutes.getStoppedCount(), equalTo(1));
+        assertThat(lastMinute.getTotalCount(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("Daily summary should drop events older than a day")
+    public void shouldGetDailySummary() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(TimeUnit.HOURS.toSeconds(12));
+        chargingSessionStatisticsService.started(STATION_ID);
+        advance(TimeUnit.HOURS.toSeconds(13));
+
+        //when
+        ChargingSessionsSummaryResponse daily = chargingSessionStatisticsService.getSummary(Duration.ofDays(1));
+
+        //then
+        assertThat(daily.getStartedCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Summary should throw IllegalArgumentException if window is longer than a day")
+    public void shouldThrowIllegalArgumentExceptionIfWindowIsTooLong() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionStatisticsService.getSummary(Duration.ofDays(2))
+        );
+    }
+
+    @Test
+    @DisplayName("Station summary should throw IllegalArgumentException if window is not one minute")
+    public void shouldThrowIllegalArgumentExceptionIfStationWindowIsNotOneMinute() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionStatisticsService.getSummary(STATION_ID, Duration.ofHours(1))
+        );
+    }
+
+    @Test
+    @DisplayName("Restore should record the sessions of the last day at their age")
+    public void shouldRestoreFromRepository() {
+
+        //given
+        LocalDateTime now = LocalDateTime.of(2019, 6, 1, 12, 0);
+        ChargingSession recent = createChargingSession(STATION_ID, now.minusSeconds(30), now.minusSeconds(10));
+        ChargingSession older = createChargingSession(OTHER_STATION_ID, now.minusMinutes(30), null);
+        ChargingSession expired = createChargingSession(OTHER_STATION_ID, now.minusDays(2), now.minusDays(2));
+        doReturn(Stream.of(recent, older, expired)).when(repository).streamAll();
+
+        //when
+        chargingSessionStatisticsService.restore(now);
+
+        //then
+        assertThat(chargingSessionStatisticsService.getSummary().getStartedCount(), equalTo(1));
+        assertThat(chargingSessionStatisticsService.getSummary().getStoppedCount(), equalTo(1));
+        assertThat(chargingSessionStatisticsService.getSummary(Duration.ofHours(1)).getStartedCount(), equalTo(2));
+        assertThat(chargingSessionStatisticsService.getSummary(Duration.ofDays(1)).getStoppedCount(), equalTo(1));
+        assertThat(chargingSessionStatisticsService.getSummary(STATION_ID, ONE_MINUTE).getTotalCount(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("Tick should advance with every second, not with events")
+    public void shouldTickEverySecond() {
+
+        //given
+        long tick = chargingSessionStatisticsService.getTick();
+
+        //when
+        chargingSessionStatisticsService.started(STATION_ID);
+        chargingSessionStatisticsService.stopped(asList(STATION_ID, OTHER_STATION_ID));
+        advance(2);
+
+        //then
+        assertThat(chargingSessionStatisticsService.getTick(), equalTo(tick + 2));
+    }
+
+    private ChargingSession createChargingSession(String stationId, LocalDateTime startedAt, LocalDateTime stoppedAt) {
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setStationId(stationId);
+        chargingSession.setStartedAt(startedAt);
+        chargingSession.setStoppedAt(stoppedAt);
+        chargingSession.setStatus(stoppedAt == null ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED);
+        return chargingSession;
+    }
+
+    private void advance(long seconds) {
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
 }
@@ -0,0 +1,91 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.cluster.ClusterCounters;
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import com.evbox.everon.repository.ChargingSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class ClusteredChargingSessionStatisticsServiceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2019-06-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private static final long NOW = CLOCK.instant().getEpochSecond();
+
+    private static final String STATION_ID = "EV-1234";
+
+    private ClusteredChargingSessionStatisticsService chargingSessionStatisticsService;
+
+    private ClusterCounters clusterCounters;
+
+    @BeforeEach
+    public void init() {
+        final ChargingSessionRepository repository = mock(ChargingSessionRepository.class);
+        doReturn(2L).when(repository).countActive();
+
+        clusterCounters = new ClusterCounters("local", 3600L, 30L);
+        chargingSessionStatisticsService = new ClusteredChargingSessionStatisticsService(repository,
+                new AtomicLong()::get, new SimpleMeterRegistry(), clusterCounters, CLOCK);
+    }
+
+    @Test
+    @DisplayName("Summary should include the events and active sessions of the other nodes")
+    public void shouldSumNodes() {
+
+        //given
+        final ClusterCounters remote = new ClusterCounters("remote", 3600L, 30L);
+        remote.started(NOW - 30, 3L);
+        remote.stopped(NOW - 90, 1L);
+        remote.setActive(5L, CLOCK.millis());
+        clusterCounters.merge(remote.encode(), NOW);
+        chargingSessionStatisticsService.started(STATION_ID);
+        chargingSessionStatisticsService.stopped(Arrays.asList(STATION_ID, STATION_ID));
+
+        //when
+        final ChargingSessionsSummaryResponse summary = chargingSessionStatisticsService.getSummary(Duration.ofMinutes(1));
+
+        //then
+        assertThat(summary.getStartedCount(), equalTo(4));
+        assertThat(summary.getStoppedCount(), equalTo(2));
+        assertThat(summary.getActiveCount(), equalTo(7L));
+    }
+
+    @Test
+    @DisplayName("Station summary should only count the events of this node")
+    public void shouldKeepStationsLocal() {
+
+        //given
+        chargingSessionStatisticsService.started(STATION_ID);
+
+        //when
+        final ChargingSessionsSummaryResponse summary =
+                chargingSessionStatisticsService.getSummary(STATION_ID, Duration.ofMinutes(1));
+
+        //then
+        assertThat(summary.getStartedCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Summary beyond the cluster retention should throw IllegalArgumentException")
+    public void shouldRejectWindowBeyondRetention() {
+
+        //when
+        assertThrows(IllegalArgumentException.class,
+                () -> chargingSessionStatisticsService.getSummary(Duration.ofHours(2)));
+    }
+}
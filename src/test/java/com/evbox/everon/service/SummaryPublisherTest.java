@@ -0,0 +1,134 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.model.ChargingSession;
+import com.evbox.everon.model.StatusEnum;
+import com.evbox.everon.repository.InMemoryChargingSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SummaryPublisherTest {
+
+    private static final String STATION_ID = "EV-1234";
+
+    private AtomicLong ticker;
+
+    private InMemoryChargingSessionRepository repository;
+
+    private ChargingSessionStatisticsService statisticsService;
+
+    private SummaryPublisher summaryPublisher;
+
+    @BeforeEach
+    public void init() {
+        ticker = new AtomicLong();
+        repository = new InMemoryChargingSessionRepository();
+        statisticsService = new ChargingSessionStatisticsService(repository, ticker::get, new SimpleMeterRegistry());
+        summaryPublisher = new SummaryPublisher(statisticsService, repository, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Snapshot should be reused while nothing changed")
+    public void shouldReuseSnapshot() {
+
+        //given
+        statisticsService.started(STATION_ID);
+        SummaryPublisher.Snapshot first = summaryPublisher.getSnapshot();
+
+        //when
+        SummaryPublisher.Snapshot second = summaryPublisher.getSnapshot();
+
+        //then
+        assertThat(second, sameInstance(first));
+        assertThat(new String(second.getJson(), StandardCharsets.UTF_8),
+                equalTo("{\"totalCount\":1,\"startedCount\":1,\"stoppedCount\":0,\"activeCount\":0}"));
+    }
+
+    @Test
+    @DisplayName("New event should be published on the next tick, not on every event")
+    public void shouldPublishEventOnNextTick() {
+
+        //given
+        SummaryPublisher.Snapshot first = summaryPublisher.getSnapshot();
+        statisticsService.stopped(STATION_ID);
+
+        //when
+        SummaryPublisher.Snapshot sameTick = summaryPublisher.getSnapshot();
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        //then
+        assertThat(sameTick, sameInstance(first));
+        SummaryPublisher.Snapshot second = summaryPublisher.getSnapshot();
+        assertThat(second.getETag(), not(equalTo(first.getETag())));
+        assertThat(new String(second.getJson(), StandardCharsets.UTF_8),
+                equalTo("{\"totalCount\":1,\"startedCount\":0,\"stoppedCount\":1,\"activeCount\":0}"));
+        assertThat(second.getBinary(), equalTo(new byte[]{0, 1, 1}));
+    }
+
+    @Test
+    @DisplayName("Snapshot of an idle node should keep its ETag across ticks")
+    public void shouldKeepETagOfUnchangedSummary() {
+
+        //given
+        SummaryPublisher.Snapshot first = summaryPublisher.getSnapshot();
+
+        //when
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        //then
+        SummaryPublisher.Snapshot second = summaryPublisher.getSnapshot();
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.getETag(), equalTo(first.getETag()));
+    }
+
+    @Test
+    @DisplayName("New tick should publish a new snapshot, as the window slides")
+    public void shouldPublishOnTick() {
+
+        //given
+        statisticsService.started(STATION_ID);
+        SummaryPublisher.Snapshot first = summaryPublisher.getSnapshot();
+
+        //when
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        //then
+        SummaryPublisher.Snapshot second = summaryPublisher.getSnapshot();
+        assertThat(second.getETag(), not(equalTo(first.getETag())));
+        assertThat(new String(second.getJson(), StandardCharsets.UTF_8),
+                equalTo("{\"totalCount\":0,\"startedCount\":0,\"stoppedCount\":0,\"activeCount\":0}"));
+    }
+
+    @Test
+    @DisplayName("Change of the active sessions should publish a new snapshot")
+    public void shouldPublishOnRepositoryChange() {
+
+        //given
+        SummaryPublisher.Snapshot first = summaryPublisher.getSnapshot();
+        ChargingSession chargingSession = new ChargingSession();
+        chargingSession.setId(UUID.randomUUID());
+        chargingSession.setStationId(STATION_ID);
+        chargingSession.setStatus(StatusEnum.IN_PROGRESS);
+
+        //when
+        repository.save(chargingSession);
+
+        //then
+        SummaryPublisher.Snapshot second = summaryPublisher.getSnapshot();
+        assertThat(second, not(sameInstance(first)));
+        assertThat(new String(second.getJson(), StandardCharsets.UTF_8),
+                equalTo("{\"totalCount\":0,\"startedCount\":0,\"stoppedCount\":0,\"activeCount\":1}"));
+    }
+}
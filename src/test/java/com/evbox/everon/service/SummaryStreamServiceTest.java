@@ -0,0 +1,185 @@
+package com.evbox.everon.service;
+
+import com.evbox.everon.model.dto.ChargingSessionsSummaryResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class SummaryStreamServiceTest {
+
+    @Mock
+    private SummaryPublisher summaryPublisher;
+
+    private SummaryStreamService summaryStreamService;
+
+    @BeforeEach
+    public void init() {
+        summaryStreamService = new SummaryStreamService(summaryPublisher, 5);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        summaryStreamService.close();
+    }
+
+    @Test
+    @DisplayName("Broadcast should hand the bytes of the published snapshot to all subscribers")
+    public void shouldShareSerializedSummary() {
+
+        //given
+        SummaryPublisher.Snapshot snapshot = snapshot(2);
+        doReturn(snapshot).when(summaryPublisher).getSnapshot();
+        RecordingSink first = new RecordingSink(false);
+        RecordingSink second = new RecordingSink(false);
+        summaryStreamService.subscribe(first);
+        summaryStreamService.subscribe(second);
+
+        //when
+        summaryStreamService.broadcast();
+
+        //then
+        assertThat(first.frames, contains(sameInstance(snapshot.getJson())));
+        assertThat(second.frames, contains(sameInstance(snapshot.getJson())));
+        verify(summaryPublisher, times(1)).getSnapshot();
+    }
+
+    @Test
+    @DisplayName("A subscriber whose connection is not ready should only receive the latest summary once it is")
+    public void shouldConflateSummariesOfBusySubscriber() {
+
+        //given
+        doReturn(snapshot(1), snapshot(2), snapshot(3)).when(summaryPublisher).getSnapshot();
+        RecordingSink sink = new RecordingSink(true);
+        sink.subscription = summaryStreamService.subscribe(sink);
+
+        //when
+        summaryStreamService.broadcast();
+        summaryStreamService.broadcast();
+        summaryStreamService.broadcast();
+        sink.drain();
+
+        //then
+        assertThat(sink.startedCounts(), contains("1", "3"));
+    }
+
+    @Test
+    @DisplayName("A subscriber stalled for more than the maximum ticks should be dropped without holding up the others")
+    public void shouldDropStalledSubscriber() {
+
+        //given
+        doReturn(snapshot(1)).when(summaryPublisher).getSnapshot();
+        RecordingSink stalled = new RecordingSink(true);
+        RecordingSink fast = new RecordingSink(false);
+        summaryStreamService.subscribe(stalled);
+        summaryStreamService.subscribe(fast);
+
+        //when
+        for (int i = 0; i < 7; i++) {
+            summaryStreamService.broadcast();
+        }
+
+        //then the fast subscriber received every tick
+        assertThat(fast.frames.size(), equalTo(7));
+        assertThat(stalled.frames.size(), equalTo(1));
+        assertTrue(stalled.closed);
+        assertThat(summaryStreamService.getSubscriberCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Broadcast should skip a tick without a published summary")
+    public void shouldSkipTickWithoutSnapshot() {
+
+        //given
+        RecordingSink sink = new RecordingSink(false);
+        summaryStreamService.subscribe(sink);
+
+        //when
+        summaryStreamService.broadcast();
+
+        //then
+        assertThat(sink.frames.size(), equalTo(0));
+        assertThat(summaryStreamService.getSubscriberCount(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("Broadcast should not compute the summary without subscribers")
+    public void shouldNotComputeSummaryWithoutSubscribers() {
+
+        //when
+        summaryStreamService.broadcast();
+
+        //then
+        verify(summaryPublisher, never()).getSnapshot();
+    }
+
+    private static SummaryPublisher.Snapshot snapshot(int startedCount) {
+        String json = "{\"startedCount\":" + startedCount + "}";
+        return new SummaryPublisher.Snapshot(startedCount, 0L, new ChargingSessionsSummaryResponse(startedCount, 0),
+                json.getBytes(StandardCharsets.UTF_8), new byte[0]);
+    }
+
+    /**
+     * Sink whose connection, when stalling, is not ready after each frame until drained.
+     */
+    private static class RecordingSink implements SummaryStreamService.SummarySink {
+
+        private final boolean stalling;
+        private final List<byte[]> frames = new ArrayList<>();
+        private SummaryStreamService.Subscription subscription;
+        private boolean ready = true;
+        private boolean closed;
+
+        private RecordingSink(boolean stalling) {
+            this.stalling = stalling;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void send(byte[] json) {
+            frames.add(json);
+            ready = !stalling;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private void drain() {
+            ready = true;
+            subscription.ready();
+        }
+
+        private List<String> startedCounts() {
+            List<String> counts = new ArrayList<>();
+            for (byte[] frame : frames) {
+                String json = new String(frame, StandardCharsets.UTF_8);
+                counts.add(json.replaceAll(".*\"startedCount\":(\\d+).*", "$1"));
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.evbox.everon.statistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SlidingWindowCounterTest {
+
+    private AtomicLong ticker;
+
+    private SlidingWindowCounter counter;
+
+    @BeforeEach
+    public void init() {
+        ticker = new AtomicLong(TimeUnit.DAYS.toNanos(42));
+        counter = new SlidingWindowCounter(60, Duration.ofSeconds(1), 4, ticker::get);
+    }
+
+    @Test
+    @DisplayName("Sum should count every increment of the current bucket")
+    public void shouldCountIncrements() {
+
+        //given
+        counter.increment();
+        counter.increment();
+
+        //when
+        long sum = counter.sum();
+
+        //then
+        assertThat(sum, equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("Sum should drop buckets that left the window")
+    public void shouldDropExpiredBuckets() {
+
+        //given
+        counter.increment();
+        advance(10);
+        counter.increment();
+        advance(50);
+
+        //when
+        long sum = counter.sum();
+
+        //then
+        assertThat(sum, equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("Reused slot should restart counting for the new bucket")
+    public void shouldResetReusedSlot() {
+
+        //given
+        counter.increment();
+        counter.increment();
+        advance(60);
+        counter.increment();
+
+        //when
+        long sum = counter.sum();
+
+        //then
+        assertThat(sum, equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("Sum of recent buckets should only count those buckets")
+    public void shouldSumRecentBuckets() {
+
+        //given
+        counter.increment();
+        advance(5);
+        counter.increment();
+
+        //when, then
+        assertThat(counter.sum(5), equalTo(1L));
+        assertThat(counter.sum(6), equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("Add should ignore events that are older than the window")
+    public void shouldIgnoreExpiredEvents() {
+
+        //given
+        advance(120);
+        counter.add(ticker.get() - TimeUnit.SECONDS.toNanos(61), 5);
+        counter.add(ticker.get() - TimeUnit.SECONDS.toNanos(59), 3);
+
+        //when
+        long sum = counter.sum();
+
+        //then
+        assertThat(sum, equalTo(3L));
+    }
+
+    @Test
+    @DisplayName("Sum should throw Exception if more buckets than the window are requested")
+    public void shouldThrowIllegalArgumentExceptionIfTooManyBuckets() {
+
+        // when, then
+        assertThrows(IllegalArgumentException.class,
+                () -> counter.sum(61)
+        );
+    }
+
+    @Test
+    @DisplayName("Concurrent increments should not be lost")
+    public void shouldNotLoseConcurrentIncrements() throws InterruptedException {
+
+        //given
+        int threads = 8;
+        int increments = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                awaitQuietly(start);
+                for (int j = 0; j < increments; j++) {
+                    counter.increment();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        //when
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        //then
+        assertThat(counter.sum(), equalTo((long) threads * increments));
+    }
+
+    private void advance(long seconds) {
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}